@@ -0,0 +1,21 @@
+#!/usr/bin/env bash
+# 自增主键和 TimeOrderedIds 的写入吞吐对比（见 ids/IdInsertBenchmark.java）。
+#
+# 默认写内存 H2；压 MySQL 时传连接串，建议加 rewriteBatchedStatements=true，和生产配置一致：
+#   URL='jdbc:mysql://localhost:3306/social_media?rewriteBatchedStatements=true' DB_USER=root DB_PASSWORD=secret \
+#     ROWS=200000 THREADS=4 ./benchmarks/id-insert.sh
+# 会在库里建两张 bench_ 开头的临时表，跑完删掉。
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+ROWS=${ROWS:-200000}
+THREADS=${THREADS:-4}
+BATCH_SIZE=${BATCH_SIZE:-50}
+ARGS=(--rows "$ROWS" --threads "$THREADS" --batch-size "$BATCH_SIZE")
+if [[ -n "${URL:-}" ]]; then
+  ARGS+=(--url "$URL" --user "${DB_USER:-}" --password "${DB_PASSWORD:-}")
+fi
+
+./mvnw -q -B -DskipTests compile dependency:build-classpath -Dmdep.outputFile=target/benchmark.classpath
+java -cp "target/classes:$(cat target/benchmark.classpath)" benchmarks/ids/IdInsertBenchmark.java "${ARGS[@]}"
@@ -0,0 +1,204 @@
+import com.example.demo.id.TimeOrderedIds;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 自增主键和 TimeOrderedIds 的写入吞吐对比，按 Hibernate 实际发出的 JDBC 调用模拟：
+ *
+ * - identity：每行一条 INSERT，带 RETURN_GENERATED_KEYS 取回主键（IDENTITY 没法攒批）
+ * - time-ordered：先生成 id，addBatch 攒够 batch-size 行再 executeBatch（hibernate.jdbc.batch_size）
+ *
+ * 两种都是每 batch-size 行提交一次，threads 个线程各用一个连接并发写。另外单独测一下只生成 id 的速度，
+ * 它也是 time-ordered 单实例写入的上限。
+ * 每轮都新建表，先跑一遍 warmup-rows 行预热，不计入结果。
+ *
+ * 需要项目编译出的类和 JDBC 驱动在 classpath 上，用 benchmarks/id-insert.sh 运行；也可以直接：
+ *
+ *   java -cp target/classes:<驱动 jar> benchmarks/ids/IdInsertBenchmark.java \
+ *       --url 'jdbc:mysql://localhost:3306/social_media?rewriteBatchedStatements=true' \
+ *       --user root --password secret --rows 200000 --threads 4 --batch-size 50
+ *
+ * 不加 --url 时用内存 H2，只能看个大概：没有网络往返，自增的劣势会被低估。
+ */
+public class IdInsertBenchmark {
+
+    private static final String COLUMNS = "user_id BIGINT NOT NULL, content VARCHAR(255) NOT NULL, created_at TIMESTAMP NOT NULL";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        // H2 的 MySQL 模式下并发写自增列会撞主键，这里用默认模式
+        String url = options.getOrDefault("url", "jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1");
+        String user = options.getOrDefault("user", "");
+        String password = options.getOrDefault("password", "");
+        int rows = Integer.parseInt(options.getOrDefault("rows", "200000"));
+        int warmupRows = Integer.parseInt(options.getOrDefault("warmup-rows", String.valueOf(rows / 10)));
+        int threads = Integer.parseInt(options.getOrDefault("threads", "4"));
+        int batchSize = Integer.parseInt(options.getOrDefault("batch-size", "50"));
+
+        TimeOrderedIds.assignNode(Integer.parseInt(options.getOrDefault("node", "0")));
+        Database db = new Database(url, user, password);
+
+        System.out.printf("rows=%d threads=%d batch-size=%d url=%s%n%n", rows, threads, batchSize, url);
+        System.out.printf("%-14s %12s %12s%n", "mode", "rows/s", "ms");
+
+        // 单个节点每毫秒 128 个，持续生成的上限约 128000/s；开头能先借出最多 1 秒的量，行数少时会更快
+        long idNanos = timed(threads, rows, (thread, count) -> {
+            for (long i = 0; i < count; i++) {
+                TimeOrderedIds.next();
+            }
+        });
+        report("generate-only", rows, idNanos);
+
+        for (Mode mode : Mode.values()) {
+            db.recreate(mode);
+            timed(threads, warmupRows, (thread, count) -> db.insert(mode, thread, count, batchSize));
+            db.recreate(mode);
+            long nanos = timed(threads, rows, (thread, count) -> db.insert(mode, thread, count, batchSize));
+            report(mode.label, rows, nanos);
+            db.drop(mode);
+        }
+    }
+
+    private enum Mode {
+        IDENTITY("identity", "bench_identity", "id BIGINT AUTO_INCREMENT PRIMARY KEY"),
+        TIME_ORDERED("time-ordered", "bench_time_ordered", "id BIGINT NOT NULL PRIMARY KEY");
+
+        final String label;
+        final String table;
+        final String idColumn;
+
+        Mode(String label, String table, String idColumn) {
+            this.label = label;
+            this.table = table;
+            this.idColumn = idColumn;
+        }
+    }
+
+    private record Database(String url, String user, String password) {
+
+        Connection connect() throws SQLException {
+            return DriverManager.getConnection(url, user, password);
+        }
+
+        void recreate(Mode mode) throws SQLException {
+            drop(mode);
+            try (Connection c = connect(); Statement s = c.createStatement()) {
+                s.execute("CREATE TABLE " + mode.table + " (" + mode.idColumn + ", " + COLUMNS + ")");
+            }
+        }
+
+        void drop(Mode mode) throws SQLException {
+            try (Connection c = connect(); Statement s = c.createStatement()) {
+                s.execute("DROP TABLE IF EXISTS " + mode.table);
+            }
+        }
+
+        void insert(Mode mode, int thread, long count, int batchSize) throws SQLException {
+            try (Connection c = connect()) {
+                c.setAutoCommit(false);
+                if (mode == Mode.IDENTITY) {
+                    insertIdentity(c, thread, count, batchSize);
+                } else {
+                    insertTimeOrdered(c, thread, count, batchSize);
+                }
+                c.commit();
+            }
+        }
+
+        // IDENTITY：persist 时就得执行 INSERT 才知道主键，一行一次往返
+        private void insertIdentity(Connection c, int thread, long count, int batchSize) throws SQLException {
+            String sql = "INSERT INTO " + Mode.IDENTITY.table + " (user_id, content, created_at) VALUES (?, ?, ?)";
+            try (PreparedStatement ps = c.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                for (long i = 0; i < count; i++) {
+                    bind(ps, 1, thread, i);
+                    ps.executeUpdate();
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        keys.next();
+                        keys.getLong(1);
+                    }
+                    if ((i + 1) % batchSize == 0) {
+                        c.commit();
+                    }
+                }
+            }
+        }
+
+        private void insertTimeOrdered(Connection c, int thread, long count, int batchSize) throws SQLException {
+            String sql = "INSERT INTO " + Mode.TIME_ORDERED.table + " (id, user_id, content, created_at) VALUES (?, ?, ?, ?)";
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                for (long i = 0; i < count; i++) {
+                    ps.setLong(1, TimeOrderedIds.next());
+                    bind(ps, 2, thread, i);
+                    ps.addBatch();
+                    if ((i + 1) % batchSize == 0) {
+                        ps.executeBatch();
+                        c.commit();
+                    }
+                }
+                ps.executeBatch();
+            }
+        }
+
+        private static void bind(PreparedStatement ps, int from, int thread, long i) throws SQLException {
+            ps.setLong(from, thread * 1_000_000L + i % 10_000);
+            ps.setString(from + 1, "benchmark post " + i + " from thread " + thread);
+            ps.setTimestamp(from + 2, new Timestamp(System.currentTimeMillis()));
+        }
+    }
+
+    @FunctionalInterface
+    private interface Work {
+        void run(int thread, long count) throws Exception;
+    }
+
+    // count 平分给 threads 个线程，返回全部完成的耗时
+    private static long timed(int threads, long count, Work work) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            long started = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                long share = count / threads + (t < count % threads ? 1 : 0);
+                futures.add(pool.submit(() -> {
+                    work.run(thread, share);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return System.nanoTime() - started;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void report(String label, long count, long nanos) {
+        System.out.printf("%-14s %12.0f %12d%n", label, count * 1e9 / nanos, nanos / 1_000_000);
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected --name value, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+}
@@ -0,0 +1,515 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 闭环压测：concurrency 个客户端各自循环 "发请求 - 等响应"，每次按权重随机挑一个接口。
+ * 预热阶段的请求不计入结果。按接口分别统计吞吐、各分位延迟和状态码分布，JSON 写到 --out。
+ *
+ * 单文件程序，不依赖项目代码，直接 java LoadDriver.java 运行（JDK 17+）。两种用法：
+ *
+ * 1. 固定的几个 GET 接口，权重相同：
+ *
+ *   java LoadDriver.java --base-url http://localhost:8000 --label platform \
+ *       --concurrency 2000 --duration 60 --warmup 10 \
+ *       --path '/api/posts?limit=20' --path '/api/posts/game/VALORANT?limit=20' \
+ *       --header 'Authorization: Bearer ...' --out results/platform.json
+ *
+ * 2. 社区场景（--scenario social）：先用 SyntheticDataGenerator 生成的账号登录，
+ *    再混合请求 feed、评论、关注、登录、搜索，--mix 调整各操作的权重：
+ *
+ *   java LoadDriver.java --scenario social --users 1000000 --sessions 500 \
+ *       --mix feed=25,following=20,game=10,comments=15,comment=10,follow=5,login=5,search=10 \
+ *       --out results/social.json
+ *
+ * 结果对比：java LoadDriver.java --compare results/platform.json results/virtual.json
+ */
+public class LoadDriver {
+
+    private static final String DEFAULT_MIX = "feed=25,following=20,game=10,comments=15,comment=10,follow=5,login=5,search=10";
+    private static final String[] GAME_TYPES = {"LEAGUE_OF_LEGENDS", "VALORANT", "GENERAL"};
+    private static final String[] SEARCH_TERMS = {"ranked", "duo", "clutch", "diamond", "jungle", "montage", "上分", "双排"};
+    private static final Pattern FIRST_ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--compare")) {
+            compare(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        Options options = new Options();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--base-url" -> options.baseUrl = args[++i];
+                case "--label" -> options.label = args[++i];
+                case "--concurrency" -> options.concurrency = Integer.parseInt(args[++i]);
+                case "--duration" -> options.durationSec = Integer.parseInt(args[++i]);
+                case "--warmup" -> options.warmupSec = Integer.parseInt(args[++i]);
+                case "--path" -> options.paths.add(args[++i]);
+                case "--header" -> {
+                    String h = args[++i];
+                    int idx = h.indexOf(':');
+                    options.headers.add(new String[]{h.substring(0, idx).trim(), h.substring(idx + 1).trim()});
+                }
+                case "--scenario" -> options.scenario = args[++i];
+                case "--mix" -> options.mix = args[++i];
+                case "--users" -> options.users = Integer.parseInt(args[++i]);
+                case "--sessions" -> options.sessions = Integer.parseInt(args[++i]);
+                case "--email-domain" -> options.emailDomain = args[++i];
+                case "--password" -> options.password = args[++i];
+                case "--out" -> options.out = args[++i];
+                default -> throw new IllegalArgumentException("Unknown argument " + args[i]);
+            }
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        List<Op> ops;
+        if (options.scenario == null) {
+            if (options.paths.isEmpty()) {
+                options.paths.add("/api/posts?limit=20");
+            }
+            ops = pathOps(options);
+        } else if (options.scenario.equals("social")) {
+            ops = socialOps(options, new Social(client, options));
+        } else {
+            throw new IllegalArgumentException("Unknown scenario " + options.scenario);
+        }
+
+        Result result = run(client, options, ops);
+        String json = result.toJson();
+        System.out.println(json);
+        result.printTable();
+        if (options.out != null) {
+            Path outPath = Path.of(options.out);
+            if (outPath.getParent() != null) {
+                Files.createDirectories(outPath.getParent());
+            }
+            Files.writeString(outPath, json + System.lineSeparator());
+        }
+    }
+
+    static List<Op> pathOps(Options options) {
+        List<Op> ops = new ArrayList<>();
+        for (String path : options.paths) {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(options.baseUrl + path))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET();
+            options.headers.forEach(h -> builder.header(h[0], h[1]));
+            HttpRequest request = builder.build();
+            ops.add(new Op(path, 1, (random, worker) -> request));
+        }
+        return ops;
+    }
+
+    static List<Op> socialOps(Options options, Social social) throws Exception {
+        social.prepare();
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String part : options.mix.split(",")) {
+            String[] kv = part.split("=");
+            weights.put(kv[0].trim(), Integer.parseInt(kv[1].trim()));
+        }
+
+        List<Op> ops = new ArrayList<>();
+        weights.forEach((name, weight) -> {
+            if (weight <= 0) {
+                return;
+            }
+            RequestFactory factory = switch (name) {
+                case "feed" -> (random, worker) -> social.get("/api/posts?limit=20", null);
+                case "following" -> (random, worker) -> social.get("/api/posts/following?limit=20", social.token(worker));
+                case "game" -> (random, worker) -> social.get("/api/posts/game/" + GAME_TYPES[random.nextInt(GAME_TYPES.length)] + "?limit=20", null);
+                case "comments" -> (random, worker) -> social.get("/api/comments/post/" + social.postId(random) + "?limit=20", null);
+                case "comment" -> (random, worker) -> social.post("/api/comments",
+                        "{\"postId\":" + social.postId(random) + ",\"content\":\"load test comment " + random.nextInt(1_000_000) + "\"}",
+                        social.token(worker));
+                // 关注一个随机用户，下一次同一个客户端再取关它，关系总量保持不变
+                case "follow" -> social::followOrUnfollow;
+                case "login" -> (random, worker) -> social.post("/api/auth/login",
+                        "{\"email\":\"" + social.email(1 + random.nextInt(options.users)) + "\",\"password\":\"" + options.password + "\"}", null);
+                case "search" -> (random, worker) -> social.get("/api/search?q="
+                        + URLEncoder.encode(SEARCH_TERMS[random.nextInt(SEARCH_TERMS.length)], StandardCharsets.UTF_8) + "&limit=20", null);
+                default -> throw new IllegalArgumentException("Unknown operation " + name);
+            };
+            ops.add(new Op(name, weight, factory));
+        });
+        return ops;
+    }
+
+    static Result run(HttpClient client, Options options, List<Op> ops) throws InterruptedException {
+        int concurrency = options.concurrency;
+        int totalWeight = ops.stream().mapToInt(Op::weight).sum();
+        AtomicBoolean measuring = new AtomicBoolean();
+        AtomicBoolean stop = new AtomicBoolean();
+        Recorder[][] recorders = new Recorder[concurrency][];
+        CountDownLatch done = new CountDownLatch(concurrency);
+
+        for (int w = 0; w < concurrency; w++) {
+            int worker = w;
+            Recorder[] own = new Recorder[ops.size()];
+            for (int o = 0; o < own.length; o++) {
+                own[o] = new Recorder();
+            }
+            recorders[w] = own;
+            Thread thread = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(worker);
+                try {
+                    while (!stop.get()) {
+                        int o = pick(ops, random.nextInt(totalWeight));
+                        HttpRequest request = ops.get(o).factory().next(random, worker);
+                        long start = System.nanoTime();
+                        int status;
+                        try {
+                            status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        } catch (IOException e) {
+                            status = -1;
+                        } catch (InterruptedException e) {
+                            break;
+                        }
+                        long micros = (System.nanoTime() - start) / 1_000;
+                        if (measuring.get()) {
+                            own[o].record(status, micros);
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "load-" + w);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        Thread.sleep(options.warmupSec * 1000L);
+        measuring.set(true);
+        long measureStart = System.nanoTime();
+        Thread.sleep(options.durationSec * 1000L);
+        measuring.set(false);
+        double elapsedSec = (System.nanoTime() - measureStart) / 1e9;
+        stop.set(true);
+        done.await();
+
+        Recorder total = new Recorder();
+        Map<String, Stats> endpoints = new LinkedHashMap<>();
+        for (int o = 0; o < ops.size(); o++) {
+            Recorder merged = new Recorder();
+            for (Recorder[] own : recorders) {
+                merged.merge(own[o]);
+            }
+            total.merge(merged);
+            endpoints.put(ops.get(o).name(), merged.stats(elapsedSec));
+        }
+
+        Result result = new Result();
+        result.label = options.label;
+        result.concurrency = concurrency;
+        result.durationSec = elapsedSec;
+        result.total = total.stats(elapsedSec);
+        result.endpoints = endpoints;
+        return result;
+    }
+
+    private static int pick(List<Op> ops, int ticket) {
+        for (int o = 0; o < ops.size(); o++) {
+            ticket -= ops.get(o).weight();
+            if (ticket < 0) {
+                return o;
+            }
+        }
+        return ops.size() - 1;
+    }
+
+    // 把几次运行的结果并排打印
+    static void compare(String[] files) throws IOException {
+        System.out.printf("%-12s %12s %10s %10s %10s %10s %8s%n",
+                "label", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "errors");
+        for (String file : files) {
+            String json = Files.readString(Path.of(file));
+            System.out.printf("%-12s %12.1f %10.2f %10.2f %10.2f %10.2f %8d%n",
+                    stringField(json, "label"),
+                    numberField(json, "throughput"),
+                    numberField(json, "p50Ms"),
+                    numberField(json, "p90Ms"),
+                    numberField(json, "p99Ms"),
+                    numberField(json, "p999Ms"),
+                    (long) numberField(json, "errors"));
+        }
+    }
+
+    // 汇总字段在 endpoints 之前，取第一个匹配就是汇总值
+    private static String stringField(String json, String name) {
+        Matcher m = Pattern.compile("\"" + name + "\"\\s*:\\s*\"([^\"]*)\"").matcher(json);
+        return m.find() ? m.group(1) : "?";
+    }
+
+    private static double numberField(String json, String name) {
+        Matcher m = Pattern.compile("\"" + name + "\"\\s*:\\s*([-0-9.eE]+)").matcher(json);
+        return m.find() ? Double.parseDouble(m.group(1)) : Double.NaN;
+    }
+
+    static final class Options {
+        String baseUrl = "http://localhost:8000";
+        String label = "run";
+        int concurrency = 200;
+        int durationSec = 30;
+        int warmupSec = 5;
+        String out;
+        List<String> paths = new ArrayList<>();
+        List<String[]> headers = new ArrayList<>();
+        String scenario;
+        String mix = DEFAULT_MIX;
+        int users = 10_000;
+        int sessions = 200;
+        String emailDomain = "loadtest.local";
+        String password = "password";
+    }
+
+    @FunctionalInterface
+    interface RequestFactory {
+        HttpRequest next(SplittableRandom random, int worker);
+    }
+
+    record Op(String name, int weight, RequestFactory factory) {
+    }
+
+    /**
+     * 社区场景的共享状态：登录好的会话、帖子 id 范围、每个客户端待取关的用户。
+     */
+    static final class Social {
+        private final HttpClient client;
+        private final Options options;
+        private final Map<Integer, Long> pendingUnfollow = new ConcurrentHashMap<>();
+        private String[] tokens;
+        private long maxPostId;
+
+        Social(HttpClient client, Options options) {
+            this.client = client;
+            this.options = options;
+        }
+
+        void prepare() throws Exception {
+            String firstPage = client.send(get("/api/posts?limit=1", null), HttpResponse.BodyHandlers.ofString()).body();
+            Matcher m = FIRST_ID.matcher(firstPage);
+            if (!m.find()) {
+                throw new IllegalStateException("No posts found, generate data first");
+            }
+            maxPostId = Long.parseLong(m.group(1));
+
+            // 登录很慢（BCrypt），并行登录，每个客户端固定用其中一个会话
+            tokens = new String[Math.min(options.sessions, options.users)];
+            ExecutorService pool = Executors.newFixedThreadPool(16);
+            List<Future<String>> futures = new ArrayList<>();
+            for (int s = 0; s < tokens.length; s++) {
+                int user = 1 + (int) ((long) s * options.users / tokens.length);
+                futures.add(pool.submit(() -> login(user)));
+            }
+            for (int s = 0; s < tokens.length; s++) {
+                tokens[s] = futures.get(s).get();
+            }
+            pool.shutdown();
+            System.err.printf("Logged in %d sessions, latest post id %d%n", tokens.length, maxPostId);
+        }
+
+        private String login(int user) throws IOException, InterruptedException {
+            HttpResponse<String> response = client.send(post("/api/auth/login",
+                    "{\"email\":\"" + email(user) + "\",\"password\":\"" + options.password + "\"}", null),
+                    HttpResponse.BodyHandlers.ofString());
+            Matcher m = TOKEN.matcher(response.body());
+            if (response.statusCode() != 200 || !m.find()) {
+                throw new IllegalStateException("Login failed for " + email(user) + ": " + response.statusCode());
+            }
+            return m.group(1);
+        }
+
+        String email(int user) {
+            return "user" + user + "@" + options.emailDomain;
+        }
+
+        String token(int worker) {
+            return tokens[worker % tokens.length];
+        }
+
+        // 大部分人看的是最新的帖子：八成落在最新 10% 里
+        long postId(SplittableRandom random) {
+            long recent = Math.max(maxPostId / 10, 1);
+            return random.nextDouble() < 0.8
+                    ? maxPostId - random.nextLong(recent)
+                    : 1 + random.nextLong(maxPostId);
+        }
+
+        HttpRequest followOrUnfollow(SplittableRandom random, int worker) {
+            Long target = pendingUnfollow.remove(worker);
+            if (target != null) {
+                return request("/api/follow/" + target, token(worker)).DELETE().build();
+            }
+            long newTarget = 1 + random.nextLong(options.users);
+            pendingUnfollow.put(worker, newTarget);
+            return request("/api/follow/" + newTarget, token(worker)).POST(HttpRequest.BodyPublishers.noBody()).build();
+        }
+
+        HttpRequest get(String path, String token) {
+            return request(path, token).GET().build();
+        }
+
+        HttpRequest post(String path, String json, String token) {
+            return request(path, token)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(json))
+                    .build();
+        }
+
+        private HttpRequest.Builder request(String path, String token) {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(options.baseUrl + path))
+                    .timeout(Duration.ofSeconds(30));
+            if (token != null) {
+                builder.header("Authorization", "Bearer " + token);
+            }
+            return builder;
+        }
+    }
+
+    /**
+     * 单个客户端单个接口的延迟样本，只由一个线程写，结束后再合并。
+     */
+    static final class Recorder {
+        private long[] samples = new long[256];
+        private int count;
+        private long errors;
+        private final Map<Integer, Long> statuses = new TreeMap<>();
+
+        void record(int status, long micros) {
+            if (status < 0) {
+                errors++;
+                return;
+            }
+            statuses.merge(status, 1L, Long::sum);
+            if (count == samples.length) {
+                samples = Arrays.copyOf(samples, count << 1);
+            }
+            samples[count++] = micros;
+        }
+
+        void merge(Recorder other) {
+            if (count + other.count > samples.length) {
+                samples = Arrays.copyOf(samples, count + other.count);
+            }
+            System.arraycopy(other.samples, 0, samples, count, other.count);
+            count += other.count;
+            errors += other.errors;
+            other.statuses.forEach((status, n) -> statuses.merge(status, n, Long::sum));
+        }
+
+        Stats stats(double elapsedSec) {
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            Stats stats = new Stats();
+            stats.requests = count;
+            stats.errors = errors;
+            stats.throughput = count / elapsedSec;
+            stats.p50Ms = percentile(sorted, 0.50);
+            stats.p90Ms = percentile(sorted, 0.90);
+            stats.p99Ms = percentile(sorted, 0.99);
+            stats.p999Ms = percentile(sorted, 0.999);
+            stats.maxMs = sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1000.0;
+            stats.statuses = new TreeMap<>(statuses);
+            return stats;
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int idx = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(idx, sorted.length - 1))] / 1000.0;
+        }
+    }
+
+    static final class Stats {
+        long requests;
+        long errors;
+        double throughput;
+        double p50Ms;
+        double p90Ms;
+        double p99Ms;
+        double p999Ms;
+        double maxMs;
+        Map<Integer, Long> statuses;
+
+        void appendJson(StringBuilder sb) {
+            sb.append("\"requests\":").append(requests).append(',');
+            sb.append("\"errors\":").append(errors).append(',');
+            sb.append("\"throughput\":").append(String.format(Locale.ROOT, "%.1f", throughput)).append(',');
+            sb.append("\"p50Ms\":").append(String.format(Locale.ROOT, "%.3f", p50Ms)).append(',');
+            sb.append("\"p90Ms\":").append(String.format(Locale.ROOT, "%.3f", p90Ms)).append(',');
+            sb.append("\"p99Ms\":").append(String.format(Locale.ROOT, "%.3f", p99Ms)).append(',');
+            sb.append("\"p999Ms\":").append(String.format(Locale.ROOT, "%.3f", p999Ms)).append(',');
+            sb.append("\"maxMs\":").append(String.format(Locale.ROOT, "%.3f", maxMs)).append(',');
+            sb.append("\"statuses\":{");
+            StringJoiner joiner = new StringJoiner(",");
+            statuses.forEach((status, count) -> joiner.add("\"" + status + "\":" + count));
+            sb.append(joiner).append('}');
+        }
+    }
+
+    static final class Result {
+        String label;
+        int concurrency;
+        double durationSec;
+        Stats total;
+        Map<String, Stats> endpoints;
+
+        String toJson() {
+            StringBuilder sb = new StringBuilder();
+            sb.append('{');
+            sb.append("\"label\":\"").append(escape(label)).append("\",");
+            sb.append("\"concurrency\":").append(concurrency).append(',');
+            sb.append("\"durationSec\":").append(String.format(Locale.ROOT, "%.2f", durationSec)).append(',');
+            total.appendJson(sb);
+            sb.append(",\"endpoints\":{");
+            boolean first = true;
+            for (Map.Entry<String, Stats> entry : endpoints.entrySet()) {
+                if (!first) {
+                    sb.append(',');
+                }
+                first = false;
+                sb.append('"').append(escape(entry.getKey())).append("\":{");
+                entry.getValue().appendJson(sb);
+                sb.append('}');
+            }
+            sb.append("}}");
+            return sb.toString();
+        }
+
+        // 人看的版本打到 stderr，stdout 只有 JSON
+        void printTable() {
+            System.err.printf("%-24s %10s %10s %10s %10s %10s %8s%n",
+                    "endpoint", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms", "errors");
+            endpoints.forEach((name, stats) -> printRow(name, stats));
+            printRow("total", total);
+        }
+
+        private static void printRow(String name, Stats stats) {
+            System.err.printf("%-24s %10.1f %10.2f %10.2f %10.2f %10.2f %8d%n",
+                    name.length() > 24 ? name.substring(0, 24) : name,
+                    stats.throughput, stats.p50Ms, stats.p90Ms, stats.p99Ms, stats.maxMs, stats.errors);
+        }
+
+        private static String escape(String value) {
+            return value.replace("\\", "\\\\").replace("\"", "\\\"");
+        }
+    }
+}
@@ -0,0 +1,27 @@
+#!/usr/bin/env bash
+# 社区场景压测：对已经启动的服务混合请求 feed、评论、关注、登录、搜索，按接口输出吞吐和延迟分位。
+#
+# 先生成数据（见 SyntheticDataGenerator），USERS 要和生成时的 datagen.users 一致：
+#   java -jar target/pw-social-media-*.jar --spring.profiles.active=datagen --datagen.users=100000 --datagen.posts=500000
+#
+# 用法：USERS=100000 CONCURRENCY=200 DURATION=120 ./benchmarks/social-load.sh
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+BASE_URL=${BASE_URL:-http://localhost:8000}
+USERS=${USERS:-10000}
+SESSIONS=${SESSIONS:-200}
+CONCURRENCY=${CONCURRENCY:-200}
+DURATION=${DURATION:-60}
+WARMUP=${WARMUP:-15}
+MIX=${MIX:-feed=25,following=20,game=10,comments=15,comment=10,follow=5,login=5,search=10}
+LABEL=${LABEL:-social}
+RESULTS=benchmarks/results
+
+mkdir -p "$RESULTS"
+java benchmarks/load/LoadDriver.java \
+  --base-url "$BASE_URL" --label "$LABEL" --scenario social \
+  --users "$USERS" --sessions "$SESSIONS" --mix "$MIX" \
+  --concurrency "$CONCURRENCY" --duration "$DURATION" --warmup "$WARMUP" \
+  --out "$RESULTS/$LABEL.json" > /dev/null
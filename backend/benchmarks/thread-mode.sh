@@ -0,0 +1,65 @@
+#!/usr/bin/env bash
+# 同一份 jar 分别以平台线程和虚拟线程模式启动，用 load/LoadDriver.java 压同一组接口，对比吞吐和 p99。
+#
+# 需要：
+#   - JDK 21+（虚拟线程模式；JDK 17 下 spring.threads.virtual.enabled=true 不生效，两次结果会一样）
+#   - src/main/resources/application.properties 里配好的 MySQL，库里最好已有数据
+#   - TOKEN 环境变量：某个用户的 JWT，不设则只压不需要登录的接口
+#
+# 用法：CONCURRENCY=2000 DURATION=60 ./benchmarks/thread-mode.sh
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+CONCURRENCY=${CONCURRENCY:-2000}
+DURATION=${DURATION:-60}
+WARMUP=${WARMUP:-15}
+PORT=${PORT:-8000}
+GAME_TYPE=${GAME_TYPE:-VALORANT}
+QUERY=${QUERY:-rank}
+RESULTS=benchmarks/results
+
+./mvnw -q -B -DskipTests package
+JAR=$(ls target/pw-social-media-*.jar | grep -v '\.original$' | head -n 1)
+mkdir -p "$RESULTS"
+
+PATHS=(--path "/api/posts?limit=20"
+       --path "/api/posts/game/${GAME_TYPE}?limit=20"
+       --path "/api/search?q=${QUERY}")
+HEADERS=()
+if [[ -n "${TOKEN:-}" ]]; then
+  PATHS+=(--path "/api/posts/following?limit=20")
+  HEADERS=(--header "Authorization: Bearer ${TOKEN}")
+fi
+
+APP_PID=
+trap '[[ -n "$APP_PID" ]] && kill "$APP_PID" 2>/dev/null || true' EXIT
+
+for mode in platform virtual; do
+  virtual=false
+  [[ "$mode" == virtual ]] && virtual=true
+
+  java -jar "$JAR" --server.port="$PORT" --spring.threads.virtual.enabled="$virtual" \
+    > "$RESULTS/app-$mode.log" 2>&1 &
+  APP_PID=$!
+
+  for _ in $(seq 1 120); do
+    if curl -fs "http://localhost:$PORT/actuator/health" > /dev/null; then
+      break
+    fi
+    sleep 1
+  done
+
+  java benchmarks/load/LoadDriver.java \
+    --base-url "http://localhost:$PORT" --label "$mode" \
+    --concurrency "$CONCURRENCY" --duration "$DURATION" --warmup "$WARMUP" \
+    "${PATHS[@]}" "${HEADERS[@]}" \
+    --out "$RESULTS/thread-mode-$mode.json"
+
+  kill "$APP_PID"
+  wait "$APP_PID" || true
+  APP_PID=
+done
+
+java benchmarks/load/LoadDriver.java --compare \
+  "$RESULTS/thread-mode-platform.json" "$RESULTS/thread-mode-virtual.json"
@@ -0,0 +1,81 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.dto.CommentDto;
+import com.example.demo.model.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基准用的内存数据，字段长度按线上常见内容取的。
+ */
+final class BenchmarkData {
+
+    static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    private BenchmarkData() {
+    }
+
+    static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail("player" + id + "@example.com");
+        user.setName("Player " + id);
+        user.setAvatar("https://cdn.example.com/avatars/" + id + ".png");
+        user.setAvatarThumbnailUrl("https://cdn.example.com/avatars/" + id + "-thumb.webp");
+        user.setProvider("local");
+        return user;
+    }
+
+    static Post post(long id, int recentComments) {
+        GameRanking ranking = new GameRanking();
+        ranking.setId(7L);
+        ranking.setGameType(GameType.VALORANT);
+        ranking.setRankingName("Diamond");
+        ranking.setRankingScore(2100);
+        ranking.setRankingType(RankingType.TIER);
+
+        Post post = new Post();
+        post.setId(id);
+        post.setContent("Looking for a duo for ranked tonight, mostly play controller. " + id);
+        post.setImageUrl("https://cdn.example.com/posts/" + id + ".jpg");
+        post.setThumbnailUrl("https://cdn.example.com/posts/" + id + "-thumb.webp");
+        post.setFeedImageUrl("https://cdn.example.com/posts/" + id + "-feed.webp");
+        post.setUser(user(id % 100));
+        post.setCreatedAt(NOW.minusMinutes(id));
+        post.setUpdatedAt(NOW.minusMinutes(id));
+        post.setGameType(GameType.VALORANT);
+        post.setGameRanking(ranking);
+        post.setCommentCount(recentComments * 4);
+        post.setRecentComments(snapshots(id, recentComments));
+        return post;
+    }
+
+    static List<CommentSnapshot> snapshots(long postId, int count) {
+        List<CommentSnapshot> snapshots = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long id = postId * 100 + i;
+            snapshots.add(new CommentSnapshot(id, "gg, add me after the match " + id, NOW.minusSeconds(i),
+                    id % 100, "Player " + id % 100, "player" + id % 100 + "@example.com"));
+        }
+        return snapshots;
+    }
+
+    static CommentDto comment(long id, long postId, Long parentId) {
+        CommentDto.UserDto user = new CommentDto.UserDto();
+        user.setId(id % 100);
+        user.setName("Player " + id % 100);
+        user.setEmail("player" + id % 100 + "@example.com");
+
+        CommentDto dto = new CommentDto();
+        dto.setId(id);
+        dto.setContent("Same here, I can play sentinel if you need one. " + id);
+        dto.setCreatedAt("2024-03-01 12:00:00");
+        dto.setUpdatedAt("2024-03-01 12:00:00");
+        dto.setUser(user);
+        dto.setPostId(postId);
+        dto.setParentId(parentId);
+        return dto;
+    }
+}
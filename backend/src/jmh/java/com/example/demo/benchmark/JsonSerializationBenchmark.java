@@ -0,0 +1,68 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.config.JacksonConfig;
+import com.example.demo.dto.CommentDto;
+import com.example.demo.dto.PostDto;
+import com.example.demo.repository.PostFeedRow;
+import com.example.demo.service.PostFeedService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用应用实际配置的 ObjectMapper（{@link JacksonConfig}）序列化一页 PostDto / CommentDto。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+    private List<PostDto> postPage;
+    private List<CommentDto> commentPage;
+
+    @Setup
+    public void setup() {
+        objectMapper = new JacksonConfig().objectMapper();
+
+        List<PostFeedRow> rows = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            rows.add(PostFeedRow.of(BenchmarkData.post(i + 1, 3)));
+        }
+        postPage = new PostFeedService(null).toDtos(rows);
+
+        // 顶层评论各带 3 条回复预览，和 /api/comments/post/{postId} 的返回一样
+        commentPage = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            long id = (i + 1) * 10L;
+            CommentDto comment = BenchmarkData.comment(id, 1, null);
+            List<CommentDto> replies = new ArrayList<>();
+            for (int r = 1; r <= 3; r++) {
+                replies.add(BenchmarkData.comment(id + r, 1, id));
+            }
+            comment.setReplyCount(replies.size());
+            comment.setReplies(replies);
+            commentPage.add(comment);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializePostPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(postPage);
+    }
+
+    @Benchmark
+    public byte[] serializeCommentPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(commentPage);
+    }
+}
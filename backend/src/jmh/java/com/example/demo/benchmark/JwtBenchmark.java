@@ -0,0 +1,75 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.User;
+import com.example.demo.security.JwtTokenProvider;
+import com.example.demo.security.VerifiedToken;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtTokenProvider 的签发和校验。
+ * 校验分两种：命中已验签缓存（同一个 token 反复请求，常见情况）和未命中（每次都做 HMAC 校验和解析）。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    private static final int DISTINCT_TOKENS = 1024;
+
+    private JwtTokenProvider provider;
+    private JwtTokenProvider uncachedProvider;
+    private User user;
+    private String token;
+    private String[] tokens;
+    private int next;
+
+    @Setup
+    public void setup() {
+        provider = provider(10_000);
+        // 缓存只放一个，轮流校验不同的 token，每次都要重新验签
+        uncachedProvider = provider(1);
+        user = BenchmarkData.user(42);
+        token = provider.generateToken(user);
+        tokens = new String[DISTINCT_TOKENS];
+        for (int i = 0; i < DISTINCT_TOKENS; i++) {
+            tokens[i] = provider.generateToken(BenchmarkData.user(i));
+        }
+    }
+
+    @Benchmark
+    public String generate() {
+        return provider.generateToken(user);
+    }
+
+    @Benchmark
+    public Optional<VerifiedToken> verifyCached() {
+        return provider.verify(token);
+    }
+
+    @Benchmark
+    public Optional<VerifiedToken> verifyUncached() {
+        next = (next + 1) & (DISTINCT_TOKENS - 1);
+        return uncachedProvider.verify(tokens[next]);
+    }
+
+    @Benchmark
+    public Long parseUserId() {
+        return provider.getUserIdFromToken(token);
+    }
+
+    private static JwtTokenProvider provider(int cacheSize) {
+        JwtTokenProvider provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "jwtSecret", "benchmark-secret-benchmark-secret-benchmark-secret-0123456789");
+        ReflectionTestUtils.setField(provider, "jwtExpiration", 86_400_000L);
+        ReflectionTestUtils.setField(provider, "verifiedCacheSize", cacheSize);
+        ReflectionTestUtils.invokeMethod(provider, "init");
+        return provider;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.dto.PostDto;
+import com.example.demo.model.Post;
+import com.example.demo.repository.PostFeedRow;
+import com.example.demo.service.PostFeedService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 帖子转 PostDto：单条（PostController.convertToDto，创建帖子后返回用）和整页（feed 接口）。
+ * 评论来自帖子上的快照，最多 {@code CommentService.RECENT_COMMENT_LIMIT} 条，所以参数只到 3。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PostDtoBenchmark {
+
+    @Param({"0", "1", "3"})
+    public int recentComments;
+
+    @Param({"20"})
+    public int pageSize;
+
+    private PostFeedService postFeedService;
+    private Post post;
+    private List<PostFeedRow> page;
+
+    @Setup
+    public void setup() {
+        // 每行都带快照时不会查库，不需要 CommentRepository
+        postFeedService = new PostFeedService(null);
+        post = BenchmarkData.post(1, recentComments);
+        page = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            page.add(PostFeedRow.of(BenchmarkData.post(i + 1, recentComments)));
+        }
+    }
+
+    @Benchmark
+    public PostDto convertSinglePost() {
+        return postFeedService.toDto(PostFeedRow.of(post), post.getRecentComments());
+    }
+
+    @Benchmark
+    public List<PostDto> convertPage() {
+        return postFeedService.toDtos(page);
+    }
+}
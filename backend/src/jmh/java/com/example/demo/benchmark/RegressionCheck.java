@@ -0,0 +1,85 @@
+package com.example.demo.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * 把这次的 JMH 结果（-rf json）和基线对比，任一基准变慢超过阈值就以非 0 退出，让构建失败。
+ *
+ * 参数：基线文件、本次结果文件、允许的最大退化比例（0.10 = 10%）。
+ * 基线不存在时只打印结果、不做检查。基线要在和部署环境相同规格的机器上跑出来，
+ * 把那次的 target/jmh-result.json 复制成 benchmarks/jmh-baseline.json。
+ *
+ * 为了不被噪声误报，用本次得分减去误差（吞吐模式是加上误差）之后再和基线比。
+ */
+public final class RegressionCheck {
+
+    private RegressionCheck() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        File baselineFile = new File(args[0]);
+        File resultFile = new File(args[1]);
+        double maxRegression = Double.parseDouble(args[2]);
+
+        ObjectMapper mapper = new ObjectMapper();
+        Map<String, JsonNode> current = index(mapper.readTree(resultFile));
+        if (!baselineFile.isFile()) {
+            System.out.println("No JMH baseline at " + baselineFile + ", skipping regression check");
+            return;
+        }
+        Map<String, JsonNode> baseline = index(mapper.readTree(baselineFile));
+
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("NEW   %s%n", entry.getKey());
+                continue;
+            }
+            JsonNode now = entry.getValue();
+            double base = before.path("primaryMetric").path("score").asDouble();
+            double score = now.path("primaryMetric").path("score").asDouble();
+            double error = finite(now.path("primaryMetric").path("scoreError").asDouble());
+            String unit = now.path("primaryMetric").path("scoreUnit").asText();
+
+            // thrpt 越大越好，其他模式（avgt / sample / ss）是耗时，越小越好
+            boolean higherIsBetter = "thrpt".equals(now.path("mode").asText());
+            double change = higherIsBetter ? (base - (score + error)) / base : ((score - error) - base) / base;
+            boolean regressed = change > maxRegression;
+            System.out.printf("%-5s %s: %.3f -> %.3f %s (%+.1f%%)%n",
+                    regressed ? "SLOW" : "OK", entry.getKey(), base, score, unit,
+                    (higherIsBetter ? base - score : score - base) / base * 100);
+            if (regressed) {
+                regressions.add(entry.getKey());
+            }
+        }
+
+        if (!regressions.isEmpty()) {
+            System.err.printf("%d benchmark(s) regressed by more than %.0f%%: %s%n",
+                    regressions.size(), maxRegression * 100, regressions);
+            System.exit(1);
+        }
+    }
+
+    // key：基准方法名 + 排好序的参数，比如 PostDtoBenchmark.convertPage{pageSize=20, recentComments=3}
+    private static Map<String, JsonNode> index(JsonNode results) {
+        Map<String, JsonNode> byKey = new TreeMap<>();
+        for (JsonNode result : results) {
+            String name = result.path("benchmark").asText();
+            name = name.substring(name.lastIndexOf('.', name.lastIndexOf('.') - 1) + 1);
+            Map<String, String> params = new TreeMap<>();
+            result.path("params").fields().forEachRemaining(p -> params.put(p.getKey(), p.getValue().asText()));
+            byKey.put(params.isEmpty() ? name : name + params, result);
+        }
+        return byKey;
+    }
+
+    private static double finite(double value) {
+        return Double.isFinite(value) ? value : 0;
+    }
+}
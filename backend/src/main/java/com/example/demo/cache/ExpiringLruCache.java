@@ -0,0 +1,111 @@
+package com.example.demo.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 有容量上限的 LRU 缓存，每个条目带自己的过期时间。
+ * 读多写少、容量不大的进程内缓存用它就够了，不需要引入额外依赖。
+ */
+public class ExpiringLruCache<K, V> {
+
+    private final int capacity;
+    private final LongSupplier clock;
+    private final LinkedHashMap<K, Entry<V>> map;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ExpiringLruCache(int capacity) {
+        this(capacity, System::currentTimeMillis);
+    }
+
+    public ExpiringLruCache(int capacity, LongSupplier clock) {
+        this.capacity = capacity;
+        this.clock = clock;
+        this.map = new LinkedHashMap<>(Math.min(capacity, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > ExpiringLruCache.this.capacity) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 返回未过期的值，没有或已过期时返回 null。
+     */
+    public V get(K key) {
+        long now = clock.getAsLong();
+        synchronized (map) {
+            Entry<V> entry = map.get(key);
+            if (entry != null && entry.expiresAt > now) {
+                hits.incrementAndGet();
+                return entry.value;
+            }
+            if (entry != null) {
+                map.remove(key);
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(K key, V value, long expiresAtMillis) {
+        if (expiresAtMillis <= clock.getAsLong()) {
+            return;
+        }
+        synchronized (map) {
+            map.put(key, new Entry<>(value, expiresAtMillis));
+        }
+    }
+
+    public void putWithTtl(K key, V value, long ttlMillis) {
+        put(key, value, clock.getAsLong() + ttlMillis);
+    }
+
+    public void invalidate(K key) {
+        synchronized (map) {
+            map.remove(key);
+        }
+    }
+
+    public void clear() {
+        synchronized (map) {
+            map.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (map) {
+            return map.size();
+        }
+    }
+
+    public long hitCount() {
+        return hits.get();
+    }
+
+    public long missCount() {
+        return misses.get();
+    }
+
+    public long evictionCount() {
+        return evictions.get();
+    }
+
+    public double hitRatio() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.demo.cache;
+
+import com.example.demo.repository.UserFollowRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.example.demo.cache.TransactionCallbacks.afterCommit;
+
+/**
+ * 关注关系的进程内索引，双向邻接表都用 {@link LongHashSet}。
+ *
+ * 启动时从 user_followers 分批加载，关注 / 取关在事务提交后同步更新。
+ * 是否关注、关注数、粉丝数、id 列表都直接在内存里回答，不再查表。
+ * 只对本进程内发生的变更负责，多实例部署时需要重启或外部通知才能同步。
+ */
+@Component
+@RequiredArgsConstructor
+public class FollowGraph {
+
+    private static final int LOAD_BATCH_SIZE = 10_000;
+    private static final long[] NONE = new long[0];
+
+    private final UserFollowRepository userFollowRepository;
+    private final MeterRegistry meterRegistry;
+
+    // follower -> 他关注的人；followee -> 他的粉丝
+    private final LongObjectHashMap<LongHashSet> following = new LongObjectHashMap<>();
+    private final LongObjectHashMap<LongHashSet> followers = new LongObjectHashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private long edgeCount;
+
+    @PostConstruct
+    void init() {
+        load();
+
+        Gauge.builder("follow.graph.edges", this, FollowGraph::edgeCount)
+                .description("Follow relationships held in memory")
+                .register(meterRegistry);
+        Gauge.builder("follow.graph.users", this, FollowGraph::userCount)
+                .description("Users with at least one follow relationship")
+                .register(meterRegistry);
+        Gauge.builder("follow.graph.memory", this, FollowGraph::estimatedBytes)
+                .baseUnit("bytes")
+                .description("Estimated heap used by the follow graph")
+                .register(meterRegistry);
+    }
+
+    // 按主键 keyset 分批读，不一次性把整张表读进结果集
+    private void load() {
+        long afterId = 0;
+        while (true) {
+            List<Object[]> batch = userFollowRepository.findEdgesAfter(afterId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            if (batch.isEmpty()) {
+                break;
+            }
+            lock.writeLock().lock();
+            try {
+                for (Object[] row : batch) {
+                    addEdge(((Number) row[1]).longValue(), ((Number) row[2]).longValue());
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            afterId = ((Number) batch.get(batch.size() - 1)[0]).longValue();
+        }
+    }
+
+    public boolean isFollowing(long followerId, long followingId) {
+        lock.readLock().lock();
+        try {
+            LongHashSet set = following.get(followerId);
+            return set != null && set.contains(followingId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int followingCount(long userId) {
+        return sizeOf(following, userId);
+    }
+
+    public int followerCount(long userId) {
+        return sizeOf(followers, userId);
+    }
+
+    public long[] followingIds(long userId) {
+        return idsOf(following, userId);
+    }
+
+    public long[] followerIds(long userId) {
+        return idsOf(followers, userId);
+    }
+
+    /**
+     * 关注成功后调用。在事务里调用时等提交后才生效。
+     */
+    public void onFollow(long followerId, long followingId) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                addEdge(followerId, followingId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void onUnfollow(long followerId, long followingId) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                removeEdge(followerId, followingId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    // 删除用户时数据库级联删掉了他的关注关系，这里同步去掉两个方向的边
+    public void onUserDeleted(long userId) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                for (long followee : idsOf(following, userId)) {
+                    removeEdge(userId, followee);
+                }
+                for (long follower : idsOf(followers, userId)) {
+                    removeEdge(follower, userId);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public long edgeCount() {
+        lock.readLock().lock();
+        try {
+            return edgeCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int userCount() {
+        lock.readLock().lock();
+        try {
+            return Math.max(following.size(), followers.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long estimatedBytes() {
+        lock.readLock().lock();
+        try {
+            long[] total = {following.estimatedBytes() + followers.estimatedBytes()};
+            following.forEachValue(set -> total[0] += set.estimatedBytes());
+            followers.forEachValue(set -> total[0] += set.estimatedBytes());
+            return total[0];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addEdge(long followerId, long followingId) {
+        if (adjacency(following, followerId).add(followingId)) {
+            adjacency(followers, followingId).add(followerId);
+            edgeCount++;
+        }
+    }
+
+    private void removeEdge(long followerId, long followingId) {
+        if (removeFrom(following, followerId, followingId)) {
+            removeFrom(followers, followingId, followerId);
+            edgeCount--;
+        }
+    }
+
+    private static LongHashSet adjacency(LongObjectHashMap<LongHashSet> index, long userId) {
+        LongHashSet set = index.get(userId);
+        if (set == null) {
+            set = new LongHashSet();
+            index.put(userId, set);
+        }
+        return set;
+    }
+
+    // 集合空了就把整个条目去掉
+    private static boolean removeFrom(LongObjectHashMap<LongHashSet> index, long userId, long other) {
+        LongHashSet set = index.get(userId);
+        if (set == null || !set.remove(other)) {
+            return false;
+        }
+        if (set.isEmpty()) {
+            index.remove(userId);
+        }
+        return true;
+    }
+
+    private int sizeOf(LongObjectHashMap<LongHashSet> index, long userId) {
+        lock.readLock().lock();
+        try {
+            LongHashSet set = index.get(userId);
+            return set != null ? set.size() : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long[] idsOf(LongObjectHashMap<LongHashSet> index, long userId) {
+        lock.readLock().lock();
+        try {
+            LongHashSet set = index.get(userId);
+            return set != null ? set.toArray() : NONE;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.demo.cache;
+
+import java.util.function.LongConsumer;
+
+/**
+ * long 的开放寻址哈希集合（线性探测），不装箱。
+ *
+ * 每个元素只占 8 字节，{@code HashSet<Long>} 每个元素要 50 字节左右。
+ * 0 用作空槽标记，不能作为元素；用户 id 都是正数。非线程安全，由调用方加锁。
+ */
+public final class LongHashSet {
+
+    private static final long EMPTY = 0L;
+    private static final int MIN_CAPACITY = 4;
+
+    private long[] keys;
+    private int size;
+    private int resizeAt;
+
+    public LongHashSet() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongHashSet(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    public boolean add(long key) {
+        checkKey(key);
+        if (size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        size++;
+        return true;
+    }
+
+    public boolean contains(long key) {
+        if (key == EMPTY) {
+            return false;
+        }
+        return indexOf(key) >= 0;
+    }
+
+    public boolean remove(long key) {
+        if (key == EMPTY) {
+            return false;
+        }
+        int i = indexOf(key);
+        if (i < 0) {
+            return false;
+        }
+        shiftBack(i);
+        size--;
+        // 大量取关后缩容，避免稀疏的大数组长期占内存
+        if (keys.length > MIN_CAPACITY && size < keys.length >> 3) {
+            rehash(capacityFor(size));
+        }
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void forEach(LongConsumer action) {
+        for (long key : keys) {
+            if (key != EMPTY) {
+                action.accept(key);
+            }
+        }
+    }
+
+    public long[] toArray() {
+        long[] result = new long[size];
+        int n = 0;
+        for (long key : keys) {
+            if (key != EMPTY) {
+                result[n++] = key;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 估算占用的堆内存（对象头 + 字段 + 数组）。
+     */
+    public long estimatedBytes() {
+        return 32 + 16 + 8L * keys.length;
+    }
+
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    // 线性探测的删除：把后面同一探测链上的元素往前挪，不用墓碑
+    private void shiftBack(int gap) {
+        int mask = keys.length - 1;
+        int j = (gap + 1) & mask;
+        while (keys[j] != EMPTY) {
+            int ideal = mix(keys[j]) & mask;
+            if (((j - ideal) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                gap = j;
+            }
+            j = (j + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = keys;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (long key : old) {
+            if (key != EMPTY) {
+                int i = mix(key) & mask;
+                while (keys[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = key;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        resizeAt = capacity - (capacity >> 2);
+    }
+
+    // 装载因子 0.75，容量取 2 的幂
+    static int capacityFor(int expectedSize) {
+        int needed = Math.max(MIN_CAPACITY, (int) Math.ceil(expectedSize / 0.75) + 1);
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static void checkKey(long key) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("0 cannot be stored in LongHashSet");
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.demo.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * long 键的开放寻址哈希表，键不装箱。探测和删除方式与 {@link LongHashSet} 相同，
+ * 0 不能作为键。非线程安全，由调用方加锁。
+ */
+public final class LongObjectHashMap<V> {
+
+    private static final long EMPTY = 0L;
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+    private int resizeAt;
+
+    public LongObjectHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongObjectHashMap(int expectedSize) {
+        allocate(Math.max(MIN_CAPACITY, LongHashSet.capacityFor(expectedSize)));
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int i = key == EMPTY ? -1 : indexOf(key);
+        return i >= 0 ? (V) values[i] : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("0 cannot be used as a LongObjectHashMap key");
+        }
+        if (size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+        int mask = keys.length - 1;
+        int i = LongHashSet.mix(key) & mask;
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                V previous = (V) values[i];
+                values[i] = value;
+                return previous;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int i = key == EMPTY ? -1 : indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        V previous = (V) values[i];
+        shiftBack(i);
+        size--;
+        return previous;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<V> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                action.accept((V) values[i]);
+            }
+        }
+    }
+
+    /**
+     * 估算表本身占用的堆内存，不含 value 对象。
+     */
+    public long estimatedBytes() {
+        // long[] + 压缩指针的 Object[]
+        return 32 + 16 + 8L * keys.length + 16 + 4L * values.length;
+    }
+
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        int i = LongHashSet.mix(key) & mask;
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void shiftBack(int gap) {
+        int mask = keys.length - 1;
+        int j = (gap + 1) & mask;
+        while (keys[j] != EMPTY) {
+            int ideal = LongHashSet.mix(keys[j]) & mask;
+            if (((j - ideal) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+            j = (j + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        values[gap] = null;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int k = 0; k < oldKeys.length; k++) {
+            if (oldKeys[k] != EMPTY) {
+                int i = LongHashSet.mix(oldKeys[k]) & mask;
+                while (keys[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[k];
+                values[i] = oldValues[k];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        resizeAt = capacity - (capacity >> 2);
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.demo.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 排行榜用的跳表，每层指针带 span（跨过的节点数），按名次定位和求名次都是 O(log n)。
+ *
+ * 排序：分数高的在前，同分按 userId 小的在前。名次从 1 开始。
+ * 结构和 Redis 的 zset 跳表一致；另有 userId -> 节点的索引，更新和删除不用先按分数找。
+ * 读写用读写锁保护，可以多线程直接使用。
+ */
+public final class RankedSkipList {
+
+    private static final int MAX_LEVEL = 32;
+
+    public record Entry(long userId, long score, long rank) {
+    }
+
+    private static final class Node {
+        final long userId;
+        final long score;
+        final Node[] forward;
+        final long[] span;
+
+        Node(long userId, long score, int level) {
+            this.userId = userId;
+            this.score = score;
+            this.forward = new Node[level];
+            this.span = new long[level];
+        }
+    }
+
+    private final Node header = new Node(0, 0, MAX_LEVEL);
+    private final LongObjectHashMap<Node> byUser = new LongObjectHashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private int level = 1;
+    private long length;
+
+    /**
+     * 设置用户分数；分数没变时什么也不做。
+     */
+    public void put(long userId, long score) {
+        lock.writeLock().lock();
+        try {
+            Node existing = byUser.get(userId);
+            if (existing != null) {
+                if (existing.score == score) {
+                    return;
+                }
+                delete(existing.userId, existing.score);
+            }
+            byUser.put(userId, insert(userId, score));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(long userId) {
+        lock.writeLock().lock();
+        try {
+            Node existing = byUser.remove(userId);
+            if (existing == null) {
+                return false;
+            }
+            delete(existing.userId, existing.score);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return length;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 用户的名次和分数，不在榜上时返回 null。
+     */
+    public Entry find(long userId) {
+        lock.readLock().lock();
+        try {
+            Node node = byUser.get(userId);
+            if (node == null) {
+                return null;
+            }
+            return new Entry(userId, node.score, rankOf(node.userId, node.score));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 从名次 fromRank（含）开始往后取最多 count 条。
+     */
+    public List<Entry> range(long fromRank, int count) {
+        lock.readLock().lock();
+        try {
+            List<Entry> result = new ArrayList<>(Math.max(0, Math.min(count, 128)));
+            long rank = Math.max(1, fromRank);
+            if (count <= 0 || rank > length) {
+                return result;
+            }
+            Node node = nodeAt(rank);
+            while (node != null && result.size() < count) {
+                result.add(new Entry(node.userId, node.score, rank++));
+                node = node.forward[0];
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // a 是否排在 (score, userId) 前面
+    private static boolean before(Node a, long score, long userId) {
+        return a.score > score || (a.score == score && a.userId < userId);
+    }
+
+    private static int randomLevel() {
+        int lvl = 1;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (lvl < MAX_LEVEL && random.nextInt(4) == 0) {
+            lvl++;
+        }
+        return lvl;
+    }
+
+    private Node insert(long userId, long score) {
+        Node[] update = new Node[MAX_LEVEL];
+        long[] rank = new long[MAX_LEVEL];
+        Node x = header;
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = i == level - 1 ? 0 : rank[i + 1];
+            while (x.forward[i] != null && before(x.forward[i], score, userId)) {
+                rank[i] += x.span[i];
+                x = x.forward[i];
+            }
+            update[i] = x;
+        }
+
+        int lvl = randomLevel();
+        if (lvl > level) {
+            for (int i = level; i < lvl; i++) {
+                rank[i] = 0;
+                update[i] = header;
+                update[i].span[i] = length;
+            }
+            level = lvl;
+        }
+
+        x = new Node(userId, score, lvl);
+        for (int i = 0; i < lvl; i++) {
+            x.forward[i] = update[i].forward[i];
+            update[i].forward[i] = x;
+            x.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = (rank[0] - rank[i]) + 1;
+        }
+        // 更高层没有指向新节点，但跨过了它
+        for (int i = lvl; i < level; i++) {
+            update[i].span[i]++;
+        }
+        length++;
+        return x;
+    }
+
+    private void delete(long userId, long score) {
+        Node[] update = new Node[MAX_LEVEL];
+        Node x = header;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.forward[i] != null && before(x.forward[i], score, userId)) {
+                x = x.forward[i];
+            }
+            update[i] = x;
+        }
+        x = x.forward[0];
+        if (x == null || x.userId != userId || x.score != score) {
+            return;
+        }
+
+        for (int i = 0; i < level; i++) {
+            if (update[i].forward[i] == x) {
+                update[i].span[i] += x.span[i] - 1;
+                update[i].forward[i] = x.forward[i];
+            } else {
+                update[i].span[i] -= 1;
+            }
+        }
+        while (level > 1 && header.forward[level - 1] == null) {
+            level--;
+        }
+        length--;
+    }
+
+    private long rankOf(long userId, long score) {
+        long rank = 0;
+        Node x = header;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.forward[i] != null
+                    && (before(x.forward[i], score, userId)
+                    || (x.forward[i].score == score && x.forward[i].userId == userId))) {
+                rank += x.span[i];
+                x = x.forward[i];
+            }
+            if (x != header && x.userId == userId) {
+                return rank;
+            }
+        }
+        return 0;
+    }
+
+    private Node nodeAt(long rank) {
+        long traversed = 0;
+        Node x = header;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.forward[i] != null && traversed + x.span[i] <= rank) {
+                traversed += x.span[i];
+                x = x.forward[i];
+            }
+            if (traversed == rank) {
+                return x;
+            }
+        }
+        return null;
+    }
+}
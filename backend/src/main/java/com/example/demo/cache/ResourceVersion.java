@@ -0,0 +1,34 @@
+package com.example.demo.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 一个资源的版本号，用来生成 ETag，不需要对响应体做哈希。
+ *
+ * ETag 里带上进程启动时间，重启后计数从头开始也不会和旧 ETag 撞上。
+ * 必须在数据提交之后再 {@link #bump()}，否则可能把旧数据和新版本号一起发给客户端。
+ * 不提供 Last-Modified：HTTP 日期只精确到秒，同一秒内的两次写入会让只带 If-Modified-Since 的客户端拿到错误的 304。
+ */
+public final class ResourceVersion {
+
+    private static final String BOOT_ID = Long.toString(System.currentTimeMillis(), 36);
+
+    private final String name;
+    private final AtomicLong version = new AtomicLong();
+
+    public ResourceVersion(String name) {
+        this.name = name;
+    }
+
+    public void bump() {
+        version.incrementAndGet();
+    }
+
+    public long version() {
+        return version.get();
+    }
+
+    public String etag() {
+        return "W/\"" + name + "-" + BOOT_ID + "-" + version.get() + "\"";
+    }
+}
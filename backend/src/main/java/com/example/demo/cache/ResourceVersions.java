@@ -0,0 +1,60 @@
+package com.example.demo.cache;
+
+import com.example.demo.model.GameType;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 条件 GET 用到的各个资源版本号。写路径要在事务提交之后再调用这里的方法
+ * （通常放在 {@link TransactionCallbacks#afterCommit} 的回调里）。
+ */
+@Component
+public class ResourceVersions {
+
+    private final ResourceVersion allPosts = new ResourceVersion("posts");
+    private final Map<GameType, ResourceVersion> gamePosts = new EnumMap<>(GameType.class);
+    private final Map<GameType, ResourceVersion> leaderboards = new EnumMap<>(GameType.class);
+    // 段位表目前只有种子数据，没有写接口，版本只随重启变化
+    private final ResourceVersion rankings = new ResourceVersion("rankings");
+
+    public ResourceVersions() {
+        for (GameType gameType : GameType.values()) {
+            gamePosts.put(gameType, new ResourceVersion("posts-" + gameType.name().toLowerCase()));
+            leaderboards.put(gameType, new ResourceVersion("leaderboard-" + gameType.name().toLowerCase()));
+        }
+    }
+
+    public ResourceVersion allPosts() {
+        return allPosts;
+    }
+
+    public ResourceVersion gamePosts(GameType gameType) {
+        return gamePosts.get(gameType);
+    }
+
+    public ResourceVersion leaderboard(GameType gameType) {
+        return leaderboards.get(gameType);
+    }
+
+    public ResourceVersion rankings() {
+        return rankings;
+    }
+
+    // 某个 GameType 下的帖子变了：全站 feed 和该游戏的 feed 都要变
+    public void postsChanged(GameType gameType) {
+        gamePosts.get(gameType).bump();
+        allPosts.bump();
+    }
+
+    // 作者资料变化等影响所有 feed 的情况
+    public void allPostsChanged() {
+        gamePosts.values().forEach(ResourceVersion::bump);
+        allPosts.bump();
+    }
+
+    public void leaderboardChanged(GameType gameType) {
+        leaderboards.get(gameType).bump();
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.demo.cache;
+
+import com.example.demo.model.User;
+import com.example.demo.repository.UserRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 当前登录用户的进程内缓存，按 id 和 email 两个维度查找。
+ *
+ * 每个请求都会经过 JwtAuthenticationFilter（按 email）和 AuthService.getCurrentUser（按 id），
+ * 之前是两次数据库查询。缓存有容量上限和 TTL，用户资料变化时调用 {@link #invalidate(User)}。
+ * 返回的都是副本，调用方修改不会污染缓存。
+ */
+@Component
+@RequiredArgsConstructor
+public class UserPrincipalCache {
+
+    private final UserRepository userRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${user-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${user-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    private ExpiringLruCache<Long, User> byId;
+    private ExpiringLruCache<String, Long> idByEmail;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        byId = new ExpiringLruCache<>(maxSize);
+        idByEmail = new ExpiringLruCache<>(maxSize);
+
+        FunctionCounter.builder("user.principal.cache.hits", this, UserPrincipalCache::hitCount)
+                .description("Current-user lookups served from memory")
+                .register(meterRegistry);
+        FunctionCounter.builder("user.principal.cache.misses", this, UserPrincipalCache::missCount)
+                .description("Current-user lookups that went to the database")
+                .register(meterRegistry);
+        Gauge.builder("user.principal.cache.size", byId, ExpiringLruCache::size)
+                .register(meterRegistry);
+    }
+
+    public Optional<User> findById(Long id) {
+        User cached = byId.get(id);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return Optional.of(copyOf(cached));
+        }
+        misses.incrementAndGet();
+        // 已提交删除的用户当作不存在，token 和登录立刻失效
+        Optional<User> loaded = userRepository.findById(id).filter(u -> u.getDeletedAt() == null);
+        loaded.ifPresent(this::put);
+        return loaded;
+    }
+
+    public Optional<User> findByEmail(String email) {
+        Long id = idByEmail.get(email);
+        if (id != null) {
+            User cached = byId.get(id);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return Optional.of(copyOf(cached));
+            }
+        }
+        misses.incrementAndGet();
+        Optional<User> loaded = userRepository.findByEmail(email).filter(u -> u.getDeletedAt() == null);
+        loaded.ifPresent(this::put);
+        return loaded;
+    }
+
+    // 头像 / 资料 / 登录信息变化后调用
+    public void invalidate(User user) {
+        if (user == null) {
+            return;
+        }
+        evict(user.getId());
+        if (user.getEmail() != null) {
+            idByEmail.invalidate(user.getEmail());
+        }
+    }
+
+    public void evict(Long userId) {
+        if (userId != null) {
+            byId.invalidate(userId);
+        }
+    }
+
+    public long hitCount() {
+        return hits.get();
+    }
+
+    public long missCount() {
+        return misses.get();
+    }
+
+    private void put(User user) {
+        long ttlMillis = ttlSeconds * 1000;
+        byId.putWithTtl(user.getId(), copyOf(user), ttlMillis);
+        idByEmail.putWithTtl(user.getEmail(), user.getId(), ttlMillis);
+    }
+
+    private static User copyOf(User source) {
+        User copy = new User();
+        copy.setId(source.getId());
+        copy.setEmail(source.getEmail());
+        copy.setPassword(source.getPassword());
+        copy.setName(source.getName());
+        copy.setAvatar(source.getAvatar());
+        copy.setAvatarThumbnailUrl(source.getAvatarThumbnailUrl());
+        copy.setFollowerCount(source.getFollowerCount());
+        copy.setFollowingCount(source.getFollowingCount());
+        copy.setProvider(source.getProvider());
+        copy.setProviderId(source.getProviderId());
+        copy.setIsAdmin(source.getIsAdmin());
+        return copy;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.demo.config;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 应用自己起的线程统一从这里拿，跟 spring.threads.virtual.enabled 用同一个开关。
+ *
+ * 开关打开时 Spring Boot 会让 Tomcat 请求线程和 @Scheduled 任务跑在虚拟线程上，
+ * 这里让衍生图、SSE 推送等后台任务也用虚拟线程；开关关闭时仍是普通的守护线程。
+ *
+ * 虚拟线程要求运行在 JDK 21+。Spring Boot 在更低版本上会静默忽略这个开关，请求线程没有切换、
+ * 并发上限（RequestConcurrencyLimiter）也不会生效，所以这里直接启动失败，不让开关悄悄失效。
+ */
+@Component
+public class AppThreads {
+
+    private final boolean virtual;
+
+    public AppThreads(Environment environment) {
+        this.virtual = Threading.VIRTUAL.isActive(environment);
+        if (!virtual && environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)) {
+            throw new IllegalStateException("spring.threads.virtual.enabled=true requires JDK 21 or later, but running on "
+                    + Runtime.version() + "; upgrade the JDK or turn the property off");
+        }
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * 给固定大小的线程池用的线程工厂；虚拟线程模式下池子的并发上限不变，只是线程本身变成虚拟线程。
+     */
+    public ThreadFactory threadFactory(String namePrefix) {
+        if (virtual) {
+            return new VirtualThreadTaskExecutor(namePrefix).getVirtualThreadFactory();
+        }
+        AtomicInteger threadIndex = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, namePrefix + threadIndex.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * 每个任务一个虚拟线程，不设上限；只在 {@link #isVirtual()} 为 true 时可用。
+     */
+    public Executor perTaskExecutor(String namePrefix) {
+        if (!virtual) {
+            throw new IllegalStateException("Virtual threads are not enabled");
+        }
+        return new VirtualThreadTaskExecutor(namePrefix);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.demo.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// 后台定时任务（计数修复等）
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
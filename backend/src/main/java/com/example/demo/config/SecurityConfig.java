@@ -2,6 +2,8 @@ package com.example.demo.config;
 
 import com.example.demo.security.JwtAuthenticationFilter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -18,12 +20,14 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.Customizer;
 
 import java.util.List;
 
 @Configuration
 @EnableWebSecurity
+@EnableMethodSecurity
 @RequiredArgsConstructor
 public class SecurityConfig {
 
@@ -43,11 +47,17 @@ public class SecurityConfig {
         http
                 .cors(Customizer.withDefaults())
                 .csrf(csrf -> csrf.disable())
+                // 在鉴权之前解析 JWT，下面的角色判断才看得到当前用户
+                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
                 .authorizeHttpRequests(auth -> auth
+                        // 管理后台只给管理员；其余接口暂时仍由各 controller 自己校验 token
+                        .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                        // 监控端点里有各接口的 SQL 和耗时，还能清零统计，除了 health 都只给管理员
+                        .requestMatchers(EndpointRequest.to(HealthEndpoint.class)).permitAll()
+                        .requestMatchers(EndpointRequest.toAnyEndpoint()).hasRole("ADMIN")
                         .anyRequest().permitAll()
                 );
 
-        // 暂时不要 JWT
         return http.build();
     }
 
@@ -64,11 +74,15 @@ public class SecurityConfig {
                 "Authorization",
                 "Access-Control-Allow-Origin",
                 "Access-Control-Request-Method",
-                "Access-Control-Request-Headers"
+                "Access-Control-Request-Headers",
+                "If-None-Match",
+                "If-Modified-Since"
         ));
         configuration.setExposedHeaders(List.of(
                 "Access-Control-Allow-Origin",
-                "Access-Control-Allow-Credentials"
+                "Access-Control-Allow-Credentials",
+                "X-Next-Cursor",
+                "ETag"
         ));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
@@ -1,56 +1,93 @@
-package com.example.pwsocialmedia.controller;
+package com.example.demo.controller;
 
-import com.example.demo.model.Post;
-import com.example.demo.model.User;
-import com.example.demo.repository.PostRepository;
-import com.example.demo.repository.UserRepository;
+import com.example.demo.model.DeletionJob;
+import com.example.demo.model.GameType;
+import com.example.demo.service.AdminExportService;
 import com.example.demo.service.AuthService;
+import com.example.demo.service.DeletionJobService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 
 @RestController
+@Validated
 @RequestMapping("/api/admin")
 @PreAuthorize("hasRole('ADMIN')") // Ensure only admins can access these
 public class AdminController {
 
     @Autowired
-    private UserRepository userRepository;
+    private AuthService userService;
 
     @Autowired
-    private PostRepository postRepository;
+    private AdminExportService adminExportService;
 
     @Autowired
-    private AuthService userService;
+    private DeletionJobService deletionJobService;
 
-    // Get all users
-    @GetMapping("/users")
-    public ResponseEntity<List<User>> getAllUsers() {
-        return ResponseEntity.ok(userRepository.findAll());
+    // Get all users, streamed as NDJSON
+    @GetMapping(value = "/users", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void getAllUsers(@RequestParam(required = false) String q,
+                            @RequestParam(required = false) Boolean admin,
+                            @RequestParam(required = false) String provider,
+                            @RequestParam(required = false) Long afterId,
+                            @RequestParam(required = false) @Positive Integer limit,
+                            HttpServletResponse response) throws IOException {
+        startExport(response, "users");
+        adminExportService.exportUsers(new AdminExportService.UserFilter(q, admin, provider, afterId, limit),
+                response.getOutputStream());
     }
 
-    // Delete a user
+    // Delete a user: hidden immediately, related data removed in the background
     @DeleteMapping("/users/{id}")
-    public ResponseEntity<?> deleteUser(@PathVariable Long id) {
-        userRepository.deleteById(id);
-        return ResponseEntity.ok().body("User deleted");
+    public ResponseEntity<DeletionJob> deleteUser(@PathVariable Long id) {
+        return ResponseEntity.accepted().body(deletionJobService.deleteUser(id));
     }
 
-    // Get all posts
-    @GetMapping("/posts")
-    public ResponseEntity<List<Post>> getAllPosts() {
-        return ResponseEntity.ok(postRepository.findAll());
+    // Get all posts (without comments), streamed as NDJSON
+    @GetMapping(value = "/posts", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void getAllPosts(@RequestParam(required = false) Long userId,
+                            @RequestParam(required = false) GameType gameType,
+                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                            @RequestParam(required = false) Long afterId,
+                            @RequestParam(required = false) @Positive Integer limit,
+                            HttpServletResponse response) throws IOException {
+        startExport(response, "posts");
+        adminExportService.exportPosts(new AdminExportService.PostFilter(userId, gameType, from, to, afterId, limit),
+                response.getOutputStream());
     }
 
-    // Delete a post
+    // Delete a post: hidden immediately, comments removed in the background
     @DeleteMapping("/posts/{id}")
-    public ResponseEntity<?> deletePost(@PathVariable Long id) {
-        postRepository.deleteById(id);
-        return ResponseEntity.ok().body("Post deleted");
+    public ResponseEntity<DeletionJob> deletePost(@PathVariable Long id) {
+        return ResponseEntity.accepted().body(deletionJobService.deletePost(id));
+    }
+
+    // Progress of a background deletion
+    @GetMapping("/deletions/{id}")
+    public ResponseEntity<DeletionJob> getDeletion(@PathVariable Long id) {
+        return deletionJobService.findJob(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // 同步写响应，不走 StreamingResponseBody：大导出会超过异步请求的超时时间
+    private void startExport(HttpServletResponse response, String name) {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + name + ".ndjson\"");
     }
 
 }
@@ -14,12 +14,14 @@ import com.google.api.client.http.javanet.NetHttpTransport;
 import com.google.api.client.json.gson.GsonFactory;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Collections;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/auth")
 @CrossOrigin(origins = "http://localhost:5173")
@@ -34,14 +36,14 @@ public class AuthController {
 
     @PostMapping("/signup")
     public ResponseEntity<AuthResponse> signup(@RequestBody SignupRequest request) {
-        System.out.println("Signup request: " + request);
+        log.debug("Signup request for {}", request.getEmail());
         return ResponseEntity.ok(authService.signup(request));
     }
 
     @PostMapping("/login")
     @CrossOrigin(origins = "http://localhost:5173")
     public ResponseEntity<AuthResponse> login(@RequestBody LoginRequest request) {
-        System.out.println("login request: " + request);
+        log.debug("Login request for {}", request.getEmail());
         return ResponseEntity.ok(authService.login(request));
     }
 
@@ -64,7 +66,7 @@ public class AuthController {
             String name = (String) payload.get("name"); // 正确获取用户名
             String pictureUrl = (String) payload.get("picture"); // 获取头像URL
             
-            System.out.println("Google user info: " + name + ", " + email + ", " + pictureUrl);
+            log.debug("Google login for {}", email);
             
             String token = oAuth2Service.processOAuthLogin(payload);
             
@@ -85,7 +87,7 @@ public class AuthController {
                 user.getIsAdmin() != null && user.getIsAdmin()
             ));
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Google login failed", e);
             return ResponseEntity.status(500).body("Authentication failed: " + e.getMessage());
         }
     }
@@ -2,15 +2,19 @@ package com.example.demo.controller;
 
 import com.example.demo.dto.CommentDto;
 import com.example.demo.dto.CommentRequest;
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.FeedCursor;
 import com.example.demo.model.User;
 import com.example.demo.service.AuthService;
 import com.example.demo.service.CommentService;
+import com.example.demo.service.PostService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import jakarta.validation.Valid;
-import java.util.ArrayList;
 import java.util.List;
 
 @RestController
@@ -32,16 +36,28 @@ public class CommentController {
         CommentDto comment = commentService.createComment(
                 request.getContent(),
                 request.getPostId(),
+                request.getParentId(),
                 currentUser
         );
 
         return ResponseEntity.ok(comment);
     }
     
+    // 顶层评论分页，下一页游标放在 X-Next-Cursor 响应头里（和帖子 feed 一致）
     @GetMapping("/post/{postId}")
-    public ResponseEntity<List<CommentDto>> getCommentsByPostId(@PathVariable Long postId) {
-        List<CommentDto> comments = commentService.getCommentsByPostId(postId);
-        return ResponseEntity.ok(comments);
+    public ResponseEntity<List<CommentDto>> getCommentsByPostId(
+            @PathVariable Long postId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + PostService.DEFAULT_PAGE_SIZE) int limit) {
+        return toPageResponse(commentService.getCommentsByPostId(postId, parseCursor(cursor), limit));
+    }
+
+    @GetMapping("/{commentId}/replies")
+    public ResponseEntity<List<CommentDto>> getReplies(
+            @PathVariable Long commentId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + PostService.DEFAULT_PAGE_SIZE) int limit) {
+        return toPageResponse(commentService.getReplies(commentId, parseCursor(cursor), limit));
     }
     
     @PutMapping("/{commentId}")
@@ -76,4 +92,20 @@ public class CommentController {
     public ResponseEntity<String> testEndpoint() {
         return ResponseEntity.ok("Comment API is working!");
     }
+
+    private FeedCursor parseCursor(String cursor) {
+        try {
+            return FeedCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    private ResponseEntity<List<CommentDto>> toPageResponse(CursorPage<CommentDto> page) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (page.hasNext()) {
+            builder.header(PostController.NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return builder.body(page.items());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.example.demo.controller;
+
+import com.example.demo.cache.ResourceVersion;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.function.Supplier;
+
+/**
+ * 条件 GET：先用版本号判断客户端手里的是不是最新的，是的话直接 304，
+ * 不执行查询也不组装 DTO。
+ *
+ * 只认 ETag（If-None-Match），不发 Last-Modified：秒级的时间戳分不清同一秒内的两次写入。
+ */
+final class ConditionalGet {
+
+    private ConditionalGet() {
+    }
+
+    static <T> ResponseEntity<T> respond(HttpHeaders requestHeaders, ResourceVersion version,
+                                         Supplier<ResponseEntity<T>> body) {
+        // 先取版本号再查数据：查询期间有写入时，ETag 只会比数据旧，下次请求照样返回 200
+        String etag = version.etag();
+        if (isNotModified(requestHeaders, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+
+        ResponseEntity<T> response = body.get();
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            return response;
+        }
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(response.getBody());
+    }
+
+    // ETag 直接由内容决定的资源（比如计数本身就是 ETag）
+    static <T> ResponseEntity<T> respond(HttpHeaders requestHeaders, String etag, Supplier<T> body) {
+        if (isNotModified(requestHeaders, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(body.get());
+    }
+
+    // If-None-Match 弱比较；只带 If-Modified-Since 的请求一律返回 200
+    private static boolean isNotModified(HttpHeaders requestHeaders, String etag) {
+        if (!requestHeaders.containsKey(HttpHeaders.IF_NONE_MATCH)) {
+            return false;
+        }
+        String opaque = stripWeak(etag);
+        try {
+            for (String candidate : requestHeaders.getIfNoneMatch()) {
+                if ("*".equals(candidate) || stripWeak(candidate).equals(opaque)) {
+                    return true;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // 格式不对的 If-None-Match 当作不匹配
+        }
+        return false;
+    }
+
+    private static String stripWeak(String tag) {
+        String trimmed = tag.trim();
+        return trimmed.startsWith("W/") ? trimmed.substring(2) : trimmed;
+    }
+}
@@ -1,9 +1,17 @@
 package com.example.demo.controller;
 
+import com.example.demo.cache.ResourceVersions;
+import com.example.demo.dto.LeaderboardEntryDto;
+import com.example.demo.dto.ScoreRequest;
 import com.example.demo.model.GameRanking;
 import com.example.demo.model.GameType;
+import com.example.demo.model.User;
 import com.example.demo.repository.GameRankingRepository;
+import com.example.demo.service.AuthService;
+import com.example.demo.service.LeaderboardService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -16,15 +24,55 @@ import java.util.List;
 public class GameRankingController {
     
     private final GameRankingRepository gameRankingRepository;
+    private final LeaderboardService leaderboardService;
+    private final AuthService authService;
+    private final ResourceVersions resourceVersions;
     
     @GetMapping
-    public ResponseEntity<List<GameRanking>> getAllRankings() {
-        return ResponseEntity.ok(gameRankingRepository.findAll());
+    public ResponseEntity<List<GameRanking>> getAllRankings(@RequestHeader HttpHeaders headers) {
+        return ConditionalGet.respond(headers, resourceVersions.rankings(),
+                () -> ResponseEntity.ok(gameRankingRepository.findAll()));
     }
     
     @GetMapping("/game/{gameType}")
-    public ResponseEntity<List<GameRanking>> getRankingsByGameType(@PathVariable GameType gameType) {
-        List<GameRanking> rankings = gameRankingRepository.findByGameType(gameType);
-        return ResponseEntity.ok(rankings);
+    public ResponseEntity<List<GameRanking>> getRankingsByGameType(@PathVariable GameType gameType,
+                                                                   @RequestHeader HttpHeaders headers) {
+        return ConditionalGet.respond(headers, resourceVersions.rankings(), () -> {
+            List<GameRanking> rankings = gameRankingRepository.findByGameType(gameType);
+            return ResponseEntity.ok(rankings);
+        });
     }
-} 
\ No newline at end of file
+
+    // 提交当前用户在某个游戏里的分数，返回更新后的名次
+    @PutMapping("/leaderboard/{gameType}/score")
+    public ResponseEntity<?> submitScore(@PathVariable GameType gameType,
+                                         @Valid @RequestBody ScoreRequest request,
+                                         @RequestHeader("Authorization") String authHeader) {
+        User currentUser = authService.getCurrentUser(authHeader.substring(7));
+        leaderboardService.submitScore(currentUser.getId(), gameType, request.getScore());
+        return ResponseEntity.of(leaderboardService.getEntry(gameType, currentUser.getId()));
+    }
+
+    // 前 K 名
+    @GetMapping("/leaderboard/{gameType}")
+    public ResponseEntity<List<LeaderboardEntryDto>> getLeaderboard(@PathVariable GameType gameType,
+                                                                    @RequestParam(defaultValue = "" + LeaderboardService.DEFAULT_LIMIT) int limit,
+                                                                    @RequestHeader HttpHeaders headers) {
+        return ConditionalGet.respond(headers, resourceVersions.leaderboard(gameType),
+                () -> ResponseEntity.ok(leaderboardService.getTop(gameType, limit)));
+    }
+
+    // 某个用户的名次
+    @GetMapping("/leaderboard/{gameType}/users/{userId}")
+    public ResponseEntity<LeaderboardEntryDto> getUserRank(@PathVariable GameType gameType, @PathVariable Long userId) {
+        return ResponseEntity.of(leaderboardService.getEntry(gameType, userId));
+    }
+
+    // 某个用户前后各 radius 名
+    @GetMapping("/leaderboard/{gameType}/users/{userId}/around")
+    public ResponseEntity<List<LeaderboardEntryDto>> getPlayersAround(@PathVariable GameType gameType,
+                                                                      @PathVariable Long userId,
+                                                                      @RequestParam(defaultValue = "5") int radius) {
+        return ResponseEntity.ok(leaderboardService.getAround(gameType, userId, radius));
+    }
+}
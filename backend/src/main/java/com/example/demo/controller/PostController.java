@@ -1,24 +1,30 @@
 package com.example.demo.controller;
 
+import com.example.demo.cache.ResourceVersions;
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.FeedCursor;
 import com.example.demo.dto.PostDto;
 import com.example.demo.dto.PostRequest;
-import com.example.demo.model.GameRanking;
 import com.example.demo.model.GameType;
 import com.example.demo.model.Post;
 import com.example.demo.model.User;
 import com.example.demo.repository.GameRankingRepository;
+import com.example.demo.repository.PostFeedRow;
 import com.example.demo.repository.PostRepository;
 import com.example.demo.service.AuthService;
+import com.example.demo.service.GameFeedCache;
+import com.example.demo.service.ImageDerivativeService;
+import com.example.demo.service.PostFeedService;
 import com.example.demo.service.PostService;
+import com.example.demo.service.TimelineService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import com.example.demo.dto.CommentDto;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.stream.Collectors;
 
 
 @RestController
@@ -26,11 +32,18 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 @CrossOrigin(origins = "http://localhost:5173")
 public class PostController {
+    // 下一页游标放在响应头里，响应体保持 PostDto 数组不变
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final AuthService authService;
     private final PostService postService;
+    private final TimelineService timelineService;
+    private final PostFeedService postFeedService;
+    private final ImageDerivativeService imageDerivativeService;
+    private final GameFeedCache gameFeedCache;
+    private final ResourceVersions resourceVersions;
     private final PostRepository postRepository;
     private final GameRankingRepository gameRankingRepository;
-    private final com.example.demo.repository.UserFollowRepository userFollowRepository;
 
 
     @PostMapping
@@ -41,6 +54,12 @@ public class PostController {
         
         Post post = new Post();
         post.setContent(request.getContent());
+        post.setImageUrl(request.getImageUrl());
+        // 衍生图已经生成好的话直接带上，否则等后台任务回写
+        imageDerivativeService.findVariant(request.getImageUrl()).ifPresent(variant -> {
+            post.setThumbnailUrl(variant.getThumbnailUrl());
+            post.setFeedImageUrl(variant.getFeedUrl());
+        });
         post.setUser(currentUser);
         post.setGameType(request.getGameType());  // 使用请求中的游戏类型
         
@@ -50,44 +69,42 @@ public class PostController {
                 .ifPresent(post::setGameRanking);
         }
         
-        Post savedPost = postRepository.save(post);
+        Post savedPost = postService.createPost(post);
+        imageDerivativeService.fillPostVariants(savedPost);
         return ResponseEntity.ok(convertToDto(savedPost));
     }
 
     @GetMapping("/following")
-    public ResponseEntity<List<PostDto>> getFollowingPosts(@RequestHeader("Authorization") String authHeader) {
+    public ResponseEntity<List<PostDto>> getFollowingPosts(@RequestHeader("Authorization") String authHeader,
+                                                           @RequestParam(required = false) String cursor,
+                                                           @RequestParam(defaultValue = "" + PostService.DEFAULT_PAGE_SIZE) int limit) {
         User currentUser = authService.getCurrentUser(authHeader.substring(7));
-        List<Long> followingIds = userFollowRepository.findFollowingIdsByFollowerId(currentUser.getId());
-
-        List<Post> posts = postRepository.findByUserIdInOrderByCreatedAtDesc(followingIds);
-        List<PostDto> postDtos = posts.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(postDtos);
+        CursorPage<PostFeedRow> page = timelineService.getFollowingPosts(currentUser.getId(), parseCursor(cursor), limit);
+        return toPageResponse(postFeedService.toDtoPage(page));
     }
 
 
     @GetMapping("/user")
-    public ResponseEntity<List<PostDto>> getUserPosts(@RequestHeader("Authorization") String authHeader) {
+    public ResponseEntity<List<PostDto>> getUserPosts(@RequestHeader("Authorization") String authHeader,
+                                                      @RequestParam(required = false) String cursor,
+                                                      @RequestParam(defaultValue = "" + PostService.DEFAULT_PAGE_SIZE) int limit) {
         String token = authHeader.substring(7);
         User currentUser = authService.getCurrentUser(token);
-        List<Post> posts = postService.getPostsByUser(currentUser.getId());
+        CursorPage<PostFeedRow> page = postService.getPostsByUser(currentUser.getId(), parseCursor(cursor), limit);
 
-        List<PostDto> postDtos = posts.stream()
-                .map(this::convertToDto)  // ✅ 用和 /api/posts一样的 convertToDto
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(postDtos);
+        return toPageResponse(postFeedService.toDtoPage(page));  // ✅ 用和 /api/posts一样的 convertToDto
     }
 
 
     @GetMapping
-    public ResponseEntity<List<PostDto>> getAllPosts() {
-        List<Post> posts = postService.getAllPosts();
-        List<PostDto> postDtos = posts.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(postDtos);
+    public ResponseEntity<List<PostDto>> getAllPosts(@RequestParam(required = false) String cursor,
+                                                     @RequestParam(defaultValue = "" + PostService.DEFAULT_PAGE_SIZE) int limit,
+                                                     @RequestHeader HttpHeaders headers) {
+        FeedCursor feedCursor = parseCursor(cursor);
+        return ConditionalGet.respond(headers, resourceVersions.allPosts(), () -> {
+            CursorPage<PostFeedRow> page = postService.getAllPosts(feedCursor, limit);
+            return toPageResponse(postFeedService.toDtoPage(page));
+        });
     }
 
     @PutMapping("/{postId}")
@@ -114,80 +131,38 @@ public class PostController {
     }
 
     @GetMapping("/game/{gameType}")
-    public ResponseEntity<?> getPostsByGameType(@PathVariable String gameType) {
-        List<Post> posts = postService.getPostsByGameType(GameType.valueOf(gameType));
-        List<PostDto> postDtos = posts.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(postDtos);
+    public ResponseEntity<?> getPostsByGameType(@PathVariable String gameType,
+                                                @RequestParam(required = false) String cursor,
+                                                @RequestParam(defaultValue = "" + PostService.DEFAULT_PAGE_SIZE) int limit,
+                                                @RequestHeader HttpHeaders headers) {
+        GameType type = GameType.valueOf(gameType);
+        FeedCursor feedCursor = parseCursor(cursor);
+        return ConditionalGet.respond(headers, resourceVersions.gamePosts(type), () -> {
+            CursorPage<PostDto> page = gameFeedCache.getPage(type, feedCursor, limit)
+                    .orElseGet(() -> postFeedService.toDtoPage(postService.getPostsByGameType(type, feedCursor, limit)));
+            return toPageResponse(page);
+        });
     }
 
-    // 添加从Post到PostDto的转换方法
-    private PostDto convertToDto(Post post) {
-        PostDto dto = new PostDto();
-        dto.setId(post.getId());
-        dto.setContent(post.getContent());
-        dto.setImageUrl(post.getImageUrl());
-        dto.setCreatedAt(post.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
-        dto.setUpdatedAt(post.getUpdatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
-        dto.setGameType(post.getGameType());
-
-        // 设置用户信息
-        if (post.getUser() != null) {
-            PostDto.UserDto userDto = new PostDto.UserDto();
-            userDto.setId(post.getUser().getId());
-            userDto.setName(post.getUser().getName());
-            userDto.setEmail(post.getUser().getEmail());
-            userDto.setPicture(post.getUser().getAvatar());  // ✅ 关键：设置头像字段
-            dto.setUser(userDto);
-        } else {
-            PostDto.UserDto userDto = new PostDto.UserDto();
-            userDto.setId(0L);
-            userDto.setName("Unknown User");
-            userDto.setEmail("unknown@example.com");
-            userDto.setPicture(null);
-            dto.setUser(userDto);
-        }
-
-        // 设置游戏排名信息
-        if (post.getGameRanking() != null) {
-            PostDto.GameRankingDto rankingDto = new PostDto.GameRankingDto();
-            rankingDto.setId(post.getGameRanking().getId());
-            rankingDto.setGameType(post.getGameRanking().getGameType());
-            rankingDto.setRankingName(post.getGameRanking().getRankingName());
-            rankingDto.setRankingScore(post.getGameRanking().getRankingScore());
-            dto.setGameRanking(rankingDto);
+    private FeedCursor parseCursor(String cursor) {
+        try {
+            return FeedCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
         }
+    }
 
-        // 设置评论数量
-        dto.setCommentCount(post.getComments().size());
-
-        // 添加最近的3条评论
-        if (post.getComments() != null && !post.getComments().isEmpty()) {
-            List<CommentDto> recentComments = post.getComments().stream()
-                    .sorted((c1, c2) -> c2.getCreatedAt().compareTo(c1.getCreatedAt()))
-                    .limit(3)
-                    .map(comment -> {
-                        CommentDto commentDto = new CommentDto();
-                        commentDto.setId(comment.getId());
-                        commentDto.setContent(comment.getContent());
-                        commentDto.setCreatedAt(comment.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
-
-                        CommentDto.UserDto commentUserDto = new CommentDto.UserDto();
-                        commentUserDto.setId(comment.getUser().getId());
-                        commentUserDto.setName(comment.getUser().getName());
-                        commentUserDto.setEmail(comment.getUser().getEmail());
-                        commentDto.setUser(commentUserDto);
-
-                        commentDto.setPostId(post.getId());
-                        return commentDto;
-                    })
-                    .collect(Collectors.toList());
-
-            dto.setRecentComments(recentComments);
+    private ResponseEntity<List<PostDto>> toPageResponse(CursorPage<PostDto> page) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (page.hasNext()) {
+            builder.header(NEXT_CURSOR_HEADER, page.nextCursor());
         }
+        return builder.body(page.items());
+    }
 
-        return dto;
+    // 添加从Post到PostDto的转换方法（和 feed 共用同一套组装逻辑）
+    private PostDto convertToDto(Post post) {
+        return postFeedService.toDto(PostFeedRow.of(post), post.getRecentComments());
     }
 
 }
\ No newline at end of file
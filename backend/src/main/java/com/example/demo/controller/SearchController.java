@@ -0,0 +1,100 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.CommentDto;
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.PostDto;
+import com.example.demo.dto.SearchCursor;
+import com.example.demo.dto.SearchResultDto;
+import com.example.demo.model.GameType;
+import com.example.demo.repository.PostRepository;
+import com.example.demo.search.SearchIndex;
+import com.example.demo.service.CommentService;
+import com.example.demo.service.PostFeedService;
+import com.example.demo.service.PostService;
+import com.example.demo.service.SearchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/search")
+@CrossOrigin(origins = "http://localhost:5173")
+@RequiredArgsConstructor
+public class SearchController {
+
+    private final SearchService searchService;
+    private final PostRepository postRepository;
+    private final PostFeedService postFeedService;
+    private final CommentService commentService;
+
+    /**
+     * 按相关度搜索帖子和评论，可按 GameType 和作者过滤；下一页游标放在 X-Next-Cursor 响应头里。
+     */
+    @GetMapping
+    public ResponseEntity<List<SearchResultDto>> search(@RequestParam String q,
+                                                        @RequestParam(required = false) GameType gameType,
+                                                        @RequestParam(required = false) Long authorId,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "" + PostService.DEFAULT_PAGE_SIZE) int limit) {
+        if (q.isBlank() || q.length() > SearchService.MAX_QUERY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Query must be 1-" + SearchService.MAX_QUERY_LENGTH + " characters");
+        }
+        SearchCursor after;
+        try {
+            after = SearchCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+
+        CursorPage<SearchIndex.Hit> page = searchService.search(q, gameType, authorId, after, limit);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (page.hasNext()) {
+            builder.header(PostController.NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return builder.body(toResults(page.items()));
+    }
+
+    // 一页命中的帖子和评论各查一次；已经被删掉的从索引里清掉，这一页会比 limit 少几条
+    private List<SearchResultDto> toResults(List<SearchIndex.Hit> hits) {
+        List<Long> postIds = hits.stream()
+                .filter(h -> h.kind() == SearchIndex.Kind.POST)
+                .map(SearchIndex.Hit::id)
+                .collect(Collectors.toList());
+        List<Long> commentIds = hits.stream()
+                .filter(h -> h.kind() == SearchIndex.Kind.COMMENT)
+                .map(SearchIndex.Hit::id)
+                .collect(Collectors.toList());
+
+        Map<Long, PostDto> posts = postIds.isEmpty() ? Map.of()
+                : postFeedService.toDtos(postRepository.findFeedRowsByIdIn(postIds)).stream()
+                .collect(Collectors.toMap(PostDto::getId, Function.identity()));
+        Map<Long, CommentDto> comments = commentService.getCommentsByIds(commentIds);
+
+        List<SearchResultDto> results = new ArrayList<>(hits.size());
+        for (SearchIndex.Hit hit : hits) {
+            PostDto post = hit.kind() == SearchIndex.Kind.POST ? posts.get(hit.id()) : null;
+            CommentDto comment = hit.kind() == SearchIndex.Kind.COMMENT ? comments.get(hit.id()) : null;
+            if (post == null && comment == null) {
+                searchService.prune(hit.kind(), hit.id());
+                continue;
+            }
+            SearchResultDto dto = new SearchResultDto();
+            dto.setType(hit.kind());
+            dto.setId(hit.id());
+            dto.setPostId(hit.postId());
+            dto.setScore(hit.score());
+            dto.setPost(post);
+            dto.setComment(comment);
+            results.add(dto);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.User;
+import com.example.demo.service.AuthService;
+import com.example.demo.service.FeedPushService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/stream")
+@CrossOrigin(origins = "http://localhost:5173")
+@RequiredArgsConstructor
+public class StreamController {
+
+    private final FeedPushService feedPushService;
+    private final AuthService authService;
+
+    /**
+     * 推送连接。浏览器的 EventSource 不能带请求头，所以也接受 ?token= 传 JWT。
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@RequestHeader(value = "Authorization", required = false) String authHeader,
+                                @RequestParam(required = false) String token) {
+        User currentUser = currentUser(authHeader, token);
+        try {
+            return feedPushService.subscribe(currentUser.getId());
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, e.getMessage());
+        }
+    }
+
+    // 打开帖子详情时订阅它的新评论，关闭时取消
+    @PutMapping("/{connectionId}/posts/{postId}")
+    public ResponseEntity<?> watchPost(@PathVariable String connectionId,
+                                       @PathVariable Long postId,
+                                       @RequestHeader("Authorization") String authHeader) {
+        User currentUser = currentUser(authHeader, null);
+        if (!feedPushService.watchPost(connectionId, currentUser.getId(), postId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/{connectionId}/posts/{postId}")
+    public ResponseEntity<?> unwatchPost(@PathVariable String connectionId,
+                                         @PathVariable Long postId,
+                                         @RequestHeader("Authorization") String authHeader) {
+        User currentUser = currentUser(authHeader, null);
+        if (!feedPushService.unwatchPost(connectionId, currentUser.getId(), postId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    private User currentUser(String authHeader, String token) {
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            token = authHeader.substring(7);
+        }
+        if (token == null || token.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Missing token");
+        }
+        return authService.getCurrentUser(token);
+    }
+}
@@ -2,12 +2,17 @@ package com.example.demo.controller;
 
 import com.example.demo.service.S3Service;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
+@Slf4j
 @RestController
 @RequestMapping("/api")
 @RequiredArgsConstructor
@@ -19,9 +24,14 @@ public class UploadController {
     public ResponseEntity<?> uploadImage(@RequestParam("file") MultipartFile file) {
         try {
             String fileUrl = s3Service.uploadFile(file);
+            // 缩略图在后台生成，完成后会回写到引用这张图的帖子 / 头像上
             return ResponseEntity.ok(Map.of("url", fileUrl));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body("Upload queue is full, please retry later");
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Upload failed", e);
             return ResponseEntity.internalServerError().body("Upload failed");
         }
     }
@@ -9,9 +9,14 @@ import java.util.Optional;
 
 import lombok.RequiredArgsConstructor;
 
+import com.example.demo.cache.UserPrincipalCache;
+import com.example.demo.model.ImageVariant;
 import com.example.demo.model.User;
 import com.example.demo.repository.UserRepository;
 import com.example.demo.service.AuthService;
+import com.example.demo.service.FollowService;
+import com.example.demo.service.GameFeedCache;
+import com.example.demo.service.ImageDerivativeService;
 import com.example.demo.dto.UpdateAvatarRequest;
 
 @RestController
@@ -20,6 +25,10 @@ import com.example.demo.dto.UpdateAvatarRequest;
 public class UserController {
     private final UserRepository userRepository;
     private final AuthService authService;
+    private final UserPrincipalCache userPrincipalCache;
+    private final ImageDerivativeService imageDerivativeService;
+    private final FollowService followService;
+    private final GameFeedCache gameFeedCache;
 
     @PutMapping("/avatar")
     public ResponseEntity<?> updateAvatar(
@@ -30,7 +39,10 @@ public class UserController {
         User currentUser = authService.getCurrentUser(token);
         
         currentUser.setAvatar(request.getAvatarUrl());
+        currentUser.setAvatarThumbnailUrl(avatarThumbnail(request.getAvatarUrl()));
         userRepository.save(currentUser);
+        userPrincipalCache.invalidate(currentUser);
+        gameFeedCache.invalidateAll();
         
         return ResponseEntity.ok(Map.of(
             "message", "Avatar updated successfully",
@@ -50,6 +62,8 @@ public class UserController {
         profile.put("name", currentUser.getName());
         profile.put("email", currentUser.getEmail());
         profile.put("avatar", currentUser.getAvatar());
+        profile.put("followerCount", followService.getFollowerCount(currentUser.getId()));
+        profile.put("followingCount", followService.getFollowingCount(currentUser.getId()));
         
         return ResponseEntity.ok(profile);
     }
@@ -63,11 +77,20 @@ public class UserController {
         if (userOpt.isPresent()) {
             User user = userOpt.get();
             user.setAvatar(avatarUrl);
+            user.setAvatarThumbnailUrl(avatarThumbnail(avatarUrl));
             userRepository.save(user);
+            userPrincipalCache.invalidate(user);
+            gameFeedCache.invalidateAll();
             return ResponseEntity.ok(user);
         } else {
             return ResponseEntity.notFound().build();
         }
     }
 
-} 
\ No newline at end of file
+    // 缩略图还没生成时为 null，生成完后由 ImageDerivativeService 回写
+    private String avatarThumbnail(String avatarUrl) {
+        return imageDerivativeService.findVariant(avatarUrl)
+                .map(ImageVariant::getThumbnailUrl)
+                .orElse(null);
+    }
+}
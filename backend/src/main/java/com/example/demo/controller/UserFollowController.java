@@ -1,12 +1,12 @@
 package com.example.demo.controller;
 
+import com.example.demo.cache.FollowGraph;
 import com.example.demo.model.User;
-import com.example.demo.model.UserFollow;
-import com.example.demo.repository.UserFollowRepository;
 import com.example.demo.repository.UserRepository;
 import com.example.demo.service.AuthService;
-import jakarta.transaction.Transactional;
+import com.example.demo.service.FollowService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -18,8 +18,9 @@ import java.util.*;
 public class UserFollowController {
 
     private final UserRepository userRepository;
-    private final UserFollowRepository userFollowRepository;
     private final AuthService authService;
+    private final FollowService followService;
+    private final FollowGraph followGraph;
 
     // ✅ 1. 关注用户
     @PostMapping("/{targetId}")
@@ -31,41 +32,37 @@ public class UserFollowController {
             return ResponseEntity.badRequest().body("You cannot follow yourself.");
         }
 
-        if (userFollowRepository.existsByFollowerIdAndFollowingId(currentUser.getId(), targetId)) {
+        if (!followService.follow(currentUser.getId(), targetId)) {
             return ResponseEntity.badRequest().body("Already following.");
         }
 
-        UserFollow follow = new UserFollow();
-        follow.setFollowerId(currentUser.getId());
-        follow.setFollowingId(targetId);
-        userFollowRepository.save(follow);
-
         return ResponseEntity.ok("Followed successfully");
     }
 
     // ✅ 2. 取消关注
     @DeleteMapping("/{targetId}")
-    @Transactional
     public ResponseEntity<?> unfollowUser(@PathVariable Long targetId, @RequestHeader("Authorization") String authHeader) {
         String token = authHeader.substring(7);
         User currentUser = authService.getCurrentUser(token);
 
-        userFollowRepository.deleteByFollowerIdAndFollowingId(currentUser.getId(), targetId);
+        followService.unfollow(currentUser.getId(), targetId);
         return ResponseEntity.ok("Unfollowed successfully");
     }
 
     // ✅ 3. 获取粉丝数量
     @GetMapping("/{userId}/followers/count")
-    public ResponseEntity<?> getFollowerCount(@PathVariable Long userId) {
-        long count = userFollowRepository.countByFollowingId(userId);
-        return ResponseEntity.ok(Map.of("followers", count));
+    public ResponseEntity<?> getFollowerCount(@PathVariable Long userId, @RequestHeader HttpHeaders headers) {
+        // 和个人主页一样读 users 上的计数（加分片）
+        long count = followService.getFollowerCount(userId);
+        // 响应体只有这个数，数本身就可以当 ETag
+        return ConditionalGet.respond(headers, "W/\"followers-" + count + "\"", () -> Map.of("followers", count));
     }
 
     // ✅ 4. 获取关注数量
     @GetMapping("/{userId}/following/count")
-    public ResponseEntity<?> getFollowingCount(@PathVariable Long userId) {
-        long count = userFollowRepository.countByFollowerId(userId);
-        return ResponseEntity.ok(Map.of("following", count));
+    public ResponseEntity<?> getFollowingCount(@PathVariable Long userId, @RequestHeader HttpHeaders headers) {
+        long count = followService.getFollowingCount(userId);
+        return ConditionalGet.respond(headers, "W/\"following-" + count + "\"", () -> Map.of("following", count));
     }
 
     // ✅ 5. 查询当前用户是否关注某人
@@ -74,21 +71,29 @@ public class UserFollowController {
         String token = authHeader.substring(7);
         User currentUser = authService.getCurrentUser(token);
 
-        boolean isFollowing = userFollowRepository.existsByFollowerIdAndFollowingId(currentUser.getId(), targetId);
+        boolean isFollowing = followGraph.isFollowing(currentUser.getId(), targetId);
         return ResponseEntity.ok(Map.of("isFollowing", isFollowing));
     }
 
     // ✅ 6. 获取关注列表（返回用户信息）
     @GetMapping("/{userId}/following")
     public ResponseEntity<?> getFollowingList(@PathVariable Long userId) {
-        List<User> users = userRepository.findUsersByFollowerId(userId);
+        List<User> users = findUsers(followGraph.followingIds(userId));
         return ResponseEntity.ok(users);
     }
 
     // ✅ 7. 获取粉丝列表（返回用户信息）
     @GetMapping("/{userId}/followers")
     public ResponseEntity<?> getFollowersList(@PathVariable Long userId) {
-        List<User> users = userRepository.findUsersByFollowingId(userId);
+        List<User> users = findUsers(followGraph.followerIds(userId));
         return ResponseEntity.ok(users);
     }
+
+    // id 列表来自内存中的关注图，只剩一次按主键的批量查询
+    private List<User> findUsers(long[] ids) {
+        if (ids.length == 0) {
+            return List.of();
+        }
+        return userRepository.findAllById(Arrays.stream(ids).boxed().toList());
+    }
 }
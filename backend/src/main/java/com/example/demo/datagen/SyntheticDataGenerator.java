@@ -0,0 +1,484 @@
+package com.example.demo.datagen;
+
+import com.example.demo.cache.LongHashSet;
+import com.example.demo.model.CommentSnapshot;
+import com.example.demo.model.GameType;
+import com.example.demo.model.RecentCommentsConverter;
+import com.example.demo.service.CommentService;
+import com.example.demo.service.SearchService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.LongConsumer;
+
+/**
+ * 压测数据生成器：用户、关注关系、帖子、评论（含一层回复）、玩家分数，直接批量写表。
+ *
+ * 分布按真实社区的样子做了偏斜：
+ * - 关注对象按幂律挑选，少数账号有大量粉丝；每人关注数也是长尾分布
+ * - 发帖和评论的作者按活跃度幂律挑选
+ * - 每帖评论数是长尾分布，大部分帖子没几条评论，少数帖子有成千上万条
+ *
+ * 冗余字段（users 的关注计数、posts 的评论数和最近评论快照、顶层评论的回复数）写入时就算好，
+ * 不需要事后修复。关注关系按 (seed, 用户) 确定性生成，先跑一遍只计数，再跑一遍写入，不用把整张图放在内存里。
+ *
+ * 只在 datagen profile 下启用，跑完退出：
+ *
+ *   java -jar app.jar --spring.profiles.active=datagen --datagen.users=1000000 --datagen.posts=5000000
+ *
+ * 生成的用户邮箱是 user{n}@{email-domain}，密码都是 datagen.password，压测脚本用它们登录。
+ * 同一个库里已经有这个域名的用户时拒绝执行。
+ */
+@Slf4j
+@Component
+@Profile("datagen")
+@RequiredArgsConstructor
+public class SyntheticDataGenerator implements ApplicationRunner {
+
+    // 每种实体用不同的随机流，互不影响
+    private static final int FOLLOWS = 1;
+    private static final int POSTS = 2;
+    private static final int SCORES = 3;
+
+    // 长尾分布的形状参数，越小尾巴越长
+    private static final double TAIL_SHAPE = 1.5;
+
+    private static final String[] WORDS = {
+            "ranked", "duo", "queue", "carry", "clutch", "ace", "smurf", "tilt", "patch", "meta",
+            "jungle", "mid", "top", "support", "adc", "gank", "baron", "dragon", "tower", "farm",
+            "agent", "spike", "defuse", "entry", "flank", "rotate", "eco", "vandal", "phantom", "operator",
+            "gold", "platinum", "diamond", "immortal", "radiant", "master", "grandmaster", "challenger",
+            "looking", "for", "team", "tonight", "anyone", "need", "help", "climb", "today", "finally",
+            "montage", "highlight", "guide", "tips", "settings", "crosshair", "sensitivity", "warmup",
+            "上分", "双排", "开黑", "求带", "打野", "中单", "辅助", "翻盘", "五杀", "段位"
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final SearchService searchService;
+    private final ConfigurableApplicationContext context;
+
+    @Value("${datagen.users:10000}")
+    private int users;
+
+    @Value("${datagen.posts:50000}")
+    private long posts;
+
+    // 平均每人关注多少人
+    @Value("${datagen.follows-per-user:20}")
+    private double followsPerUser;
+
+    // 平均每帖多少条评论
+    @Value("${datagen.comments-per-post:5}")
+    private double commentsPerPost;
+
+    @Value("${datagen.max-comments-per-post:50000}")
+    private int maxCommentsPerPost;
+
+    // 评论里回复（挂在顶层评论下）的比例
+    @Value("${datagen.reply-ratio:0.3}")
+    private double replyRatio;
+
+    // 关注对象的幂律指数；0.8 时最热门的账号大约被 1/5 的用户关注
+    @Value("${datagen.popularity-skew:0.8}")
+    private double popularitySkew;
+
+    // 发帖 / 评论作者的幂律指数
+    @Value("${datagen.activity-skew:0.7}")
+    private double activitySkew;
+
+    // 每个用户在每个游戏里有分数的概率
+    @Value("${datagen.score-ratio:0.3}")
+    private double scoreRatio;
+
+    // 数据的时间跨度，到当前时间为止
+    @Value("${datagen.days:365}")
+    private int days;
+
+    @Value("${datagen.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${datagen.password:password}")
+    private String password;
+
+    @Value("${datagen.email-domain:loadtest.local}")
+    private String emailDomain;
+
+    @Value("${datagen.seed:42}")
+    private long seed;
+
+    private final RecentCommentsConverter snapshotConverter = new RecentCommentsConverter();
+
+    private LocalDateTime end;
+    private long spanSeconds;
+    private long userBase;
+    private long scatterMultiplier;
+    private Map<GameType, List<Long>> rankingIds;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Integer existing = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM users WHERE email LIKE ?", Integer.class, "%@" + emailDomain);
+        if (existing != null && existing > 0) {
+            throw new IllegalStateException(existing + " users @" + emailDomain + " already exist, refusing to generate again");
+        }
+
+        long started = System.nanoTime();
+        end = LocalDateTime.now().withNano(0);
+        spanSeconds = Duration.ofDays(days).toSeconds();
+        userBase = maxId("users");
+        scatterMultiplier = 1_000_003L;
+        while (gcd(scatterMultiplier, users) != 1) {
+            scatterMultiplier += 2;
+        }
+        rankingIds = loadRankingIds();
+        log.info("Generating {} users and {} posts (seed {})", users, posts, seed);
+
+        generateUsersAndFollows();
+        generatePostsAndComments();
+        generateScores();
+        restartIdentities();
+        searchService.rebuild();
+
+        log.info("Data generation finished in {} s", Duration.ofNanos(System.nanoTime() - started).toSeconds());
+        System.exit(SpringApplication.exit(context));
+    }
+
+    private void generateUsersAndFollows() {
+        // 第一遍只计数，users 行写入时就带上正确的关注数 / 粉丝数
+        int[] followerCounts = new int[users];
+        int[] followingCounts = new int[users];
+        for (int u = 0; u < users; u++) {
+            int follower = u;
+            forEachFollow(follower, target -> {
+                followerCounts[(int) target]++;
+                followingCounts[follower]++;
+            });
+        }
+
+        String hash = passwordEncoder.encode(password);
+        BatchInsert userRows = new BatchInsert("users",
+                "INSERT INTO users (id, email, password, name, provider, is_admin, follower_count, following_count) " +
+                        "VALUES (?, ?, ?, ?, 'local', FALSE, ?, ?)");
+        for (int u = 0; u < users; u++) {
+            userRows.add(userId(u), email(u), hash, name(u), followerCounts[u], followingCounts[u]);
+        }
+        userRows.finish();
+
+        // 关注关系的主键不是自增的，和帖子、评论一样接着已有的最大 id 往后编
+        long[] nextFollowId = {maxId("user_followers") + 1};
+        BatchInsert followRows = new BatchInsert("user_followers",
+                "INSERT INTO user_followers (id, follower_id, following_id, created_at) VALUES (?, ?, ?, ?)");
+        for (int u = 0; u < users; u++) {
+            long followerId = userId(u);
+            // 关注发生在两个人都注册之后
+            long registered = userCreatedSecond(u);
+            forEachFollow(u, target -> {
+                long from = Math.max(registered, userCreatedSecond((int) target));
+                followRows.add(nextFollowId[0]++, followerId, userId((int) target), at(from + (spanSeconds - from) / 2));
+            });
+        }
+        followRows.finish();
+    }
+
+    // 用户 u 关注的人，按 (seed, u) 确定性生成，两遍结果一样
+    private void forEachFollow(int u, LongConsumer action) {
+        if (users < 2) {
+            return;
+        }
+        SplittableRandom random = random(FOLLOWS, u);
+        int count = (int) Math.min(longTail(random, followsPerUser), users - 1);
+        LongHashSet targets = new LongHashSet(count);
+        // 热门账号会被重复抽中，多给几次机会凑够数量
+        for (int attempt = 0; targets.size() < count && attempt < count * 4; attempt++) {
+            int target = byPopularity(random, popularitySkew);
+            // LongHashSet 不能存 0，下标加一
+            if (target != u && targets.add(target + 1L)) {
+                action.accept(target);
+            }
+        }
+    }
+
+    // 帖子和它的评论一起生成：评论数、回复数、最近评论快照在写入帖子行之前就都算好了
+    private void generatePostsAndComments() {
+        long postBase = maxId("posts");
+        long nextCommentId = maxId("comments") + 1;
+        GameType[] gameTypes = GameType.values();
+
+        BatchInsert postRows = new BatchInsert("posts",
+                "INSERT INTO posts (id, content, image_url, thumbnail_url, feed_image_url, user_id, ranking_id, game_type, " +
+                        "comment_count, recent_comments, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        // 评论引用帖子，写评论前先把攒着的帖子写掉
+        BatchInsert commentRows = new BatchInsert("comments",
+                "INSERT INTO comments (id, content, user_id, post_id, parent_id, reply_count, created_at, updated_at) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?)", postRows);
+
+        for (long p = 0; p < posts; p++) {
+            SplittableRandom random = random(POSTS, p);
+            long postId = postBase + 1 + p;
+            // 帖子按 id 顺序均匀分布在时间范围内
+            long postSecond = p * spanSeconds / Math.max(posts, 1) + random.nextLong(Math.max(spanSeconds / Math.max(posts, 1), 1));
+            int author = byActivity(random);
+            GameType gameType = gameTypes[random.nextInt(gameTypes.length)];
+            List<Long> rankings = rankingIds.getOrDefault(gameType, List.of());
+            Long rankingId = !rankings.isEmpty() && random.nextDouble() < 0.7 ? rankings.get(random.nextInt(rankings.size())) : null;
+            boolean hasImage = random.nextDouble() < 0.3;
+            String imageBase = "https://cdn.example.com/" + emailDomain + "/posts/" + postId;
+
+            int commentCount = (int) Math.min(longTail(random, commentsPerPost), maxCommentsPerPost);
+            long[] commentSeconds = new long[commentCount];
+            for (int c = 0; c < commentCount; c++) {
+                // 评论集中在发帖后不久
+                double u = random.nextDouble();
+                commentSeconds[c] = postSecond + (long) ((spanSeconds - postSecond) * u * u * u);
+            }
+            Arrays.sort(commentSeconds);
+
+            long[] commentIds = new long[commentCount];
+            long[] parentIds = new long[commentCount];
+            int[] commentAuthors = new int[commentCount];
+            int[] replyCounts = new int[commentCount];
+            int[] topLevel = new int[commentCount];
+            int topLevelCount = 0;
+            for (int c = 0; c < commentCount; c++) {
+                commentIds[c] = nextCommentId++;
+                commentAuthors[c] = byActivity(random);
+                if (topLevelCount > 0 && random.nextDouble() < replyRatio) {
+                    int parent = topLevel[random.nextInt(topLevelCount)];
+                    parentIds[c] = commentIds[parent];
+                    replyCounts[parent]++;
+                } else {
+                    topLevel[topLevelCount++] = c;
+                }
+            }
+
+            // 快照是最新的几条评论（包括回复），新的在前
+            List<CommentSnapshot> recent = new ArrayList<>();
+            for (int c = commentCount - 1; c >= 0 && recent.size() < CommentService.RECENT_COMMENT_LIMIT; c--) {
+                recent.add(new CommentSnapshot(commentIds[c], commentContent(commentIds[c]),
+                        at(commentSeconds[c]).toLocalDateTime(), userId(commentAuthors[c]), name(commentAuthors[c]), email(commentAuthors[c])));
+            }
+
+            Timestamp postedAt = at(postSecond);
+            postRows.add(postId, postContent(random), hasImage ? imageBase + ".jpg" : null,
+                    hasImage ? imageBase + "_thumb.webp" : null, hasImage ? imageBase + "_feed.webp" : null,
+                    userId(author), rankingId, gameType.name(), commentCount,
+                    commentCount > 0 ? snapshotConverter.convertToDatabaseColumn(recent) : null, postedAt, postedAt);
+
+            for (int c = 0; c < commentCount; c++) {
+                Timestamp commentedAt = at(commentSeconds[c]);
+                commentRows.add(commentIds[c], commentContent(commentIds[c]), userId(commentAuthors[c]), postId,
+                        parentIds[c] != 0 ? parentIds[c] : null, replyCounts[c], commentedAt, commentedAt);
+            }
+        }
+        postRows.finish();
+        commentRows.finish();
+    }
+
+    private void generateScores() {
+        BatchInsert scoreRows = new BatchInsert("player_scores",
+                "INSERT INTO player_scores (user_id, game_type, score, updated_at) VALUES (?, ?, ?, ?)");
+        Timestamp now = at(spanSeconds);
+        for (int u = 0; u < users; u++) {
+            SplittableRandom random = random(SCORES, u);
+            for (GameType gameType : GameType.values()) {
+                if (gameType == GameType.GENERAL || random.nextDouble() >= scoreRatio) {
+                    continue;
+                }
+                // 大致正态：12 个均匀分布相加
+                double sum = 0;
+                for (int i = 0; i < 12; i++) {
+                    sum += random.nextDouble();
+                }
+                long score = Math.max(0, Math.round(1500 + (sum - 6) * 400));
+                scoreRows.add(userId(u), gameType.name(), score, now);
+            }
+        }
+        scoreRows.finish();
+    }
+
+    // H2 的自增列不会跟着显式写入的 id 前进，手动挪到最大 id 之后；MySQL 会自动调整
+    private void restartIdentities() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+        if (!"H2".equals(product)) {
+            return;
+        }
+        // 帖子、评论、关注关系的 id 由 TimeOrderedIds 生成，只有 users 还是自增
+        jdbcTemplate.execute("ALTER TABLE users ALTER COLUMN id RESTART WITH " + (maxId("users") + 1));
+    }
+
+    private Map<GameType, List<Long>> loadRankingIds() {
+        Map<GameType, List<Long>> byGame = new EnumMap<>(GameType.class);
+        jdbcTemplate.query("SELECT id, game_type FROM game_rankings ORDER BY id", rs -> {
+            try {
+                GameType gameType = GameType.valueOf(rs.getString(2));
+                byGame.computeIfAbsent(gameType, k -> new ArrayList<>()).add(rs.getLong(1));
+            } catch (IllegalArgumentException e) {
+                // 没有对应 GameType 的段位不用
+            }
+        });
+        return byGame;
+    }
+
+    private long maxId(String table) {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+        return max != null ? max : 0;
+    }
+
+    private SplittableRandom random(int stream, long index) {
+        return new SplittableRandom(seed ^ (stream * 0x9E3779B97F4A7C15L) ^ (index * 0xC2B2AE3D27D4EB4FL));
+    }
+
+    // 均值为 mean 的长尾分布（Lomax），大部分取值很小，偶尔很大
+    private static long longTail(SplittableRandom random, double mean) {
+        double scale = mean * (TAIL_SHAPE - 1);
+        return (long) (scale * (Math.pow(1 - random.nextDouble(), -1 / TAIL_SHAPE) - 1));
+    }
+
+    private int byPopularity(SplittableRandom random, double skew) {
+        return scatter(zipfRank(random, skew, users), users);
+    }
+
+    private int byActivity(SplittableRandom random) {
+        return byPopularity(random, activitySkew);
+    }
+
+    // 幂律分布的名次，0 最热门（连续近似的逆 CDF）
+    private static int zipfRank(SplittableRandom random, double skew, int n) {
+        double u = random.nextDouble();
+        double x = Math.abs(skew - 1) < 1e-9
+                ? Math.pow(n, u)
+                : Math.pow((Math.pow(n, 1 - skew) - 1) * u + 1, 1 / (1 - skew));
+        return (int) Math.min(n - 1, Math.max(0, (long) x - 1));
+    }
+
+    // 名次打散到用户下标上（乘一个和 n 互质的数取模，是一一映射），免得热门账号全是最早注册的那批
+    private int scatter(int rank, int n) {
+        return (int) ((rank * scatterMultiplier + 7) % n);
+    }
+
+    private static long gcd(long a, long b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    private String postContent(SplittableRandom random) {
+        int length = 5 + random.nextInt(26);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+
+    // 评论内容只取决于 id，快照和评论行里的一致
+    private String commentContent(long commentId) {
+        SplittableRandom random = new SplittableRandom(seed ^ commentId);
+        int length = 2 + random.nextInt(12);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+
+    private long userId(int u) {
+        return userBase + 1 + u;
+    }
+
+    private String email(int u) {
+        return "user" + (u + 1) + "@" + emailDomain;
+    }
+
+    private static String name(int u) {
+        return "Player " + (u + 1);
+    }
+
+    // 用户按下标先后在前半段时间里注册（只用来让关注时间晚于注册，users 表本身的注册时间不写）
+    private long userCreatedSecond(int u) {
+        return (long) u * (spanSeconds / 2) / Math.max(users, 1);
+    }
+
+    // 相对时间范围起点的秒数 -> 时间戳
+    private Timestamp at(long second) {
+        return Timestamp.valueOf(end.minusSeconds(spanSeconds - Math.min(second, spanSeconds)));
+    }
+
+    /**
+     * 攒够 batch-size 行写一次，每批一个事务。
+     * MySQL 需要在 JDBC URL 上加 rewriteBatchedStatements=true，一批才会合成一条多行 INSERT。
+     */
+    private final class BatchInsert {
+        private final String table;
+        private final String sql;
+        private final BatchInsert parent;
+        private final List<Object[]> rows = new ArrayList<>();
+        private final long started = System.nanoTime();
+        private long written;
+
+        BatchInsert(String table, String sql) {
+            this(table, sql, null);
+        }
+
+        BatchInsert(String table, String sql, BatchInsert parent) {
+            this.table = table;
+            this.sql = sql;
+            this.parent = parent;
+        }
+
+        void add(Object... row) {
+            rows.add(row);
+            if (rows.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (rows.isEmpty()) {
+                return;
+            }
+            if (parent != null) {
+                parent.flush();
+            }
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql, rows));
+            long before = written;
+            written += rows.size();
+            rows.clear();
+            // 大约每 10 万行打一次进度
+            if (before / 100_000 != written / 100_000) {
+                log.info("{}: {} rows, {} rows/s", table, written, rate());
+            }
+        }
+
+        void finish() {
+            flush();
+            log.info("{}: done, {} rows, {} rows/s", table, written, rate());
+        }
+
+        private long rate() {
+            long elapsedMs = Math.max(Duration.ofNanos(System.nanoTime() - started).toMillis(), 1);
+            return written * 1000 / elapsedMs;
+        }
+    }
+}
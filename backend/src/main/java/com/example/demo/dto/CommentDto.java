@@ -1,7 +1,8 @@
 package com.example.demo.dto;
 
 import lombok.Data;
-import java.time.LocalDateTime;
+
+import java.util.List;
 
 @Data
 public class CommentDto {
@@ -11,6 +12,11 @@ public class CommentDto {
     private String updatedAt;
     private UserDto user;
     private Long postId;
+    // 顶层评论为 null
+    private Long parentId;
+    private int replyCount;
+    // 顶层评论附带最早的几条回复，剩下的用 /api/comments/{id}/replies 翻页；回复本身为 null
+    private List<CommentDto> replies;
     
     @Data
     public static class UserDto {
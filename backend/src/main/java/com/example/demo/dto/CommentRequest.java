@@ -11,4 +11,7 @@ public class CommentRequest {
     
     @NotNull(message = "Post ID is required")
     private Long postId;
+
+    // 回复某条评论时填写，可选
+    private Long parentId;
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.example.demo.dto;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 一页数据加上下一页的游标，nextCursor 为 null 表示已经到底。
+ */
+public record CursorPage<T>(List<T> items, String nextCursor) {
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> mapper) {
+        List<R> mapped = items.stream().map(mapper).collect(Collectors.toList());
+        return new CursorPage<>(mapped, nextCursor);
+    }
+}
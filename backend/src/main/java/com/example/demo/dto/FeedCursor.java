@@ -0,0 +1,41 @@
+package com.example.demo.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset 分页游标：(createdAt, id)。
+ * 客户端拿到的是不透明的 base64 token，下一页从这个位置之后开始读取。
+ */
+public record FeedCursor(LocalDateTime createdAt, Long id) {
+
+    private static final char SEPARATOR = '_';
+
+    public String encode() {
+        String raw = createdAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析客户端传回的游标，空值表示第一页。
+     *
+     * @throws IllegalArgumentException 游标格式不正确
+     */
+    public static FeedCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int idx = raw.lastIndexOf(SEPARATOR);
+            if (idx <= 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new FeedCursor(LocalDateTime.parse(raw.substring(0, idx)), Long.parseLong(raw.substring(idx + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
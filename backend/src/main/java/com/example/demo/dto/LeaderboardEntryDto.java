@@ -0,0 +1,16 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.GameType;
+import lombok.Data;
+
+@Data
+public class LeaderboardEntryDto {
+    private long rank;
+    private Long userId;
+    private String name;
+    private String picture;
+    private GameType gameType;
+    private long score;
+    // 按 GameRanking 的分数线换算出的段位名，没有匹配时为 null
+    private String rankingName;
+}
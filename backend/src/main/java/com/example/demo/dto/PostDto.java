@@ -11,6 +11,8 @@ public class PostDto {
     private Long id;
     private String content;
     private String imageUrl;
+    private String thumbnailUrl;
+    private String feedImageUrl;
     private String createdAt;
     private String updatedAt;
     private GameType gameType;
@@ -25,6 +27,7 @@ public class PostDto {
         private String name;
         private String email;
         private String picture;
+        private String pictureThumbnail;
     }
 
     @Data
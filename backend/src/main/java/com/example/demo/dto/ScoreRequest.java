@@ -0,0 +1,12 @@
+package com.example.demo.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Data;
+
+@Data
+public class ScoreRequest {
+    @NotNull(message = "Score is required")
+    @PositiveOrZero(message = "Score cannot be negative")
+    private Long score;
+}
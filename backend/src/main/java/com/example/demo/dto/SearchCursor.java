@@ -0,0 +1,50 @@
+package com.example.demo.dto;
+
+import com.example.demo.search.SearchIndex;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 搜索结果的分页游标：上一页最后一条的 (score, kind, id)。
+ * 下一页重新打分后取排在它之后的结果；两次请求之间索引有变化时分数可能略有漂移。
+ */
+public record SearchCursor(float score, SearchIndex.Kind kind, long id) {
+
+    private static final char SEPARATOR = '_';
+
+    public static SearchCursor of(SearchIndex.Hit hit) {
+        return new SearchCursor(hit.score(), hit.kind(), hit.id());
+    }
+
+    public SearchIndex.Hit toHit() {
+        return new SearchIndex.Hit(kind, id, 0, score);
+    }
+
+    public String encode() {
+        // float 的 toString 能精确还原，翻页时同一条结果的分数比较不会有误差
+        String raw = Float.toString(score) + SEPARATOR + kind.name() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析客户端传回的游标，空值表示第一页。
+     *
+     * @throws IllegalArgumentException 游标格式不正确
+     */
+    public static SearchCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(String.valueOf(SEPARATOR));
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new SearchCursor(Float.parseFloat(parts[0]), SearchIndex.Kind.valueOf(parts[1]), Long.parseLong(parts[2]));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.demo.dto;
+
+import com.example.demo.search.SearchIndex;
+import lombok.Data;
+
+/**
+ * 一条搜索结果：命中帖子时 post 有值，命中评论时 comment 有值。
+ */
+@Data
+public class SearchResultDto {
+    private SearchIndex.Kind type;
+    private Long id;
+    private Long postId;
+    private float score;
+    private PostDto post;
+    private CommentDto comment;
+}
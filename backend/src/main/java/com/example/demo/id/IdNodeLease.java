@@ -0,0 +1,150 @@
+package com.example.demo.id;
+
+import com.example.demo.config.AppThreads;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 给本实例分配 TimeOrderedIds 的节点号。
+ *
+ * 配置了 id.node-id 就直接用；否则到 id_generator_nodes 表里租一个：没人用过的节点直接插入，
+ * 心跳超过 id.node-lease-seconds 没更新的节点可以接手。每三分之一个租期续约一次，续约失败
+ * （被别的实例接手了）就换一个。本地在租约到期前就停止发号，接手的实例至少要等一个完整租期，
+ * 两边不会同时用同一个节点号。心跳时间取数据库的时钟，各实例之间的时钟偏差不影响判断。
+ *
+ * 续约用自己的线程，不放在 @Scheduled 线程池里：那里的计数修复、索引落盘一跑就是几十秒，
+ * 排在它们后面续约会错过本地截止时间，期间所有写入都拿不到主键。
+ */
+@Slf4j
+@Component
+public class IdNodeLease {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AppThreads appThreads;
+    // 同一进程里 devtools 重启后算新的持有者
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID().toString().substring(0, 8);
+
+    @Value("${id.node-id:-1}")
+    private int configuredNode;
+
+    @Value("${id.node-lease-seconds:60}")
+    private int leaseSeconds;
+
+    private volatile int node = -1;
+    private ScheduledExecutorService renewer;
+
+    public IdNodeLease(JdbcTemplate jdbcTemplate, AppThreads appThreads) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.appThreads = appThreads;
+    }
+
+    @PostConstruct
+    void init() {
+        if (configuredNode >= 0) {
+            TimeOrderedIds.assignNode(configuredNode);
+            log.info("Using configured ID generator node {}", configuredNode);
+            return;
+        }
+        acquire();
+        long interval = TimeUnit.SECONDS.toMillis(leaseSeconds) / 3;
+        renewer = Executors.newSingleThreadScheduledExecutor(appThreads.threadFactory("id-node-lease-"));
+        renewer.scheduleWithFixedDelay(this::renewQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (renewer != null) {
+            renewer.shutdownNow();
+        }
+    }
+
+    // 任务抛异常 ScheduledExecutorService 就不再调度了，这里记日志后等下一轮
+    private void renewQuietly() {
+        try {
+            renew();
+        } catch (RuntimeException e) {
+            log.error("Failed to renew ID generator node lease", e);
+        }
+    }
+
+    void renew() {
+        if (node < 0) {
+            acquire();
+            return;
+        }
+        long started = System.nanoTime();
+        int updated = jdbcTemplate.update(
+                "UPDATE id_generator_nodes SET heartbeat_at = CURRENT_TIMESTAMP(3) WHERE node_id = ? AND owner = ?",
+                node, owner);
+        if (updated == 1) {
+            TimeOrderedIds.assignLeasedNode(node, deadline(started));
+            return;
+        }
+        log.error("Lost lease on ID generator node {}, acquiring another one", node);
+        TimeOrderedIds.unassign();
+        node = -1;
+        acquire();
+    }
+
+    private void acquire() {
+        Set<Integer> known = new HashSet<>(jdbcTemplate.queryForList("SELECT node_id FROM id_generator_nodes", Integer.class));
+        for (int candidate = 0; candidate <= TimeOrderedIds.MAX_NODE; candidate++) {
+            long started = System.nanoTime();
+            if (known.contains(candidate) ? takeOver(candidate) : insert(candidate)) {
+                node = candidate;
+                TimeOrderedIds.assignLeasedNode(candidate, deadline(started));
+                log.info("Leased ID generator node {} as {}", candidate, owner);
+                return;
+            }
+        }
+        throw new IllegalStateException("No free ID generator node, all " + (TimeOrderedIds.MAX_NODE + 1) + " are leased");
+    }
+
+    private boolean insert(int candidate) {
+        try {
+            return jdbcTemplate.update(
+                    "INSERT INTO id_generator_nodes (node_id, owner, heartbeat_at) VALUES (?, ?, CURRENT_TIMESTAMP(3))",
+                    candidate, owner) == 1;
+        } catch (DuplicateKeyException e) {
+            // 同时启动的实例抢先插入了
+            return false;
+        }
+    }
+
+    private boolean takeOver(int candidate) {
+        return jdbcTemplate.update(
+                "UPDATE id_generator_nodes SET owner = ?, heartbeat_at = CURRENT_TIMESTAMP(3) " +
+                        "WHERE node_id = ? AND heartbeat_at < TIMESTAMPADD(SECOND, ?, CURRENT_TIMESTAMP(3))",
+                owner, candidate, -leaseSeconds) == 1;
+    }
+
+    // 从发出续约之前算起，比数据库里的租期短一成
+    private long deadline(long startedNanos) {
+        return startedNanos + TimeUnit.SECONDS.toNanos(leaseSeconds) * 9 / 10;
+    }
+
+    /**
+     * 先分配好节点号再创建 EntityManagerFactory，启动阶段写入实体时就能生成主键。
+     */
+    @Component
+    static class EntityManagerFactoryDependsOnIdNodeLease extends EntityManagerFactoryDependsOnPostProcessor {
+
+        EntityManagerFactoryDependsOnIdNodeLease() {
+            super(IdNodeLease.class);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.demo.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 按时间递增的 id（Snowflake 风格），帖子、评论和关注关系用它代替数据库自增主键。
+ *
+ * 布局从高到低：41 位毫秒时间戳（从 2024-01-01 起，能用到 2093 年）、5 位节点号、7 位序号，一共 53 位。
+ * 不用满 64 位是为了不超过 JavaScript Number 能精确表示的范围，前端继续把 id 当数字用。
+ *
+ * 同一节点每毫秒 128 个，用完了直接借下一毫秒，不等待；时钟回拨时接着上一个时间戳往后发，保证单调递增。
+ * 借出去的时间最多领先真实时间 1 秒，再多就等时钟追上来。节点号由 IdNodeLease 分配，不同实例不会重复。
+ *
+ * id 在 persist 时就能拿到，不用像 IDENTITY 那样立刻执行 INSERT 取回主键，Hibernate 才能把多条 INSERT 攒成一批。
+ */
+public final class TimeOrderedIds {
+
+    private static final int NODE_BITS = 5;
+    private static final int SEQUENCE_BITS = 7;
+    public static final int MAX_NODE = (1 << NODE_BITS) - 1;
+
+    // 2024-01-01T00:00:00Z
+    private static final long EPOCH_MILLIS = 1704067200000L;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final long MAX_DRIFT_MILLIS = 1000;
+
+    // 高位是上次发号用的毫秒数，低 SEQUENCE_BITS 位是序号；序号用完时 +1 自然进位到下一毫秒
+    private static final AtomicLong state = new AtomicLong();
+    private static volatile Assignment assignment;
+
+    private TimeOrderedIds() {
+    }
+
+    /**
+     * 固定节点号，不过期（配置了 id.node-id，或者单机压测）。
+     */
+    public static void assignNode(int node) {
+        assignment = new Assignment(checkNode(node), false, 0);
+    }
+
+    /**
+     * 租来的节点号：本地在 deadlineNanos（System.nanoTime）之后拒绝发号，
+     * 避免租约已经被别的实例接手时还在用同一个节点号。
+     */
+    public static void assignLeasedNode(int node, long deadlineNanos) {
+        assignment = new Assignment(checkNode(node), true, deadlineNanos);
+    }
+
+    public static void unassign() {
+        assignment = null;
+    }
+
+    public static long next() {
+        Assignment current = assignment;
+        if (current == null) {
+            throw new IllegalStateException("ID generator node is not assigned");
+        }
+        if (current.leased() && System.nanoTime() - current.deadlineNanos() > 0) {
+            throw new IllegalStateException("ID generator node lease expired: " + current.node());
+        }
+        while (true) {
+            long now = System.currentTimeMillis() - EPOCH_MILLIS;
+            long prev = state.get();
+            long next = now > prev >>> SEQUENCE_BITS ? now << SEQUENCE_BITS : prev + 1;
+            if ((next >>> SEQUENCE_BITS) - now > MAX_DRIFT_MILLIS) {
+                LockSupport.parkNanos(100_000);
+                continue;
+            }
+            if (state.compareAndSet(prev, next)) {
+                return (next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS)
+                        | (long) current.node() << SEQUENCE_BITS
+                        | next & SEQUENCE_MASK;
+            }
+        }
+    }
+
+    private static int checkNode(int node) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException("ID generator node must be between 0 and " + MAX_NODE + ": " + node);
+        }
+        return node;
+    }
+
+    private record Assignment(int node, boolean leased, long deadlineNanos) {
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.demo.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+
+/**
+ * 给请求线程上拿到的连接套一层代理，按 {@link SqlStats} 统计执行的语句数和 ResultSet 读到的行数。
+ * JPA、JdbcTemplate 都经过这里，所以统计的是真正发到数据库的语句，不管是谁发的。
+ *
+ * 继承 DelegatingDataSource，Hikari 的指标和健康检查还能拆包拿到底下的连接池。
+ */
+public class CountingDataSource extends DelegatingDataSource {
+
+    public CountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private static Connection wrap(Connection connection) {
+        SqlStats stats = SqlStats.current();
+        if (stats == null) {
+            return connection;
+        }
+        return proxy(Connection.class, connection, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            // createStatement / prepareStatement / prepareCall，后两个的第一个参数是 SQL
+            if (result instanceof Statement statement) {
+                return wrapStatement(statement, method.getReturnType(), sqlArgument(args), stats);
+            }
+            return result;
+        });
+    }
+
+    private static Object wrapStatement(Statement statement, Class<?> type, String preparedSql, SqlStats stats) {
+        return proxy(type, statement, (target, method, args) -> {
+            String name = method.getName();
+            Object result;
+            if (name.startsWith("execute")) {
+                // executeBatch 算一条
+                String sql = preparedSql != null ? preparedSql : sqlArgument(args);
+                long start = System.nanoTime();
+                try {
+                    result = invoke(target, method, args);
+                } finally {
+                    stats.statementExecuted(sql, System.nanoTime() - start);
+                }
+            } else {
+                result = invoke(target, method, args);
+            }
+            if (result instanceof ResultSet resultSet) {
+                return wrapResultSet(resultSet, stats);
+            }
+            return result;
+        });
+    }
+
+    private static Object wrapResultSet(ResultSet resultSet, SqlStats stats) {
+        return proxy(ResultSet.class, resultSet, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            if (result == Boolean.TRUE && method.getName().equals("next")) {
+                stats.rowFetched();
+            }
+            return result;
+        });
+    }
+
+    private static String sqlArgument(Object[] args) {
+        return args != null && args.length > 0 && args[0] instanceof String sql ? sql : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<?> type, Object target, Handler handler) {
+        InvocationHandler invocationHandler = (p, method, args) -> switch (method.getName()) {
+            // Hibernate 用 HashMap 登记打开的 Statement / ResultSet，按代理对象本身判等
+            case "equals" -> p == args[0];
+            case "hashCode" -> System.identityHashCode(p);
+            default -> handler.handle(target, method, args);
+        };
+        return (T) Proxy.newProxyInstance(CountingDataSource.class.getClassLoader(), new Class<?>[]{type}, invocationHandler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object handle(Object target, Method method, Object[] args) throws Throwable;
+    }
+}
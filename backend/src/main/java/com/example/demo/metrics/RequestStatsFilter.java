@@ -0,0 +1,144 @@
+package com.example.demo.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按接口统计每个请求执行的 SQL 条数和读到的行数。
+ *
+ * 结果进 Micrometer（http.server.requests.sql.statements / .rows，和 http.server.requests 用一样的
+ * method、uri 标签），也按接口累计在内存里，由 /actuator/sqlstats 查看。
+ * 请求太慢或者 SQL 条数超过阈值时打一条 WARN，带上这次请求的 SQL 统计，N+1 一眼就能看出来。
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@RequiredArgsConstructor
+public class RequestStatsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${request-stats.slow-ms:1000}")
+    private long slowMs;
+
+    // 一个请求超过这么多条 SQL 也当作慢请求记日志
+    @Value("${request-stats.max-statements:50}")
+    private int maxStatements;
+
+    // 记下每条 SQL 原文挂到 request 上，测试里断言 SQL 条数时用；线上不要开
+    @Value("${request-stats.capture-sql:false}")
+    private boolean captureSql;
+
+    private final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStats stats = SqlStats.start(captureSql);
+        request.setAttribute(SqlStats.REQUEST_ATTRIBUTE, stats);
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SqlStats.stop();
+            record(request, response, stats, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 按 SQL 总条数从多到少排好的各接口统计。
+     */
+    public List<EndpointSummary> summaries() {
+        return endpoints.entrySet().stream()
+                .map(e -> e.getValue().summary(e.getKey()))
+                .sorted(Comparator.comparingLong(EndpointSummary::totalStatements).reversed())
+                .toList();
+    }
+
+    public void reset() {
+        endpoints.clear();
+    }
+
+    private void record(HttpServletRequest request, HttpServletResponse response, SqlStats stats, long nanos) {
+        // 和 http.server.requests 的 uri 标签一样用路由模板，不用实际路径，避免标签爆炸
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        String method = request.getMethod();
+
+        DistributionSummary.builder("http.server.requests.sql.statements")
+                .description("SQL statements executed per request")
+                .tags("method", method, "uri", uri)
+                .register(meterRegistry)
+                .record(stats.statements());
+        DistributionSummary.builder("http.server.requests.sql.rows")
+                .description("JDBC rows fetched per request")
+                .tags("method", method, "uri", uri)
+                .register(meterRegistry)
+                .record(stats.rows());
+
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(nanos);
+        boolean slow = durationMs >= slowMs || stats.statements() >= maxStatements;
+        endpoints.computeIfAbsent(method + " " + uri, k -> new EndpointStats()).add(stats, slow);
+        if (slow) {
+            log.warn("Slow request {} {} -> {} in {} ms: {} SQL statements, {} rows, {} ms in SQL",
+                    method, request.getRequestURI(), response.getStatus(), durationMs,
+                    stats.statements(), stats.rows(), TimeUnit.NANOSECONDS.toMillis(stats.sqlNanos()));
+        }
+    }
+
+    public record EndpointSummary(String endpoint, long requests, long slowRequests,
+                                  long totalStatements, double avgStatements, long maxStatements,
+                                  double avgRows, long maxRows, double avgSqlMs) {
+    }
+
+    private static final class EndpointStats {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder slow = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder sqlNanos = new LongAdder();
+        private final AtomicLong maxStatements = new AtomicLong();
+        private final AtomicLong maxRows = new AtomicLong();
+
+        void add(SqlStats stats, boolean isSlow) {
+            requests.increment();
+            if (isSlow) {
+                slow.increment();
+            }
+            statements.add(stats.statements());
+            rows.add(stats.rows());
+            sqlNanos.add(stats.sqlNanos());
+            maxStatements.accumulateAndGet(stats.statements(), Math::max);
+            maxRows.accumulateAndGet(stats.rows(), Math::max);
+        }
+
+        EndpointSummary summary(String endpoint) {
+            long n = Math.max(requests.sum(), 1);
+            return new EndpointSummary(endpoint, requests.sum(), slow.sum(),
+                    statements.sum(), (double) statements.sum() / n, maxStatements.get(),
+                    (double) rows.sum() / n, maxRows.get(),
+                    sqlNanos.sum() / 1e6 / n);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.demo.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 一次请求里执行的 SQL 条数、读到的行数和花在 SQL 上的时间。
+ *
+ * {@link RequestStatsFilter} 在请求开始时挂到当前线程上，{@link CountingDataSource}
+ * 在这个线程拿连接时把它记下来，之后这条连接上的语句都算在这次请求头上。
+ * 定时任务等不在请求里的线程没有 SqlStats，连接也不会被包装。
+ * 请求结束后以 {@link #REQUEST_ATTRIBUTE} 留在 request 上，测试里可以据此断言 SQL 条数。
+ */
+public final class SqlStats {
+
+    public static final String REQUEST_ATTRIBUTE = SqlStats.class.getName();
+
+    // 记录 SQL 原文时最多保留多少条
+    private static final int MAX_CAPTURED = 1000;
+
+    private static final ThreadLocal<SqlStats> CURRENT = new ThreadLocal<>();
+
+    // 同一个请求只在一个线程上处理，这些字段不需要同步
+    private int statements;
+    private long rows;
+    private long sqlNanos;
+    // 只有要求记录 SQL 原文时才不为 null
+    private final List<String> sql;
+
+    private SqlStats(boolean captureSql) {
+        this.sql = captureSql ? new ArrayList<>() : null;
+    }
+
+    static SqlStats start(boolean captureSql) {
+        SqlStats stats = new SqlStats(captureSql);
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void stop() {
+        CURRENT.remove();
+    }
+
+    static SqlStats current() {
+        return CURRENT.get();
+    }
+
+    void statementExecuted(String statement, long nanos) {
+        statements++;
+        sqlNanos += nanos;
+        if (sql != null && sql.size() < MAX_CAPTURED) {
+            sql.add(statement);
+        }
+    }
+
+    void rowFetched() {
+        rows++;
+    }
+
+    public int statements() {
+        return statements;
+    }
+
+    public long rows() {
+        return rows;
+    }
+
+    public long sqlNanos() {
+        return sqlNanos;
+    }
+
+    /**
+     * 按执行顺序的 SQL 原文，没开记录时为空。
+     */
+    public List<String> sql() {
+        return sql != null ? Collections.unmodifiableList(sql) : List.of();
+    }
+}
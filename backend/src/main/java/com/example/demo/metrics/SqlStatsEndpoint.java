@@ -0,0 +1,30 @@
+package com.example.demo.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * /actuator/sqlstats：各接口平均 / 最多执行多少条 SQL、读多少行。DELETE 清零，方便改完代码后重新观察。
+ */
+@Component
+@Endpoint(id = "sqlstats")
+@RequiredArgsConstructor
+public class SqlStatsEndpoint {
+
+    private final RequestStatsFilter requestStatsFilter;
+
+    @ReadOperation
+    public List<RequestStatsFilter.EndpointSummary> sqlStats() {
+        return requestStatsFilter.summaries();
+    }
+
+    @DeleteOperation
+    public void reset() {
+        requestStatsFilter.reset();
+    }
+}
@@ -1,9 +1,11 @@
 package com.example.demo.model;
 
+import com.example.demo.id.TimeOrderedId;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
@@ -19,7 +21,7 @@ import java.time.LocalDateTime;
 public class Comment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TimeOrderedId
     private Long id;
 
     @Column(nullable = false, length = 500)
@@ -33,6 +35,15 @@ public class Comment {
     @JoinColumn(name = "post_id", nullable = false)
     private Post post;
 
+    // 回复所属的顶层评论；顶层评论为 null。只有一层，回复的回复也挂在顶层评论下
+    @Column(name = "parent_id")
+    private Long parentId;
+
+    // 顶层评论下的回复数，只通过 CommentRepository 里的原子增减语句写入
+    @ColumnDefault("0")
+    @Column(name = "reply_count", nullable = false, insertable = false, updatable = false)
+    private int replyCount;
+
     @CreationTimestamp
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -0,0 +1,34 @@
+package com.example.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 冗余存储在 posts.recent_comments 里的评论快照，渲染 feed 时不需要再查 comments 表。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CommentSnapshot {
+    private Long id;
+    private String content;
+    private LocalDateTime createdAt;
+    private Long userId;
+    private String userName;
+    private String userEmail;
+
+    public static CommentSnapshot of(Comment comment) {
+        User user = comment.getUser();
+        return new CommentSnapshot(
+                comment.getId(),
+                comment.getContent(),
+                comment.getCreatedAt(),
+                user != null ? user.getId() : null,
+                user != null ? user.getName() : null,
+                user != null ? user.getEmail() : null
+        );
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * 后台删除任务：一个用户或一个帖子连同它的关联数据，由 DeletionJobService 分批删掉。
+ * 每批删完就提交并累加 deletedRows，重启后未完成的任务接着删。
+ */
+@Entity
+@Table(name = "deletion_jobs", uniqueConstraints = @UniqueConstraint(columnNames = {"target_type", "target_id"}))
+@Data
+@NoArgsConstructor
+public class DeletionJob {
+
+    public enum TargetType {USER, POST}
+
+    public enum Status {PENDING, RUNNING, DONE, FAILED}
+
+    // 当前在删哪一类数据，只用于展示进度
+    public enum Phase {POSTS, COMMENTS, FOLLOWS, TARGET}
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "target_type", nullable = false, length = 20)
+    private TargetType targetType;
+
+    @Column(name = "target_id", nullable = false)
+    private Long targetId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.PENDING;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private Phase phase;
+
+    @ColumnDefault("0")
+    @Column(name = "deleted_rows", nullable = false)
+    private long deletedRows;
+
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime finishedAt;
+
+    public DeletionJob(TargetType targetType, Long targetId) {
+        this.targetType = targetType;
+        this.targetId = targetId;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 热门账号粉丝数的分片计数。关注请求随机落到其中一行，
+ * 并发关注不会都排队等 users 表上同一行的锁。总数 = users.follower_count + 各分片之和。
+ */
+@Entity
+@Table(name = "user_follower_count_shards")
+@IdClass(FollowerCountShard.Key.class)
+@Data
+@NoArgsConstructor
+public class FollowerCountShard {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    private Integer shard;
+
+    @Column(name = "follower_count", nullable = false)
+    private long followerCount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long userId;
+        private Integer shard;
+    }
+}
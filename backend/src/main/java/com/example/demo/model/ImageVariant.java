@@ -0,0 +1,40 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * 上传图片生成的缩略图 / feed 宽度版本，按原图 URL 关联。
+ * 帖子或头像引用原图时，从这里拿衍生图地址。
+ */
+@Entity
+@Table(name = "image_variants")
+@Data
+@NoArgsConstructor
+public class ImageVariant {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "original_url", nullable = false, unique = true)
+    private String originalUrl;
+
+    @Column(name = "thumbnail_url", nullable = false)
+    private String thumbnailUrl;
+
+    @Column(name = "feed_url", nullable = false)
+    private String feedUrl;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    public ImageVariant(String originalUrl, String thumbnailUrl, String feedUrl) {
+        this.originalUrl = originalUrl;
+        this.thumbnailUrl = thumbnailUrl;
+        this.feedUrl = feedUrl;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(
+        name = "player_scores",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "game_type"})
+)
+@Data
+@NoArgsConstructor
+public class PlayerScore {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "game_type", nullable = false)
+    private GameType gameType;
+
+    @Column(nullable = false)
+    private long score;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+
+    public PlayerScore(Long userId, GameType gameType) {
+        this.userId = userId;
+        this.gameType = gameType;
+    }
+}
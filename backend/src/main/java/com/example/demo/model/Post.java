@@ -1,5 +1,7 @@
 package com.example.demo.model;
 
+import com.example.demo.id.TimeOrderedId;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.*;
@@ -19,7 +21,7 @@ import java.util.List;
 public class Post {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TimeOrderedId
     private Long id;
 
     @Column(nullable = false, length = 1000)
@@ -27,6 +29,13 @@ public class Post {
 
     private String imageUrl;
 
+    // 后台生成的衍生图，生成完之前为 null，前端回退到 imageUrl
+    @Column(name = "thumbnail_url")
+    private String thumbnailUrl;
+
+    @Column(name = "feed_image_url")
+    private String feedImageUrl;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     @JsonIgnoreProperties({"hibernateLazyInitializer", "handler", "password"})
@@ -55,14 +64,24 @@ public class Post {
     }
 
     // 在 Post 类中添加
-    @OneToMany(mappedBy = "post", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "post", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @OrderBy("createdAt DESC") // 按创建时间降序排序
+    @JsonIgnore
     private List<Comment> comments = new ArrayList<>();
 
-    // 辅助方法，获取评论数量
-    public int getCommentCount() {
-        return comments.size();
-    }
+    // 冗余的评论数，由 CommentService 在增删评论时维护
+    @Column(name = "comment_count", nullable = false)
+    private int commentCount = 0;
+
+    // 最近 3 条评论的快照，null 表示还没有生成
+    @Convert(converter = RecentCommentsConverter.class)
+    @Column(name = "recent_comments", columnDefinition = "TEXT")
+    private List<CommentSnapshot> recentComments;
+
+    // 不为 null 表示已提交删除，后台任务还在清理评论；只由 PostRepository.markDeleted 写入
+    @JsonIgnore
+    @Column(name = "deleted_at", insertable = false, updatable = false)
+    private LocalDateTime deletedAt;
 
     // 辅助方法，添加评论
     public void addComment(Comment comment) {
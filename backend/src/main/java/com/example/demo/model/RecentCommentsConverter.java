@@ -0,0 +1,49 @@
+package com.example.demo.model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.List;
+
+/**
+ * posts.recent_comments 列 <-> List<CommentSnapshot>，以 JSON 文本存储。
+ */
+@Converter
+public class RecentCommentsConverter implements AttributeConverter<List<CommentSnapshot>, String> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private static final TypeReference<List<CommentSnapshot>> TYPE = new TypeReference<>() {};
+
+    @Override
+    public String convertToDatabaseColumn(List<CommentSnapshot> snapshots) {
+        if (snapshots == null) {
+            return null;
+        }
+        try {
+            return MAPPER.writeValueAsString(snapshots);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize recent comments", e);
+        }
+    }
+
+    @Override
+    public List<CommentSnapshot> convertToEntityAttribute(String json) {
+        if (json == null || json.isBlank()) {
+            return null;
+        }
+        try {
+            return MAPPER.readValue(json, TYPE);
+        } catch (JsonProcessingException e) {
+            // 快照损坏时当作没有快照，读取时会回退到查询 comments 表
+            return null;
+        }
+    }
+}
@@ -3,7 +3,11 @@ package com.example.demo.model;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "users")
@@ -24,6 +28,10 @@ public class User {
     private String name;
     private String avatar;
 
+    // 头像缩略图，由后台任务生成
+    @Column(name = "avatar_thumbnail_url")
+    private String avatarThumbnailUrl;
+
     @Column
     private String provider; // "local" or "google"
     
@@ -32,4 +40,18 @@ public class User {
 
     @Column(name = "is_admin", nullable = false)
     private Boolean isAdmin = false; // 新增字段，默认 false
+
+    // 只通过 UserRepository 里的原子增减语句写入，实体保存时不覆盖
+    @ColumnDefault("0")
+    @Column(name = "follower_count", nullable = false, insertable = false, updatable = false)
+    private long followerCount;
+
+    @ColumnDefault("0")
+    @Column(name = "following_count", nullable = false, insertable = false, updatable = false)
+    private long followingCount;
+
+    // 不为 null 表示已提交删除，后台任务还在清理它的数据；只由 UserRepository.markDeleted 写入
+    @JsonIgnore
+    @Column(name = "deleted_at", insertable = false, updatable = false)
+    private LocalDateTime deletedAt;
 }
\ No newline at end of file
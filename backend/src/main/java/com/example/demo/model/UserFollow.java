@@ -1,5 +1,6 @@
 package com.example.demo.model;
 
+import com.example.demo.id.TimeOrderedId;
 import jakarta.persistence.*;
 import lombok.Data;
 
@@ -14,7 +15,7 @@ import java.time.LocalDateTime;
 public class UserFollow {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TimeOrderedId
     private Long id;
 
     // 谁关注了别人
@@ -1,9 +1,14 @@
 package com.example.demo.repository;
 
 import com.example.demo.model.Comment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -11,4 +16,75 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
     List<Comment> findByPostId(Long postId);
     List<Comment> findByUserId(Long userId);
     List<Comment> findByPostIdOrderByCreatedAtDesc(Long postId);
-}
\ No newline at end of file
+
+    // 读评论的查询都跳过已提交删除的用户，后台任务删完之前就看不到
+    @Query("SELECT c FROM Comment c JOIN FETCH c.user u WHERE u.deletedAt IS NULL AND c.post.id = :postId ORDER BY c.createdAt DESC, c.id DESC")
+    List<Comment> findRecentByPostId(@Param("postId") Long postId, Pageable pageable);
+
+    // 一次取出一页帖子各自最新的 N 条评论（ROW_NUMBER 按 post_id 分区）
+    // 列顺序：id, content, created_at, post_id, user_id, user_name, user_email
+    @Query(value = "SELECT t.id, t.content, t.created_at, t.post_id, t.user_id, t.user_name, t.user_email FROM (" +
+            "SELECT c.id, c.content, c.created_at, c.post_id, u.id AS user_id, u.name AS user_name, u.email AS user_email, " +
+            "ROW_NUMBER() OVER (PARTITION BY c.post_id ORDER BY c.created_at DESC, c.id DESC) AS rn " +
+            "FROM comments c JOIN users u ON u.id = c.user_id WHERE c.post_id IN (:postIds) AND u.deleted_at IS NULL) t " +
+            "WHERE t.rn <= :perPost ORDER BY t.post_id, t.rn",
+            nativeQuery = true)
+    List<Object[]> findRecentForPosts(@Param("postIds") List<Long> postIds, @Param("perPost") int perPost);
+
+    // 顶层评论 keyset 分页，最新的在前
+    @Query("SELECT c FROM Comment c JOIN FETCH c.user u WHERE u.deletedAt IS NULL AND c.post.id = :postId AND c.parentId IS NULL " +
+            "ORDER BY c.createdAt DESC, c.id DESC")
+    List<Comment> findTopLevelFirstPage(@Param("postId") Long postId, Pageable pageable);
+
+    @Query("SELECT c FROM Comment c JOIN FETCH c.user u WHERE u.deletedAt IS NULL AND c.post.id = :postId AND c.parentId IS NULL " +
+            "AND (c.createdAt < :createdAt OR (c.createdAt = :createdAt AND c.id < :id)) " +
+            "ORDER BY c.createdAt DESC, c.id DESC")
+    List<Comment> findTopLevelAfter(@Param("postId") Long postId,
+                                    @Param("createdAt") LocalDateTime createdAt,
+                                    @Param("id") Long id,
+                                    Pageable pageable);
+
+    // 回复按时间正序分页
+    @Query("SELECT c FROM Comment c JOIN FETCH c.user u WHERE u.deletedAt IS NULL AND c.parentId = :parentId ORDER BY c.createdAt ASC, c.id ASC")
+    List<Comment> findRepliesFirstPage(@Param("parentId") Long parentId, Pageable pageable);
+
+    @Query("SELECT c FROM Comment c JOIN FETCH c.user u WHERE u.deletedAt IS NULL AND c.parentId = :parentId " +
+            "AND (c.createdAt > :createdAt OR (c.createdAt = :createdAt AND c.id > :id)) " +
+            "ORDER BY c.createdAt ASC, c.id ASC")
+    List<Comment> findRepliesAfter(@Param("parentId") Long parentId,
+                                   @Param("createdAt") LocalDateTime createdAt,
+                                   @Param("id") Long id,
+                                   Pageable pageable);
+
+    // 一页顶层评论各自最早的 N 条回复的 id（ROW_NUMBER 按 parent_id 分区）
+    @Query(value = "SELECT t.id FROM (" +
+            "SELECT c.id, ROW_NUMBER() OVER (PARTITION BY c.parent_id ORDER BY c.created_at, c.id) AS rn " +
+            "FROM comments c WHERE c.parent_id IN (:parentIds)) t WHERE t.rn <= :perParent",
+            nativeQuery = true)
+    List<Number> findFirstReplyIds(@Param("parentIds") List<Long> parentIds, @Param("perParent") int perParent);
+
+    @Query("SELECT c FROM Comment c JOIN FETCH c.user u WHERE u.deletedAt IS NULL AND c.id IN :ids ORDER BY c.createdAt ASC, c.id ASC")
+    List<Comment> findWithUserByIdIn(@Param("ids") List<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Comment c SET c.replyCount = c.replyCount + :delta WHERE c.id = :id")
+    int incrementReplyCount(@Param("id") Long id, @Param("delta") int delta);
+
+    @Query("SELECT c.id FROM Comment c WHERE c.parentId = :parentId")
+    List<Long> findIdsByParentId(@Param("parentId") Long parentId);
+
+    @Modifying
+    @Query("DELETE FROM Comment c WHERE c.parentId = :parentId")
+    int deleteByParentId(@Param("parentId") Long parentId);
+
+    // ---- 搜索索引加载，列顺序：id, content, user_id, post_id ----
+
+    @Query("SELECT c.id, c.content, c.user.id, c.post.id FROM Comment c WHERE c.id > :afterId ORDER BY c.id")
+    List<Object[]> findSearchRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT c.id, c.content, c.user.id, c.post.id FROM Comment c " +
+            "WHERE c.updatedAt >= :since AND c.id > :afterId ORDER BY c.id")
+    List<Object[]> findSearchRowsUpdatedSince(@Param("since") LocalDateTime since,
+                                              @Param("afterId") Long afterId,
+                                              Pageable pageable);
+}
@@ -0,0 +1,38 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.DeletionJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface DeletionJobRepository extends JpaRepository<DeletionJob, Long> {
+
+    Optional<DeletionJob> findByTargetTypeAndTargetId(DeletionJob.TargetType targetType, Long targetId);
+
+    List<DeletionJob> findByStatusInOrderByIdAsc(Collection<DeletionJob.Status> statuses);
+
+    // 和这一批删除在同一个事务里累加进度，失败次数清零
+    @Modifying
+    @Query("UPDATE DeletionJob j SET j.status = :status, j.phase = :phase, j.deletedRows = j.deletedRows + :rows, " +
+            "j.attempts = 0, j.updatedAt = CURRENT_TIMESTAMP WHERE j.id = :id")
+    int recordProgress(@Param("id") Long id, @Param("status") DeletionJob.Status status,
+                       @Param("phase") DeletionJob.Phase phase, @Param("rows") long rows);
+
+    @Modifying
+    @Query("UPDATE DeletionJob j SET j.status = :status, j.lastError = NULL, j.finishedAt = :now, j.updatedAt = :now " +
+            "WHERE j.id = :id")
+    int markFinished(@Param("id") Long id, @Param("status") DeletionJob.Status status, @Param("now") LocalDateTime now);
+
+    // 失败次数到上限后改成 failedStatus，否则保持原状态等下次重试
+    @Modifying
+    @Query("UPDATE DeletionJob j SET j.attempts = j.attempts + 1, j.lastError = :error, j.updatedAt = CURRENT_TIMESTAMP, " +
+            "j.status = CASE WHEN j.attempts + 1 >= :maxAttempts THEN :failedStatus ELSE j.status END WHERE j.id = :id")
+    int recordFailure(@Param("id") Long id, @Param("error") String error, @Param("maxAttempts") int maxAttempts,
+                      @Param("failedStatus") DeletionJob.Status failedStatus);
+}
@@ -0,0 +1,20 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.FollowerCountShard;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface FollowerCountShardRepository extends JpaRepository<FollowerCountShard, FollowerCountShard.Key> {
+
+    // 单条语句完成“没有就插入、有就累加”，不需要先读
+    @Modifying
+    @Query(value = "INSERT INTO user_follower_count_shards (user_id, shard, follower_count) " +
+            "VALUES (:userId, :shard, :delta) " +
+            "ON DUPLICATE KEY UPDATE follower_count = follower_count + :delta", nativeQuery = true)
+    int increment(@Param("userId") Long userId, @Param("shard") int shard, @Param("delta") long delta);
+
+    @Query("SELECT COALESCE(SUM(s.followerCount), 0) FROM FollowerCountShard s WHERE s.userId = :userId")
+    long sumByUserId(@Param("userId") Long userId);
+}
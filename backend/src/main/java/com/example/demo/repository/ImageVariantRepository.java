@@ -0,0 +1,12 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.ImageVariant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ImageVariantRepository extends JpaRepository<ImageVariant, Long> {
+    Optional<ImageVariant> findByOriginalUrl(String originalUrl);
+}
@@ -0,0 +1,30 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.GameType;
+import com.example.demo.model.PlayerScore;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface PlayerScoreRepository extends JpaRepository<PlayerScore, Long> {
+
+    // 第一次提交和更新都是这一条语句；同一行的并发提交在行锁上排队，不会撞唯一约束
+    @Modifying
+    @Query(value = "INSERT INTO player_scores (user_id, game_type, score, updated_at) " +
+            "VALUES (:userId, :gameType, :score, CURRENT_TIMESTAMP) " +
+            "ON DUPLICATE KEY UPDATE score = :score, updated_at = CURRENT_TIMESTAMP", nativeQuery = true)
+    int upsert(@Param("userId") Long userId, @Param("gameType") String gameType, @Param("score") long score);
+
+    // 只取分数，不经过持久化上下文里可能已经过时的实体
+    @Query("SELECT s.score FROM PlayerScore s WHERE s.userId = :userId AND s.gameType = :gameType")
+    Optional<Long> findScore(@Param("userId") Long userId, @Param("gameType") GameType gameType);
+
+    // 启动时按主键分批加载排行榜
+    @Query("SELECT s FROM PlayerScore s WHERE s.id > :afterId ORDER BY s.id")
+    List<PlayerScore> findBatchAfter(@Param("afterId") Long afterId, Pageable pageable);
+}
@@ -0,0 +1,61 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.CommentSnapshot;
+import com.example.demo.model.GameType;
+import com.example.demo.model.Post;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Feed 用的扁平投影：帖子 + 作者 + 段位，一条 SQL 查出来，不经过实体关联的懒加载。
+ */
+public record PostFeedRow(
+        Long id,
+        String content,
+        String imageUrl,
+        String thumbnailUrl,
+        String feedImageUrl,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        GameType gameType,
+        Long userId,
+        String userName,
+        String userEmail,
+        String userAvatar,
+        String userAvatarThumbnailUrl,
+        Long rankingId,
+        GameType rankingGameType,
+        String rankingName,
+        Integer rankingScore,
+        int commentCount,
+        List<CommentSnapshot> recentComments
+) {
+
+    // 已经在内存里的实体（比如刚创建的帖子）直接转换，不再查询
+    public static PostFeedRow of(Post post) {
+        boolean hasUser = post.getUser() != null;
+        boolean hasRanking = post.getGameRanking() != null;
+        return new PostFeedRow(
+                post.getId(),
+                post.getContent(),
+                post.getImageUrl(),
+                post.getThumbnailUrl(),
+                post.getFeedImageUrl(),
+                post.getCreatedAt(),
+                post.getUpdatedAt(),
+                post.getGameType(),
+                hasUser ? post.getUser().getId() : null,
+                hasUser ? post.getUser().getName() : null,
+                hasUser ? post.getUser().getEmail() : null,
+                hasUser ? post.getUser().getAvatar() : null,
+                hasUser ? post.getUser().getAvatarThumbnailUrl() : null,
+                hasRanking ? post.getGameRanking().getId() : null,
+                hasRanking ? post.getGameRanking().getGameType() : null,
+                hasRanking ? post.getGameRanking().getRankingName() : null,
+                hasRanking ? post.getGameRanking().getRankingScore() : null,
+                post.getCommentCount(),
+                post.getRecentComments()
+        );
+    }
+}
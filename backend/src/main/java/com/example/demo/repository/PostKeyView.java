@@ -0,0 +1,12 @@
+package com.example.demo.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * 只包含排序键和作者的轻量投影，用于构建时间线，不加载帖子内容。
+ */
+public interface PostKeyView {
+    Long getId();
+    LocalDateTime getCreatedAt();
+    Long getUserId();
+}
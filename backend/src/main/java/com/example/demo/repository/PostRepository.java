@@ -1,20 +1,117 @@
 package com.example.demo.repository;
 
+import com.example.demo.model.CommentSnapshot;
 import com.example.demo.model.Post;
 import com.example.demo.model.GameType;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface PostRepository extends JpaRepository<Post, Long> {
     List<Post> findByUserId(Long userId);  // Fetch posts by user
     List<Post> findAllByOrderByCreatedAtDesc();
     List<Post> findByGameTypeOrderByCreatedAtDesc(GameType gameType);
-    @Query("SELECT p FROM Post p LEFT JOIN FETCH p.comments c LEFT JOIN FETCH p.user ORDER BY p.createdAt DESC")
-    List<Post> findAllWithCommentsOrderByCreatedAtDesc();
     List<Post> findByUserIdInOrderByCreatedAtDesc(List<Long> userIds);
 
+    // Feed 投影：帖子 + 作者 + 段位，一次查询
+    String FEED_ROW_SELECT = "SELECT new com.example.demo.repository.PostFeedRow(" +
+            "p.id, p.content, p.imageUrl, p.thumbnailUrl, p.feedImageUrl, p.createdAt, p.updatedAt, p.gameType, " +
+            "u.id, u.name, u.email, u.avatar, u.avatarThumbnailUrl, " +
+            "r.id, r.gameType, r.rankingName, r.rankingScore, " +
+            "p.commentCount, p.recentComments) " +
+            "FROM Post p LEFT JOIN p.user u LEFT JOIN p.gameRanking r ";
+
+    String AFTER_CURSOR = "(p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) ";
+
+    String NEWEST_FIRST = "ORDER BY p.createdAt DESC, p.id DESC";
+
+    // 已提交删除的帖子、已提交删除的用户的帖子，在后台任务删完之前就不再出现
+    String VISIBLE = "p.deletedAt IS NULL AND u.deletedAt IS NULL ";
+
+    // ---- Keyset 分页：按 (createdAt, id) 倒序，游标之后的数据 ----
+
+    @Query(FEED_ROW_SELECT + "WHERE " + VISIBLE + NEWEST_FIRST)
+    List<PostFeedRow> findFeedFirstPage(Pageable pageable);
+
+    @Query(FEED_ROW_SELECT + "WHERE " + VISIBLE + "AND " + AFTER_CURSOR + NEWEST_FIRST)
+    List<PostFeedRow> findFeedAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    @Query(FEED_ROW_SELECT + "WHERE p.user.id = :userId AND " + VISIBLE + NEWEST_FIRST)
+    List<PostFeedRow> findUserFeedFirstPage(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(FEED_ROW_SELECT + "WHERE p.user.id = :userId AND " + VISIBLE + "AND " + AFTER_CURSOR + NEWEST_FIRST)
+    List<PostFeedRow> findUserFeedAfter(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt,
+                                        @Param("id") Long id, Pageable pageable);
+
+    @Query(FEED_ROW_SELECT + "WHERE p.gameType = :gameType AND " + VISIBLE + NEWEST_FIRST)
+    List<PostFeedRow> findGameFeedFirstPage(@Param("gameType") GameType gameType, Pageable pageable);
+
+    @Query(FEED_ROW_SELECT + "WHERE p.gameType = :gameType AND " + VISIBLE + "AND " + AFTER_CURSOR + NEWEST_FIRST)
+    List<PostFeedRow> findGameFeedAfter(@Param("gameType") GameType gameType, @Param("createdAt") LocalDateTime createdAt,
+                                        @Param("id") Long id, Pageable pageable);
+
+    @Query(FEED_ROW_SELECT + "WHERE p.id IN :ids AND " + VISIBLE)
+    List<PostFeedRow> findFeedRowsByIdIn(@Param("ids") List<Long> ids);
+
+    // ---- 时间线：只取 (id, createdAt, userId) ----
+
+    @Query("SELECT p.id AS id, p.createdAt AS createdAt, p.user.id AS userId FROM Post p " +
+            "WHERE p.user.id IN :userIds " + NEWEST_FIRST)
+    List<PostKeyView> findPostKeysByUserIds(@Param("userIds") List<Long> userIds, Pageable pageable);
+
+    @Query("SELECT p.id AS id, p.createdAt AS createdAt, p.user.id AS userId FROM Post p " +
+            "WHERE p.user.id IN :userIds AND " + AFTER_CURSOR + NEWEST_FIRST)
+    List<PostKeyView> findPostKeysByUserIdsAfter(@Param("userIds") List<Long> userIds,
+                                                 @Param("createdAt") LocalDateTime createdAt,
+                                                 @Param("id") Long id, Pageable pageable);
+
+    // ---- 评论汇总（comment_count / recent_comments） ----
+
+    // 锁住帖子行，同一帖子的评论写入串行化，保证快照和计数一致
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Post p WHERE p.id = :id")
+    Optional<Post> findByIdForUpdate(@Param("id") Long id);
+
+    // 显式写回 updatedAt，避免 MySQL 的 ON UPDATE CURRENT_TIMESTAMP 把评论变化当成帖子编辑
+    @Modifying
+    @Query("UPDATE Post p SET p.commentCount = p.commentCount + :delta, p.recentComments = :recentComments, " +
+            "p.updatedAt = p.updatedAt WHERE p.id = :id")
+    int updateCommentSummary(@Param("id") Long id, @Param("delta") int delta,
+                             @Param("recentComments") List<CommentSnapshot> recentComments);
+
+    @Modifying
+    @Query("UPDATE Post p SET p.deletedAt = :now, p.updatedAt = p.updatedAt WHERE p.id = :id AND p.deletedAt IS NULL")
+    int markDeleted(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // ---- 衍生图回写 ----
+
+    // 同一张图可能被多个帖子引用，按原图 URL 一次更新
+    @Modifying
+    @Query("UPDATE Post p SET p.thumbnailUrl = :thumbnailUrl, p.feedImageUrl = :feedImageUrl, " +
+            "p.updatedAt = p.updatedAt WHERE p.imageUrl = :imageUrl")
+    int updateImageVariants(@Param("imageUrl") String imageUrl,
+                            @Param("thumbnailUrl") String thumbnailUrl,
+                            @Param("feedImageUrl") String feedImageUrl);
+
+    // ---- 搜索索引加载：只取建索引需要的列，按主键 keyset 分批 ----
+    // 列顺序：id, content, user_id, game_type
+
+    @Query("SELECT p.id, p.content, p.user.id, p.gameType FROM Post p WHERE p.id > :afterId ORDER BY p.id")
+    List<Object[]> findSearchRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT p.id, p.content, p.user.id, p.gameType FROM Post p " +
+            "WHERE p.updatedAt >= :since AND p.id > :afterId ORDER BY p.id")
+    List<Object[]> findSearchRowsUpdatedSince(@Param("since") LocalDateTime since,
+                                              @Param("afterId") Long afterId,
+                                              Pageable pageable);
 }
@@ -1,6 +1,7 @@
 package com.example.demo.repository;
 
 import com.example.demo.model.UserFollow;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import org.springframework.data.jpa.repository.Query;
@@ -13,8 +14,8 @@ public interface UserFollowRepository extends JpaRepository<UserFollow, Long> {
     // 查询是否已关注
     boolean existsByFollowerIdAndFollowingId(Long followerId, Long followingId);
 
-    // 删除关注关系（取消关注）
-    void deleteByFollowerIdAndFollowingId(Long followerId, Long followingId);
+    // 删除关注关系（取消关注），返回删除的行数
+    long deleteByFollowerIdAndFollowingId(Long followerId, Long followingId);
 
     // 统计粉丝数量
     long countByFollowingId(Long followingId);
@@ -25,4 +26,8 @@ public interface UserFollowRepository extends JpaRepository<UserFollow, Long> {
     @Query("SELECT f.followingId FROM UserFollow f WHERE f.followerId = :followerId")
     List<Long> findFollowingIdsByFollowerId(Long followerId);
 
+    // FollowGraph 启动加载用：按主键分批读 (id, followerId, followingId)
+    @Query("SELECT f.id, f.followerId, f.followingId FROM UserFollow f WHERE f.id > :afterId ORDER BY f.id")
+    List<Object[]> findEdgesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
 }
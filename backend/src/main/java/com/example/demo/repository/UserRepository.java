@@ -1,9 +1,13 @@
 package com.example.demo.repository;
 
 import com.example.demo.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,4 +24,46 @@ public interface UserRepository extends JpaRepository<User, Long> {
     // ✅ 获取关注当前用户的所有用户（Followers）
     @Query("SELECT u FROM User u WHERE u.id IN (SELECT f.followerId FROM UserFollow f WHERE f.followingId = :userId)")
     List<User> findUsersByFollowingId(Long userId);
+
+    // 头像缩略图生成完后按原图 URL 回写
+    @Modifying
+    @Query("UPDATE User u SET u.avatarThumbnailUrl = :thumbnailUrl WHERE u.avatar = :avatar")
+    int updateAvatarThumbnail(@Param("avatar") String avatar, @Param("thumbnailUrl") String thumbnailUrl);
+
+    @Query("SELECT u.id FROM User u WHERE u.avatar = :avatar")
+    List<Long> findIdsByAvatar(@Param("avatar") String avatar);
+
+    // ---- 关注计数 ----
+
+    // 原子增减，不做读-改-写
+    @Modifying
+    @Query("UPDATE User u SET u.followerCount = u.followerCount + :delta WHERE u.id = :id")
+    int incrementFollowerCount(@Param("id") Long id, @Param("delta") long delta);
+
+    @Modifying
+    @Query("UPDATE User u SET u.followingCount = u.followingCount + :delta WHERE u.id = :id")
+    int incrementFollowingCount(@Param("id") Long id, @Param("delta") long delta);
+
+    @Query("SELECT u.id FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE User u SET u.deletedAt = :now WHERE u.id = :id AND u.deletedAt IS NULL")
+    int markDeleted(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // 存储的计数和 user_followers 实际行数对不上的用户
+    @Query(value = "SELECT u.id FROM users u WHERE u.id IN (:ids) AND (" +
+            "u.following_count <> (SELECT COUNT(*) FROM user_followers f WHERE f.follower_id = u.id) OR " +
+            "u.follower_count + (SELECT COALESCE(SUM(s.follower_count), 0) FROM user_follower_count_shards s WHERE s.user_id = u.id) " +
+            "<> (SELECT COUNT(*) FROM user_followers f WHERE f.following_id = u.id))", nativeQuery = true)
+    List<Long> findIdsWithFollowCountDrift(@Param("ids") List<Long> ids);
+
+    // 分片保持不动，users.follower_count 取“实际数 - 分片之和”
+    @Modifying
+    @Query(value = "UPDATE users u SET " +
+            "following_count = (SELECT COUNT(*) FROM user_followers f WHERE f.follower_id = u.id), " +
+            "follower_count = (SELECT COUNT(*) FROM user_followers f WHERE f.following_id = u.id) " +
+            "- (SELECT COALESCE(SUM(s.follower_count), 0) FROM user_follower_count_shards s WHERE s.user_id = u.id) " +
+            "WHERE u.id IN (:ids)", nativeQuery = true)
+    int recomputeFollowCounts(@Param("ids") List<Long> ids);
 }
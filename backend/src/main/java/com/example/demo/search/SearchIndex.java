@@ -0,0 +1,437 @@
+package com.example.demo.search;
+
+import com.example.demo.cache.LongObjectHashMap;
+import com.example.demo.model.GameType;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 帖子和评论内容的倒排索引，按 BM25 打分。
+ *
+ * 文档号按写入顺序递增，每个词的倒排表天然按文档号有序，查询时多个词的倒排表按文档号归并。
+ * 更新 = 旧文档打删除标记 + 追加新文档；删除标记积累到一定比例时整体压缩一次。
+ * 评论不单独存 GameType，查询时取所属帖子的文档：帖子被删（或还没进索引）时它的评论也一起不可见。
+ * 读写用读写锁保护，可以多线程直接使用。
+ */
+public final class SearchIndex {
+
+    public enum Kind { POST, COMMENT }
+
+    private static final Kind[] KINDS = Kind.values();
+
+    /**
+     * @param postId 帖子文档为自身 id，评论文档为所属帖子 id
+     */
+    public record Hit(Kind kind, long id, long postId, float score) {
+    }
+
+    // BM25 参数，取常用默认值
+    static final float K1 = 1.2f;
+    static final float B = 0.75f;
+
+    // 删除标记超过这个数、且占全部文档四分之一以上时压缩
+    private static final int COMPACT_MIN_DELETED = 1024;
+
+    private static final int MAGIC = 0x50575358;
+    private static final int FORMAT_VERSION = 1;
+
+    // 排序：分数高的在前，同分帖子在前，再按 id 新的在前
+    static final Comparator<Hit> RANKING = Comparator
+            .comparing(Hit::score, Comparator.reverseOrder())
+            .thenComparing(Hit::kind)
+            .thenComparing(Hit::id, Comparator.reverseOrder());
+
+    private static final class Postings {
+        int[] docs = new int[4];
+        int[] freqs = new int[4];
+        int size;
+
+        void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size << 1);
+                freqs = Arrays.copyOf(freqs, size << 1);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+        }
+    }
+
+    private final Map<String, Postings> terms = new HashMap<>();
+    private final LongObjectHashMap<Integer> postDocs = new LongObjectHashMap<>();
+    private final LongObjectHashMap<Integer> commentDocs = new LongObjectHashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 按文档号下标的并列数组
+    private byte[] kinds = new byte[16];
+    private long[] ids = new long[16];
+    private long[] postIds = new long[16];
+    private long[] authorIds = new long[16];
+    private byte[] gameTypes = new byte[16];
+    private int[] lengths = new int[16];
+    private BitSet deleted = new BitSet();
+
+    private int docCount;
+    private int deletedCount;
+    private long totalLength;
+
+    /**
+     * 新增或替换一篇文档。评论的 gameType 传 null。
+     */
+    public void put(Kind kind, long id, long postId, long authorId, GameType gameType, String text) {
+        List<String> tokens = Tokenizer.tokenize(text);
+        Map<String, Integer> freqs = new HashMap<>();
+        for (String token : tokens) {
+            freqs.merge(token, 1, Integer::sum);
+        }
+
+        lock.writeLock().lock();
+        try {
+            markDeleted(kind, id);
+            int doc = addDoc(kind, id, postId, authorId, gameType == null ? -1 : gameType.ordinal(), tokens.size());
+            freqs.forEach((term, freq) -> terms.computeIfAbsent(term, t -> new Postings()).add(doc, freq));
+            maybeCompact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(Kind kind, long id) {
+        lock.writeLock().lock();
+        try {
+            boolean removed = markDeleted(kind, id);
+            maybeCompact();
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 按 BM25 取 after 之后最多 count 条结果，顺序见 {@link #RANKING}。
+     *
+     * @param gameType 为 null 时不过滤
+     * @param authorId 为 null 时不过滤
+     * @param after    上一页最后一条，null 表示第一页
+     */
+    public List<Hit> search(String query, GameType gameType, Long authorId, Hit after, int count) {
+        Set<String> queryTerms = new LinkedHashSet<>(Tokenizer.tokenize(query));
+        lock.readLock().lock();
+        try {
+            int live = docCount - deletedCount;
+            if (live == 0 || count <= 0) {
+                return List.of();
+            }
+            List<Postings> lists = new ArrayList<>();
+            List<Float> idfs = new ArrayList<>();
+            for (String term : queryTerms) {
+                Postings postings = terms.get(term);
+                if (postings != null) {
+                    lists.add(postings);
+                    // df 含未压缩的删除标记，略微偏大，压缩后恢复准确
+                    idfs.add((float) Math.log(1 + (live - postings.size + 0.5) / (postings.size + 0.5)));
+                }
+            }
+            if (lists.isEmpty()) {
+                return List.of();
+            }
+            float avgLength = (float) totalLength / live;
+
+            // 小顶堆（按排序最差的在堆顶），只保留 count 条
+            PriorityQueue<Hit> top = new PriorityQueue<>(count + 1, RANKING.reversed());
+            int[] cursor = new int[lists.size()];
+            while (true) {
+                int doc = Integer.MAX_VALUE;
+                for (int t = 0; t < lists.size(); t++) {
+                    if (cursor[t] < lists.get(t).size) {
+                        doc = Math.min(doc, lists.get(t).docs[cursor[t]]);
+                    }
+                }
+                if (doc == Integer.MAX_VALUE) {
+                    break;
+                }
+
+                float score = 0;
+                float norm = K1 * (1 - B + B * lengths[doc] / avgLength);
+                for (int t = 0; t < lists.size(); t++) {
+                    Postings postings = lists.get(t);
+                    if (cursor[t] < postings.size && postings.docs[cursor[t]] == doc) {
+                        int freq = postings.freqs[cursor[t]++];
+                        score += idfs.get(t) * freq * (K1 + 1) / (freq + norm);
+                    }
+                }
+
+                if (!visible(doc, gameType, authorId)) {
+                    continue;
+                }
+                Hit hit = new Hit(KINDS[kinds[doc]], ids[doc], postIds[doc], score);
+                if (after != null && RANKING.compare(hit, after) <= 0) {
+                    continue;
+                }
+                top.add(hit);
+                if (top.size() > count) {
+                    top.poll();
+                }
+            }
+
+            List<Hit> result = new ArrayList<>(top);
+            result.sort(RANKING);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docCount - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 先压缩掉删除标记再写出，落盘的文件里没有已删除文档。
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        lock.writeLock().lock();
+        try {
+            compact();
+            // 降级为读锁，写文件期间不挡查询
+            lock.readLock().lock();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            // GameType 按名字记下来，枚举顺序变了也能对上
+            GameType[] gameTypeValues = GameType.values();
+            out.writeInt(gameTypeValues.length);
+            for (GameType gameType : gameTypeValues) {
+                out.writeUTF(gameType.name());
+            }
+
+            out.writeInt(docCount);
+            for (int doc = 0; doc < docCount; doc++) {
+                out.writeByte(kinds[doc]);
+                out.writeLong(ids[doc]);
+                out.writeLong(postIds[doc]);
+                out.writeLong(authorIds[doc]);
+                out.writeByte(gameTypes[doc]);
+                out.writeInt(lengths[doc]);
+            }
+
+            out.writeInt(terms.size());
+            for (Map.Entry<String, Postings> entry : terms.entrySet()) {
+                Postings postings = entry.getValue();
+                out.writeUTF(entry.getKey());
+                writeVarInt(out, postings.size);
+                int prev = 0;
+                for (int i = 0; i < postings.size; i++) {
+                    writeVarInt(out, postings.docs[i] - prev);
+                    writeVarInt(out, postings.freqs[i]);
+                    prev = postings.docs[i];
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @throws IOException 文件损坏或格式版本不一致，调用方应重建索引
+     */
+    public static SearchIndex readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Unsupported search index format");
+        }
+        int gameTypeCount = in.readInt();
+        byte[] gameTypeMapping = new byte[gameTypeCount];
+        for (int i = 0; i < gameTypeCount; i++) {
+            String name = in.readUTF();
+            gameTypeMapping[i] = (byte) Arrays.stream(GameType.values())
+                    .filter(g -> g.name().equals(name))
+                    .mapToInt(Enum::ordinal)
+                    .findFirst()
+                    .orElse(-1);
+        }
+
+        SearchIndex index = new SearchIndex();
+        int docs = in.readInt();
+        for (int doc = 0; doc < docs; doc++) {
+            byte kind = in.readByte();
+            long id = in.readLong();
+            long postId = in.readLong();
+            long authorId = in.readLong();
+            byte gameType = in.readByte();
+            int length = in.readInt();
+            if (kind < 0 || kind >= KINDS.length || gameType >= gameTypeCount) {
+                throw new IOException("Corrupt search index");
+            }
+            index.addDoc(KINDS[kind], id, postId, authorId, gameType < 0 ? -1 : gameTypeMapping[gameType], length);
+        }
+
+        int termCount = in.readInt();
+        for (int t = 0; t < termCount; t++) {
+            String term = in.readUTF();
+            int size = readVarInt(in);
+            Postings postings = new Postings();
+            postings.docs = new int[Math.max(4, size)];
+            postings.freqs = new int[Math.max(4, size)];
+            int doc = 0;
+            for (int i = 0; i < size; i++) {
+                doc += readVarInt(in);
+                if (doc >= docs) {
+                    throw new IOException("Corrupt search index");
+                }
+                postings.add(doc, readVarInt(in));
+            }
+            index.terms.put(term, postings);
+        }
+        return index;
+    }
+
+    private int addDoc(Kind kind, long id, long postId, long authorId, int gameType, int length) {
+        if (docCount == ids.length) {
+            int capacity = docCount << 1;
+            kinds = Arrays.copyOf(kinds, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            postIds = Arrays.copyOf(postIds, capacity);
+            authorIds = Arrays.copyOf(authorIds, capacity);
+            gameTypes = Arrays.copyOf(gameTypes, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+        int doc = docCount++;
+        kinds[doc] = (byte) kind.ordinal();
+        ids[doc] = id;
+        postIds[doc] = postId;
+        authorIds[doc] = authorId;
+        gameTypes[doc] = (byte) gameType;
+        lengths[doc] = length;
+        totalLength += length;
+        docsOf(kind).put(id, doc);
+        return doc;
+    }
+
+    private boolean markDeleted(Kind kind, long id) {
+        Integer doc = docsOf(kind).remove(id);
+        if (doc == null) {
+            return false;
+        }
+        deleted.set(doc);
+        deletedCount++;
+        totalLength -= lengths[doc];
+        return true;
+    }
+
+    // 评论要求所属帖子还在索引里，GameType 也取帖子的
+    private boolean visible(int doc, GameType gameType, Long authorId) {
+        if (deleted.get(doc)) {
+            return false;
+        }
+        if (authorId != null && authorIds[doc] != authorId) {
+            return false;
+        }
+        int postDoc = doc;
+        if (kinds[doc] == Kind.COMMENT.ordinal()) {
+            Integer p = postDocs.get(postIds[doc]);
+            if (p == null) {
+                return false;
+            }
+            postDoc = p;
+        }
+        return gameType == null || gameTypes[postDoc] == gameType.ordinal();
+    }
+
+    private LongObjectHashMap<Integer> docsOf(Kind kind) {
+        return kind == Kind.POST ? postDocs : commentDocs;
+    }
+
+    private void maybeCompact() {
+        if (deletedCount >= COMPACT_MIN_DELETED && deletedCount * 4 >= docCount) {
+            compact();
+        }
+    }
+
+    // 去掉删除标记，文档号重新连续编号；倒排表里的相对顺序不变，所以仍然有序
+    private void compact() {
+        if (deletedCount == 0) {
+            return;
+        }
+        int[] remap = new int[docCount];
+        int next = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            if (deleted.get(doc)) {
+                remap[doc] = -1;
+                continue;
+            }
+            remap[doc] = next;
+            kinds[next] = kinds[doc];
+            ids[next] = ids[doc];
+            postIds[next] = postIds[doc];
+            authorIds[next] = authorIds[doc];
+            gameTypes[next] = gameTypes[doc];
+            lengths[next] = lengths[doc];
+            docsOf(KINDS[kinds[next]]).put(ids[next], next);
+            next++;
+        }
+
+        Iterator<Postings> it = terms.values().iterator();
+        while (it.hasNext()) {
+            Postings postings = it.next();
+            int size = 0;
+            for (int i = 0; i < postings.size; i++) {
+                int doc = remap[postings.docs[i]];
+                if (doc >= 0) {
+                    postings.docs[size] = doc;
+                    postings.freqs[size] = postings.freqs[i];
+                    size++;
+                }
+            }
+            if (size == 0) {
+                it.remove();
+            } else {
+                postings.size = size;
+            }
+        }
+
+        docCount = next;
+        deletedCount = 0;
+        deleted = new BitSet();
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt search index");
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.demo.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 搜索用的分词：字母数字连续段转小写作为一个词；中日韩文字没有空格分隔，按相邻两字切成 bigram。
+ *
+ * 建索引和查询用同一套规则，所以查询词和文档词能对上。
+ */
+public final class Tokenizer {
+
+    // 过长的 "词" 多半是链接或乱码，截断后再入索引
+    static final int MAX_TOKEN_LENGTH = 40;
+
+    private Tokenizer() {
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        StringBuilder word = new StringBuilder();
+        int prevCjk = -1;
+        int i = 0;
+        while (i < text.length()) {
+            int cp = text.codePointAt(i);
+            i += Character.charCount(cp);
+
+            if (isCjk(cp)) {
+                flushWord(word, tokens);
+                if (prevCjk >= 0) {
+                    tokens.add(new String(new int[]{prevCjk, cp}, 0, 2));
+                } else if (i >= text.length() || !isCjk(text.codePointAt(i))) {
+                    // 单独一个汉字也要能搜到
+                    tokens.add(new String(Character.toChars(cp)));
+                }
+                prevCjk = cp;
+            } else {
+                prevCjk = -1;
+                if (Character.isLetterOrDigit(cp)) {
+                    if (word.length() < MAX_TOKEN_LENGTH) {
+                        word.appendCodePoint(Character.toLowerCase(cp));
+                    }
+                } else {
+                    flushWord(word, tokens);
+                }
+            }
+        }
+        flushWord(word, tokens);
+        return tokens;
+    }
+
+    private static void flushWord(StringBuilder word, List<String> tokens) {
+        if (word.length() > 0) {
+            tokens.add(word.toString());
+            word.setLength(0);
+        }
+    }
+
+    private static boolean isCjk(int cp) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
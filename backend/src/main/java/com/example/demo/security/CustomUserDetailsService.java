@@ -1,30 +1,32 @@
 package com.example.demo.security;
 
+import com.example.demo.cache.UserPrincipalCache;
 import com.example.demo.model.User;
-import com.example.demo.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
 public class CustomUserDetailsService implements UserDetailsService {
 
-    private final UserRepository userRepository;
+    private final UserPrincipalCache userPrincipalCache;
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(email)
+        User user = userPrincipalCache.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
 
+        // 管理员带 ROLE_ADMIN，/api/admin/** 和 @PreAuthorize("hasRole('ADMIN')") 靠它判断
         return new org.springframework.security.core.userdetails.User(
                 user.getEmail(),
                 user.getPassword(),
-                new ArrayList<>()
+                Boolean.TRUE.equals(user.getIsAdmin()) ? List.of(new SimpleGrantedAuthority("ROLE_ADMIN")) : List.of()
         );
     }
 } 
\ No newline at end of file
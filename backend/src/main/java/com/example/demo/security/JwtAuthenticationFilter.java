@@ -5,6 +5,9 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -14,7 +17,10 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Enumeration;
+import java.util.concurrent.ThreadLocalRandom;
 
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -22,48 +28,63 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtTokenProvider tokenProvider;
     private final CustomUserDetailsService userDetailsService;
 
+    // 开了 DEBUG 时按这个比例抽样记录请求诊断日志，1 表示每个请求都记
+    @Value("${logging.request.sample-rate:0.01}")
+    private double sampleRate;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
-        System.out.println("=== JwtAuthenticationFilter ===");
-        System.out.println("Request URI: " + request.getRequestURI());
-        System.out.println("Request method: " + request.getMethod());
-        
-        // 打印所有请求头
-        System.out.println("Request headers:");
-        java.util.Enumeration<String> headerNames = request.getHeaderNames();
-        while (headerNames.hasMoreElements()) {
-            String headerName = headerNames.nextElement();
-            System.out.println("  " + headerName + ": " + request.getHeader(headerName));
+        // 没开 DEBUG 或没抽中时，下面的日志调用都只剩一次布尔判断
+        boolean diagnostics = log.isDebugEnabled() && sampled();
+        if (diagnostics && log.isTraceEnabled()) {
+            logHeaders(request);
         }
-        
+
         try {
             String jwt = getJwtFromRequest(request);
-            System.out.println("JWT present: " + (jwt != null));
-            
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String email = tokenProvider.getEmailFromToken(jwt);
-                System.out.println("Email from token: " + email);
-                
+
+            // 只解析一次，结果挂在 request 上，AuthService.getCurrentUser 直接复用
+            VerifiedToken verified = StringUtils.hasText(jwt) ? tokenProvider.verify(jwt).orElse(null) : null;
+            if (verified != null) {
+                request.setAttribute(JwtTokenProvider.VERIFIED_TOKEN_ATTRIBUTE, verified);
+                String email = verified.email();
+
                 UserDetails userDetails = userDetailsService.loadUserByUsername(email);
-                System.out.println("User loaded: " + userDetails.getUsername());
-                
+
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                
+
                 SecurityContextHolder.getContext().setAuthentication(authentication);
-                System.out.println("Authentication set in SecurityContext");
-            } else {
-                System.out.println("No valid JWT found, proceeding without authentication");
+                if (diagnostics) {
+                    log.debug("{} {} authenticated as {}", request.getMethod(), request.getRequestURI(), email);
+                }
+            } else if (diagnostics) {
+                log.debug("{} {} without valid JWT (token present: {})",
+                        request.getMethod(), request.getRequestURI(), jwt != null);
             }
         } catch (Exception e) {
-            System.err.println("ERROR in JWT filter: " + e.getMessage());
-            e.printStackTrace();
+            log.warn("JWT authentication failed for {} {}", request.getMethod(), request.getRequestURI(), e);
         }
-        
+
         filterChain.doFilter(request, response);
-        System.out.println("Filter chain completed for: " + request.getRequestURI());
+    }
+
+    private boolean sampled() {
+        return sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    private void logHeaders(HttpServletRequest request) {
+        Enumeration<String> headerNames = request.getHeaderNames();
+        while (headerNames.hasMoreElements()) {
+            String headerName = headerNames.nextElement();
+            // 凭证类请求头不落日志
+            boolean secret = HttpHeaders.AUTHORIZATION.equalsIgnoreCase(headerName)
+                    || HttpHeaders.COOKIE.equalsIgnoreCase(headerName);
+            log.trace("{} {} header {}: {}", request.getMethod(), request.getRequestURI(),
+                    headerName, secret ? "******" : request.getHeader(headerName));
+        }
     }
 
     private String getJwtFromRequest(HttpServletRequest request) {
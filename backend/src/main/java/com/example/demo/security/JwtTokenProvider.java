@@ -1,27 +1,46 @@
 package com.example.demo.security;
 
+import com.example.demo.cache.ExpiringLruCache;
 import com.example.demo.model.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
 import java.util.Date;
+import java.util.Optional;
 
 
 @Component
 public class JwtTokenProvider {
 
+    // JwtAuthenticationFilter 把解析结果放在这个 request attribute 上，AuthService 从这里取当前用户
+    public static final String VERIFIED_TOKEN_ATTRIBUTE = JwtTokenProvider.class.getName() + ".VERIFIED_TOKEN";
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
     @Value("${jwt.expiration}")
     private long jwtExpiration;
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    // 最多缓存多少个已经验签的 token
+    @Value("${jwt.verified-cache-size:10000}")
+    private int verifiedCacheSize;
+
+    // key 和 parser 都是不可变、线程安全的，启动时建一次
+    private Key signingKey;
+    private JwtParser parser;
+    private ExpiringLruCache<String, VerifiedToken> verifiedTokens;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        verifiedTokens = new ExpiringLruCache<>(verifiedCacheSize);
     }
 
     public String generateToken(User user) {
@@ -34,39 +53,55 @@ public class JwtTokenProvider {
                 .claim("name", user.getName())
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
-    public String getEmailFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * 验签并解析 token，同一个 token 在过期前只做一次 HMAC 校验。
+     * token 无效或已过期时返回 empty。
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
 
-        return claims.getSubject();
-    }
+        VerifiedToken cached = verifiedTokens.get(token);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
 
-    public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            VerifiedToken verified = new VerifiedToken(
+                    claims.getSubject(),
+                    claims.get("userId", Long.class),
+                    claims.get("name", String.class),
+                    claims.getExpiration()
+            );
+            // 没有 exp 的 token 不缓存，每次都重新校验
+            if (verified.expiresAt() != null) {
+                verifiedTokens.put(token, verified, verified.expiresAt().getTime());
+            }
+            return Optional.of(verified);
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            return Optional.empty();
         }
     }
 
+    public String getEmailFromToken(String token) {
+        return verifyOrThrow(token).email();
+    }
+
+    public boolean validateToken(String token) {
+        return verify(token).isPresent();
+    }
+
     public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return verifyOrThrow(token).userId();
+    }
 
-        return claims.get("userId", Long.class);
+    private VerifiedToken verifyOrThrow(String token) {
+        return verify(token).orElseThrow(() -> new JwtException("Invalid JWT token"));
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,9 @@
+package com.example.demo.security;
+
+import java.util.Date;
+
+/**
+ * 验签通过的 JWT 里我们关心的字段。解析一次后放在 request 上，后续直接复用。
+ */
+public record VerifiedToken(String email, Long userId, String name, Date expiresAt) {
+}
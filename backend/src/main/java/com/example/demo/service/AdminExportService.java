@@ -0,0 +1,212 @@
+package com.example.demo.service;
+
+import com.example.demo.model.GameType;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 管理后台的用户 / 帖子导出：按 id 顺序用只进游标逐行读，边读边写成 NDJSON（一行一个 JSON 对象）。
+ *
+ * 不经过 JPA，不加载关联，内存占用和行数无关。MySQL 连接串上有 useCursorFetch=true 时按 fetch size
+ * 走服务端游标；没有时驱动会忽略正数的 fetch size、把整个结果集读进内存，这时改用 Integer.MIN_VALUE 逐行流式读取。
+ * 导出中断后可以用最后一行的 id 作为 afterId 接着导。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AdminExportService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${admin.export.fetch-size:1000}")
+    private int fetchSize;
+
+    // 每写这么多行刷一次，客户端能边收边处理
+    @Value("${admin.export.flush-rows:1000}")
+    private int flushRows;
+
+    /**
+     * @param q       邮箱或昵称包含的字符串
+     * @param afterId 只导出 id 大于它的用户
+     * @param limit   最多导出多少行，null 表示不限
+     */
+    public record UserFilter(String q, Boolean admin, String provider, Long afterId, Integer limit) {
+    }
+
+    /**
+     * @param from 创建时间下限（含）
+     * @param to   创建时间上限（不含）
+     */
+    public record PostFilter(Long userId, GameType gameType, LocalDateTime from, LocalDateTime to,
+                             Long afterId, Integer limit) {
+    }
+
+    /**
+     * 导出用户，不含密码。
+     *
+     * @return 导出的行数
+     */
+    public long exportUsers(UserFilter filter, OutputStream out) throws IOException {
+        StringBuilder sql = new StringBuilder(
+                "SELECT id, email, name, avatar, provider, is_admin, follower_count, following_count FROM users WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (filter.q() != null && !filter.q().isBlank()) {
+            sql.append(" AND (email LIKE ? OR name LIKE ?)");
+            String pattern = "%" + escapeLike(filter.q().trim()) + "%";
+            args.add(pattern);
+            args.add(pattern);
+        }
+        if (filter.admin() != null) {
+            sql.append(" AND is_admin = ?");
+            args.add(filter.admin());
+        }
+        if (filter.provider() != null) {
+            sql.append(" AND provider = ?");
+            args.add(filter.provider());
+        }
+        appendPaging(sql, args, filter.afterId(), filter.limit());
+
+        return export(sql.toString(), args, out, (rs, json) -> {
+            json.writeNumberField("id", rs.getLong("id"));
+            json.writeStringField("email", rs.getString("email"));
+            json.writeStringField("name", rs.getString("name"));
+            json.writeStringField("avatar", rs.getString("avatar"));
+            json.writeStringField("provider", rs.getString("provider"));
+            json.writeBooleanField("isAdmin", rs.getBoolean("is_admin"));
+            json.writeNumberField("followerCount", rs.getLong("follower_count"));
+            json.writeNumberField("followingCount", rs.getLong("following_count"));
+        });
+    }
+
+    /**
+     * 导出帖子，不含评论。
+     *
+     * @return 导出的行数
+     */
+    public long exportPosts(PostFilter filter, OutputStream out) throws IOException {
+        StringBuilder sql = new StringBuilder(
+                "SELECT id, user_id, content, game_type, image_url, comment_count, created_at, updated_at FROM posts WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (filter.userId() != null) {
+            sql.append(" AND user_id = ?");
+            args.add(filter.userId());
+        }
+        if (filter.gameType() != null) {
+            sql.append(" AND game_type = ?");
+            args.add(filter.gameType().name());
+        }
+        if (filter.from() != null) {
+            sql.append(" AND created_at >= ?");
+            args.add(Timestamp.valueOf(filter.from()));
+        }
+        if (filter.to() != null) {
+            sql.append(" AND created_at < ?");
+            args.add(Timestamp.valueOf(filter.to()));
+        }
+        appendPaging(sql, args, filter.afterId(), filter.limit());
+
+        return export(sql.toString(), args, out, (rs, json) -> {
+            json.writeNumberField("id", rs.getLong("id"));
+            json.writeNumberField("userId", rs.getLong("user_id"));
+            json.writeStringField("content", rs.getString("content"));
+            json.writeStringField("gameType", rs.getString("game_type"));
+            json.writeStringField("imageUrl", rs.getString("image_url"));
+            json.writeNumberField("commentCount", rs.getLong("comment_count"));
+            writeTimestamp(json, "createdAt", rs.getTimestamp("created_at"));
+            writeTimestamp(json, "updatedAt", rs.getTimestamp("updated_at"));
+        });
+    }
+
+    // 按主键顺序读，中断后可以从 afterId 接着导
+    private static void appendPaging(StringBuilder sql, List<Object> args, Long afterId, Integer limit) {
+        if (afterId != null) {
+            sql.append(" AND id > ?");
+            args.add(afterId);
+        }
+        sql.append(" ORDER BY id");
+        if (limit != null) {
+            sql.append(" LIMIT ?");
+            args.add(limit);
+        }
+    }
+
+    private long export(String sql, List<Object> args, OutputStream out, RowWriter rowWriter) throws IOException {
+        long[] rows = {0};
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            // 换行由下面每行自己写，不要 Jackson 默认在两个顶层值之间加的空格
+            json.setRootValueSeparator(null);
+            try {
+                jdbcTemplate.query(con -> {
+                    PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    ps.setFetchSize(fetchSize(con));
+                    for (int i = 0; i < args.size(); i++) {
+                        ps.setObject(i + 1, args.get(i));
+                    }
+                    return ps;
+                }, (RowCallbackHandler) rs -> {
+                    try {
+                        json.writeStartObject();
+                        rowWriter.write(rs, json);
+                        json.writeEndObject();
+                        json.writeRaw('\n');
+                        if (++rows[0] % flushRows == 0) {
+                            json.flush();
+                        }
+                    } catch (IOException e) {
+                        // 客户端断开：抛出去结束查询，释放游标和连接
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                log.info("Export aborted after {} rows: {}", rows[0], e.getCause().getMessage());
+                throw e.getCause();
+            }
+        }
+        return rows[0];
+    }
+
+    private int fetchSize(Connection con) throws SQLException {
+        DatabaseMetaData meta = con.getMetaData();
+        if ("MySQL".equals(meta.getDatabaseProductName()) && !meta.getURL().contains("useCursorFetch=true")) {
+            return Integer.MIN_VALUE;
+        }
+        return fetchSize;
+    }
+
+    private static void writeTimestamp(JsonGenerator json, String field, Timestamp timestamp) throws IOException {
+        if (timestamp == null) {
+            json.writeNullField(field);
+        } else {
+            json.writeStringField(field, timestamp.toLocalDateTime().toString());
+        }
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(ResultSet rs, JsonGenerator json) throws SQLException, IOException;
+    }
+}
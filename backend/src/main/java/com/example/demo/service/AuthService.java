@@ -1,18 +1,26 @@
 package com.example.demo.service;
 
+import com.example.demo.cache.UserPrincipalCache;
 import com.example.demo.dto.AuthResponse;
 import com.example.demo.dto.LoginRequest;
 import com.example.demo.dto.SignupRequest;
 import com.example.demo.model.User;
 import com.example.demo.repository.UserRepository;
 import com.example.demo.security.JwtTokenProvider;
+import com.example.demo.security.VerifiedToken;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class AuthService {
@@ -20,6 +28,7 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenProvider jwtTokenProvider;
     private final AuthenticationManager authenticationManager;
+    private final UserPrincipalCache userPrincipalCache;
 
     public AuthResponse signup(SignupRequest request) {
         if (userRepository.existsByEmail(request.getEmail())) {
@@ -43,26 +52,33 @@ public class AuthService {
         User user = userRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        // 打印调试信息
-        System.out.println("🧪 email: " + request.getEmail());
-        System.out.println("🧪 raw password: " + request.getPassword());
-        System.out.println("🧪 stored password: " + user.getPassword());
-        System.out.println("🧪 password match: " + passwordEncoder.matches(request.getPassword(), user.getPassword()));
-
         // 继续认证流程（必须保留）
         Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
         );
 
+        log.debug("User {} logged in", user.getId());
+
         String token = jwtTokenProvider.generateToken(user);
         return new AuthResponse(token, user.getName(), user.getEmail(), user.getAvatar(), user.getIsAdmin() != null && user.getIsAdmin());
     }
 
-
-
     public User getCurrentUser(String token) {
-        Long userId = jwtTokenProvider.getUserIdFromToken(token);
-        return userRepository.findById(userId)
+        Long userId = currentUserId(token);
+        return userPrincipalCache.findById(userId)
             .orElseThrow(() -> new RuntimeException("User not found"));
     }
+
+    // JwtAuthenticationFilter 已经验过本次请求带的 token，直接用它挂在 request 上的结果；
+    // 不在请求线程里，或者传进来的不是本次请求的 token，才重新验一遍
+    private Long currentUserId(String token) {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            HttpServletRequest request = attributes.getRequest();
+            if (request.getAttribute(JwtTokenProvider.VERIFIED_TOKEN_ATTRIBUTE) instanceof VerifiedToken verified
+                    && ("Bearer " + token).equals(request.getHeader(HttpHeaders.AUTHORIZATION))) {
+                return verified.userId();
+            }
+        }
+        return jwtTokenProvider.getUserIdFromToken(token);
+    }
 } 
\ No newline at end of file
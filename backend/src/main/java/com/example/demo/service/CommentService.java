@@ -1,62 +1,113 @@
 package com.example.demo.service;
 
 import com.example.demo.dto.CommentDto;
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.FeedCursor;
 import com.example.demo.model.Comment;
+import com.example.demo.model.CommentSnapshot;
 import com.example.demo.model.Post;
 import com.example.demo.model.User;
 import com.example.demo.repository.CommentRepository;
 import com.example.demo.repository.PostRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
-import java.time.format.DateTimeFormatter;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class CommentService {
+    // 帖子上冗余保存的最近评论条数
+    public static final int RECENT_COMMENT_LIMIT = 3;
+    // 每条顶层评论随列表一起返回的回复条数
+    public static final int REPLY_PREVIEW_LIMIT = 3;
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
     private final CommentRepository commentRepository;
     private final PostRepository postRepository;
+    private final GameFeedCache gameFeedCache;
+    private final SearchService searchService;
+    private final FeedPushService feedPushService;
     
-    public CommentDto createComment(String content, Long postId, User currentUser) {
-        System.out.println("=== CommentService.createComment ===");
-        System.out.println("Content: " + content);
-        System.out.println("PostId: " + postId);
-        System.out.println("User: " + currentUser.getName() + ", ID: " + currentUser.getId());
-        
-        try {
-            Post post = postRepository.findById(postId)
-                    .orElseThrow(() -> new RuntimeException("Post not found"));
-            System.out.println("Post found: " + post.getId());
-            
-            // 使用构造函数创建 Comment
-            Comment comment = new Comment(content, currentUser, post);
-            System.out.println("Comment object created");
-            
-            // 使用Post的辅助方法添加评论
-            post.addComment(comment);
-            System.out.println("Comment added to post");
-            
-            Comment savedComment = commentRepository.save(comment);
-            System.out.println("Comment saved to database: " + savedComment.getId());
-            
-            return convertToDto(savedComment);
-        } catch (Exception e) {
-            System.err.println("ERROR in CommentService.createComment: " + e.getMessage());
-            e.printStackTrace();
-            throw e;
+    @Transactional
+    public CommentDto createComment(String content, Long postId, Long parentId, User currentUser) {
+        Post post = postRepository.findByIdForUpdate(postId)
+                .filter(p -> p.getDeletedAt() == null)
+                .orElseThrow(() -> new RuntimeException("Post not found"));
+
+        // 使用构造函数创建 Comment（不碰 post.comments，避免加载整个评论集合）
+        Comment comment = new Comment(content, currentUser, post);
+        if (parentId != null) {
+            Long rootId = resolveThreadRoot(parentId, post.getId());
+            comment.setParentId(rootId);
+            commentRepository.incrementReplyCount(rootId, 1);
         }
+
+        Comment savedComment = commentRepository.saveAndFlush(comment);
+        log.debug("User {} commented {} on post {}", currentUser.getId(), savedComment.getId(), postId);
+
+        refreshCommentSummary(post.getId(), 1);
+        searchService.onCommentSaved(savedComment);
+        feedPushService.onCommentCreated(savedComment);
+
+        return convertToDto(savedComment);
     }
     
-    public List<CommentDto> getCommentsByPostId(Long postId) {
-        List<Comment> comments = commentRepository.findByPostIdOrderByCreatedAtDesc(postId);
-        return comments.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    /**
+     * 帖子的顶层评论，最新的在前，每条附带最早的 {@link #REPLY_PREVIEW_LIMIT} 条回复。
+     * 一页固定两次查询（顶层评论 + 这一页的回复），和帖子总评论数无关。
+     */
+    public CursorPage<CommentDto> getCommentsByPostId(Long postId, FeedCursor cursor, int limit) {
+        int size = PostService.clampPageSize(limit);
+        Pageable pageable = PageRequest.of(0, size + 1);
+        List<Comment> comments = cursor == null
+                ? commentRepository.findTopLevelFirstPage(postId, pageable)
+                : commentRepository.findTopLevelAfter(postId, cursor.createdAt(), cursor.id(), pageable);
+        CursorPage<Comment> page = toPage(comments, size);
+
+        Map<Long, List<CommentDto>> replies = loadReplyPreviews(page.items());
+        return page.map(comment -> {
+            CommentDto dto = convertToDto(comment);
+            dto.setReplies(replies.getOrDefault(comment.getId(), List.of()));
+            return dto;
+        });
+    }
+
+    // 某条顶层评论下的回复，按时间正序
+    public CursorPage<CommentDto> getReplies(Long commentId, FeedCursor cursor, int limit) {
+        int size = PostService.clampPageSize(limit);
+        Pageable pageable = PageRequest.of(0, size + 1);
+        List<Comment> replies = cursor == null
+                ? commentRepository.findRepliesFirstPage(commentId, pageable)
+                : commentRepository.findRepliesAfter(commentId, cursor.createdAt(), cursor.id(), pageable);
+        return toPage(replies, size).map(this::convertToDto);
     }
     
+    // 按 id 批量取评论（组装搜索结果用），已经不存在的 id 不在结果里
+    public Map<Long, CommentDto> getCommentsByIds(List<Long> ids) {
+        Map<Long, CommentDto> result = new HashMap<>();
+        if (ids.isEmpty()) {
+            return result;
+        }
+        for (Comment comment : commentRepository.findWithUserByIdIn(ids)) {
+            result.put(comment.getId(), convertToDto(comment));
+        }
+        return result;
+    }
+
+    @Transactional
     public CommentDto updateComment(Long commentId, String content, Long userId) {
         Comment comment = commentRepository.findById(commentId)
                 .orElseThrow(() -> new RuntimeException("Comment not found"));
@@ -65,11 +116,18 @@ public class CommentService {
             throw new RuntimeException("You can only update your own comments");
         }
         
+        Long postId = comment.getPost().getId();
+        postRepository.findByIdForUpdate(postId);
+
         comment.setContent(content);
-        Comment updatedComment = commentRepository.save(comment);
+        Comment updatedComment = commentRepository.saveAndFlush(comment);
+        // 快照里可能有这条评论，内容要跟着更新
+        refreshCommentSummary(postId, 0);
+        searchService.onCommentSaved(updatedComment);
         return convertToDto(updatedComment);
     }
     
+    @Transactional
     public void deleteComment(Long commentId, Long userId) {
         Comment comment = commentRepository.findById(commentId)
                 .orElseThrow(() -> new RuntimeException("Comment not found"));
@@ -78,24 +136,98 @@ public class CommentService {
             throw new RuntimeException("You can only delete your own comments");
         }
         
-        // 使用Post的辅助方法移除评论
-        Post post = comment.getPost();
-        post.removeComment(comment);
-        
+        Long postId = comment.getPost().getId();
+        postRepository.findByIdForUpdate(postId);
+
+        int removed = 1;
+        List<Long> replyIds = List.of();
+        if (comment.getParentId() == null) {
+            // 顶层评论连同它的回复一起删；持有帖子行锁，查出来的回复和删掉的是同一批
+            replyIds = commentRepository.findIdsByParentId(comment.getId());
+            removed += commentRepository.deleteByParentId(comment.getId());
+        } else {
+            commentRepository.incrementReplyCount(comment.getParentId(), -1);
+        }
         commentRepository.delete(comment);
+        commentRepository.flush();
+
+        refreshCommentSummary(postId, -removed);
+        searchService.onCommentDeleted(commentId);
+        replyIds.forEach(searchService::onCommentDeleted);
+    }
+
+    /**
+     * 评论被后台删除任务批量删掉之后，更新帖子的评论数和最近评论快照。调用方在事务里。
+     */
+    public void onCommentsRemoved(Long postId, int removed) {
+        postRepository.findByIdForUpdate(postId);
+        refreshCommentSummary(postId, -removed);
+    }
+
+    // 从 comments 表读取最新几条评论，作为帖子快照
+    public List<CommentSnapshot> loadRecentSnapshot(Long postId) {
+        return commentRepository.findRecentByPostId(postId, PageRequest.of(0, RECENT_COMMENT_LIMIT)).stream()
+                .map(CommentSnapshot::of)
+                .collect(Collectors.toList());
+    }
+
+    // 调用方已经持有帖子行锁，评论也已 flush，这里重新取最新几条即可
+    private void refreshCommentSummary(Long postId, int delta) {
+        postRepository.updateCommentSummary(postId, delta, loadRecentSnapshot(postId));
+        gameFeedCache.onPostChanged(postId);
+    }
+    
+    // 回复只挂一层：回复的是另一条回复时，挂到它的顶层评论下
+    private Long resolveThreadRoot(Long parentId, Long postId) {
+        Comment parent = commentRepository.findById(parentId)
+                .orElseThrow(() -> new RuntimeException("Parent comment not found"));
+        if (!parent.getPost().getId().equals(postId)) {
+            throw new RuntimeException("Parent comment belongs to another post");
+        }
+        return parent.getParentId() != null ? parent.getParentId() : parent.getId();
+    }
+
+    // 一页顶层评论的回复预览一次查完，按顶层评论分组
+    private Map<Long, List<CommentDto>> loadReplyPreviews(List<Comment> topLevel) {
+        List<Long> parentIds = topLevel.stream()
+                .filter(c -> c.getReplyCount() > 0)
+                .map(Comment::getId)
+                .collect(Collectors.toList());
+        Map<Long, List<CommentDto>> byParent = new HashMap<>();
+        if (parentIds.isEmpty()) {
+            return byParent;
+        }
+        List<Long> replyIds = commentRepository.findFirstReplyIds(parentIds, REPLY_PREVIEW_LIMIT).stream()
+                .map(Number::longValue)
+                .collect(Collectors.toList());
+        if (replyIds.isEmpty()) {
+            return byParent;
+        }
+        for (Comment reply : commentRepository.findWithUserByIdIn(replyIds)) {
+            byParent.computeIfAbsent(reply.getParentId(), k -> new ArrayList<>()).add(convertToDto(reply));
+        }
+        return byParent;
+    }
+
+    // 多查一条用来判断是否还有下一页，下一页游标取本页最后一条
+    private static CursorPage<Comment> toPage(List<Comment> comments, int size) {
+        if (comments.size() <= size) {
+            return new CursorPage<>(comments, null);
+        }
+        List<Comment> items = comments.subList(0, size);
+        Comment last = items.get(size - 1);
+        return new CursorPage<>(items, new FeedCursor(last.getCreatedAt(), last.getId()).encode());
     }
     
     private CommentDto convertToDto(Comment comment) {
         CommentDto dto = new CommentDto();
         dto.setId(comment.getId());
         dto.setContent(comment.getContent());
-        
-        // 将 LocalDateTime 转换为字符串
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        dto.setCreatedAt(comment.getCreatedAt().format(formatter));
-        dto.setUpdatedAt(comment.getUpdatedAt().format(formatter));
-        
+        dto.setCreatedAt(format(comment.getCreatedAt()));
+        dto.setUpdatedAt(format(comment.getUpdatedAt()));
         dto.setPostId(comment.getPost().getId());
+        dto.setParentId(comment.getParentId());
+        dto.setReplyCount(comment.getReplyCount());
         
         if (comment.getUser() != null) {
             CommentDto.UserDto userDto = new CommentDto.UserDto();
@@ -107,4 +239,8 @@ public class CommentService {
         
         return dto;
     }
+
+    private static String format(LocalDateTime time) {
+        return time != null ? time.format(FORMATTER) : null;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,317 @@
+package com.example.demo.service;
+
+import com.example.demo.cache.FollowGraph;
+import com.example.demo.cache.UserPrincipalCache;
+import com.example.demo.config.AppThreads;
+import com.example.demo.model.DeletionJob;
+import com.example.demo.model.Post;
+import com.example.demo.repository.DeletionJobRepository;
+import com.example.demo.repository.PostRepository;
+import com.example.demo.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static com.example.demo.cache.TransactionCallbacks.afterCommit;
+
+/**
+ * 删除用户和帖子。请求里只打删除标记、清掉内存里的缓存，读接口立刻看不到；
+ * 关联数据由后台线程分批删除，每批一个短事务，不会一次级联锁住大量行。
+ *
+ * 从叶子往根删，不依赖外键级联：
+ * 用户 = 他的帖子（先删这些帖子下的回复、评论，再删帖子）→ 别人帖子下他的评论和对他评论的回复
+ * → 关注关系 → 用户本身；帖子 = 回复 → 评论 → 帖子本身。
+ * 每批都是“找出剩下的前 N 条删掉”，中断或重启后从剩下的数据接着删，不需要记录删到哪里。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DeletionJobService {
+
+    // 连续失败这么多次后标记为 FAILED，不再自动重试
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final DeletionJobRepository deletionJobRepository;
+    private final UserRepository userRepository;
+    private final PostRepository postRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final CommentService commentService;
+    private final UserPrincipalCache userPrincipalCache;
+    private final FollowGraph followGraph;
+    private final LeaderboardService leaderboardService;
+    private final GameFeedCache gameFeedCache;
+    private final TimelineService timelineService;
+    private final SearchService searchService;
+    private final AppThreads appThreads;
+
+    // 每批最多删多少行
+    @Value("${deletion.batch-size:500}")
+    private int batchSize;
+
+    private TransactionTemplate transactionTemplate;
+    // 一个后台线程按顺序跑所有任务，不占用定时任务线程池
+    private ExecutorService worker;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile boolean rerun;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        worker = Executors.newSingleThreadExecutor(appThreads.threadFactory("deletion-"));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        worker.shutdownNow();
+    }
+
+    /**
+     * 提交删除用户。重复提交返回已有的任务。
+     */
+    @Transactional
+    public DeletionJob deleteUser(Long userId) {
+        Optional<DeletionJob> existing = deletionJobRepository.findByTargetTypeAndTargetId(DeletionJob.TargetType.USER, userId);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        if (userRepository.markDeleted(userId, LocalDateTime.now()) == 0) {
+            throw new RuntimeException("User not found");
+        }
+        DeletionJob job = deletionJobRepository.save(new DeletionJob(DeletionJob.TargetType.USER, userId));
+
+        followGraph.onUserDeleted(userId);
+        leaderboardService.onUserDeleted(userId);
+        afterCommit(() -> {
+            userPrincipalCache.evict(userId);
+            gameFeedCache.invalidateAll();
+            trigger();
+        });
+        return job;
+    }
+
+    /**
+     * 提交删除帖子。重复提交返回已有的任务。
+     */
+    @Transactional
+    public DeletionJob deletePost(Long postId) {
+        Optional<DeletionJob> existing = deletionJobRepository.findByTargetTypeAndTargetId(DeletionJob.TargetType.POST, postId);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        Post post = postRepository.findById(postId)
+                .orElseThrow(() -> new RuntimeException("Post not found"));
+        postRepository.markDeleted(postId, LocalDateTime.now());
+        DeletionJob job = deletionJobRepository.save(new DeletionJob(DeletionJob.TargetType.POST, postId));
+
+        timelineService.onPostDeleted(post);
+        gameFeedCache.onPostDeleted(post);
+        searchService.onPostDeleted(postId);
+        afterCommit(this::trigger);
+        return job;
+    }
+
+    public Optional<DeletionJob> findJob(Long id) {
+        return deletionJobRepository.findById(id);
+    }
+
+    // 启动时接着跑上次没跑完的任务
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeOnStartup() {
+        trigger();
+    }
+
+    // 兜底：失败待重试的任务隔一段时间再跑
+    @Scheduled(fixedDelayString = "${deletion.retry-ms:60000}", initialDelayString = "${deletion.retry-ms:60000}")
+    public void retryPending() {
+        trigger();
+    }
+
+    private void trigger() {
+        rerun = true;
+        if (draining.compareAndSet(false, true)) {
+            worker.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            while (rerun && !Thread.currentThread().isInterrupted()) {
+                rerun = false;
+                for (DeletionJob job : deletionJobRepository.findByStatusInOrderByIdAsc(
+                        List.of(DeletionJob.Status.PENDING, DeletionJob.Status.RUNNING))) {
+                    run(job);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Deletion worker failed", e);
+        } finally {
+            draining.set(false);
+        }
+        // 放开标记前又有新任务提交
+        if (rerun) {
+            trigger();
+        }
+    }
+
+    private void run(DeletionJob job) {
+        log.info("Running deletion job {} for {} {} ({} rows deleted so far)",
+                job.getId(), job.getTargetType(), job.getTargetId(), job.getDeletedRows());
+        long deleted = 0;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                // 删一批和记进度在同一个事务里，进度和实际删掉的行数一致
+                Batch batch = transactionTemplate.execute(status -> {
+                    Batch next = job.getTargetType() == DeletionJob.TargetType.USER
+                            ? nextUserBatch(job.getTargetId())
+                            : nextPostBatch(job.getTargetId());
+                    if (next != null) {
+                        deletionJobRepository.recordProgress(job.getId(), DeletionJob.Status.RUNNING, next.phase(), next.rows());
+                    }
+                    return next;
+                });
+                if (batch == null) {
+                    transactionTemplate.executeWithoutResult(status ->
+                            deletionJobRepository.markFinished(job.getId(), DeletionJob.Status.DONE, LocalDateTime.now()));
+                    log.info("Deletion job {} finished, {} rows deleted in this run", job.getId(), deleted);
+                    return;
+                }
+                deleted += batch.rows();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Deletion job {} failed after {} rows in this run", job.getId(), deleted, e);
+            String message = String.valueOf(e.getMessage());
+            String error = message.substring(0, Math.min(message.length(), 1000));
+            transactionTemplate.executeWithoutResult(status ->
+                    deletionJobRepository.recordFailure(job.getId(), error, MAX_ATTEMPTS, DeletionJob.Status.FAILED));
+        }
+    }
+
+    private Batch nextUserBatch(long userId) {
+        // 1. 他自己的帖子
+        List<Long> postIds = jdbcTemplate.queryForList(
+                "SELECT id FROM posts WHERE user_id = ? ORDER BY id LIMIT ?", Long.class, userId, batchSize);
+        if (!postIds.isEmpty()) {
+            return new Batch(DeletionJob.Phase.POSTS, deletePostsBatch(postIds));
+        }
+
+        // 2. 别人帖子下：先删回复他的评论的回复，再删他的评论，删他的顶层评论时就不会再级联
+        List<Map<String, Object>> comments = jdbcTemplate.queryForList(
+                "SELECT c.id, c.post_id, c.parent_id FROM comments c JOIN comments p ON p.id = c.parent_id " +
+                        "WHERE p.user_id = ? ORDER BY c.id LIMIT ?", userId, batchSize);
+        if (comments.isEmpty()) {
+            comments = jdbcTemplate.queryForList(
+                    "SELECT id, post_id, parent_id FROM comments WHERE user_id = ? ORDER BY id LIMIT ?", userId, batchSize);
+        }
+        if (!comments.isEmpty()) {
+            return new Batch(DeletionJob.Phase.COMMENTS, deleteComments(comments));
+        }
+
+        // 3. 关注关系，顺带重算对方的关注数 / 粉丝数
+        List<Map<String, Object>> edges = jdbcTemplate.queryForList(
+                "SELECT id, following_id AS other_id FROM user_followers WHERE follower_id = ? ORDER BY id LIMIT ?",
+                userId, batchSize);
+        if (edges.isEmpty()) {
+            edges = jdbcTemplate.queryForList(
+                    "SELECT id, follower_id AS other_id FROM user_followers WHERE following_id = ? ORDER BY id LIMIT ?",
+                    userId, batchSize);
+        }
+        if (!edges.isEmpty()) {
+            int removed = deleteByIds("user_followers", ids(edges, "id"));
+            userRepository.recomputeFollowCounts(ids(edges, "other_id"));
+            return new Batch(DeletionJob.Phase.FOLLOWS, removed);
+        }
+
+        // 4. 用户本身，剩下的分数、粉丝数分片等小表由外键级联删除
+        int removed = jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+        if (removed > 0) {
+            afterCommit(() -> userPrincipalCache.evict(userId));
+            return new Batch(DeletionJob.Phase.TARGET, removed);
+        }
+        return null;
+    }
+
+    private Batch nextPostBatch(long postId) {
+        int removed = deletePostsBatch(List.of(postId));
+        return removed > 0 ? new Batch(DeletionJob.Phase.TARGET, removed) : null;
+    }
+
+    // 这些帖子下还有回复先删回复，再有评论删评论，都删完了才删帖子本身
+    private int deletePostsBatch(List<Long> postIds) {
+        String in = placeholders(postIds.size());
+        List<Object> args = new ArrayList<>(postIds);
+        args.add(batchSize);
+        List<Long> commentIds = jdbcTemplate.queryForList(
+                "SELECT id FROM comments WHERE post_id IN (" + in + ") AND parent_id IS NOT NULL ORDER BY id LIMIT ?",
+                Long.class, args.toArray());
+        if (commentIds.isEmpty()) {
+            commentIds = jdbcTemplate.queryForList(
+                    "SELECT id FROM comments WHERE post_id IN (" + in + ") ORDER BY id LIMIT ?",
+                    Long.class, args.toArray());
+        }
+        if (!commentIds.isEmpty()) {
+            commentIds.forEach(searchService::onCommentDeleted);
+            return deleteByIds("comments", commentIds);
+        }
+        postIds.forEach(searchService::onPostDeleted);
+        return deleteByIds("posts", postIds);
+    }
+
+    // 别人帖子下的一批评论：删掉后修正父评论的回复数和帖子的评论数、最近评论快照
+    private int deleteComments(List<Map<String, Object>> rows) {
+        List<Long> ids = ids(rows, "id");
+        Set<Long> deleting = new HashSet<>(ids);
+        Map<Long, Integer> perPost = new HashMap<>();
+        Map<Long, Integer> perParent = new HashMap<>();
+        for (Map<String, Object> row : rows) {
+            perPost.merge(((Number) row.get("post_id")).longValue(), 1, Integer::sum);
+            Number parentId = (Number) row.get("parent_id");
+            if (parentId != null && !deleting.contains(parentId.longValue())) {
+                perParent.merge(parentId.longValue(), 1, Integer::sum);
+            }
+        }
+
+        int removed = deleteByIds("comments", ids);
+        perParent.forEach((parentId, count) ->
+                jdbcTemplate.update("UPDATE comments SET reply_count = reply_count - ? WHERE id = ?", count, parentId));
+        perPost.forEach(commentService::onCommentsRemoved);
+        ids.forEach(searchService::onCommentDeleted);
+        return removed;
+    }
+
+    private int deleteByIds(String table, List<Long> ids) {
+        return jdbcTemplate.update("DELETE FROM " + table + " WHERE id IN (" + placeholders(ids.size()) + ")",
+                ids.toArray());
+    }
+
+    private static List<Long> ids(List<Map<String, Object>> rows, String column) {
+        return rows.stream()
+                .map(row -> ((Number) row.get(column)).longValue())
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    private static String placeholders(int n) {
+        return String.join(", ", Collections.nCopies(n, "?"));
+    }
+
+    private record Batch(DeletionJob.Phase phase, int rows) {
+    }
+}
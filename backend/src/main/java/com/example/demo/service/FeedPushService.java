@@ -0,0 +1,428 @@
+package com.example.demo.service;
+
+import com.example.demo.cache.FollowGraph;
+import com.example.demo.config.AppThreads;
+import com.example.demo.model.Comment;
+import com.example.demo.model.Post;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.example.demo.cache.TransactionCallbacks.afterCommit;
+
+/**
+ * SSE 推送：关注的人发了新帖、正在看的帖子有新评论、有了新粉丝，都以很小的事件推给在线连接，
+ * 前端收到后再按需拉详情，不用反复轮询 feed。
+ *
+ * 空闲连接只占一个 SseEmitter（servlet 异步请求，不占线程）和一个有界队列。
+ * 发送由一个小线程池负责，每个连接同一时刻最多一个发送任务；
+ * 队列满说明客户端读得比事件产生得慢，直接断开（客户端 EventSource 会自动重连）。
+ * 客户端不读时 send 会阻塞在 socket 写上，队列再满也打断不了它：看门狗发现一次发送超过
+ * push.write-timeout-ms 就断开这个连接，并给线程池补一个线程顶替被卡住的那个，别的连接照常发送。
+ * 卡住的线程在 Tomcat 的写超时（server.tomcat.connection-timeout）后返回，线程池再缩回去。
+ * 只推送本进程内发生的变更。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FeedPushService {
+
+    private final FollowGraph followGraph;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final AppThreads appThreads;
+
+    // 每个连接最多积压多少条事件
+    @Value("${push.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${push.sender-threads:4}")
+    private int senderThreads;
+
+    // 单次发送超过这个时间算客户端卡住，断开连接
+    @Value("${push.write-timeout-ms:5000}")
+    private long writeTimeoutMs;
+
+    // 最多同时为多少个卡住的发送补线程，超过后只断开连接不再补
+    @Value("${push.max-stalled-senders:256}")
+    private int maxStalledSenders;
+
+    // 每个用户最多同时几个连接（多开标签页）
+    @Value("${push.max-connections-per-user:5}")
+    private int maxConnectionsPerUser;
+
+    @Value("${push.max-watched-posts:20}")
+    private int maxWatchedPosts;
+
+    // 连接最长保持时间，到期后客户端重连
+    @Value("${push.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    private final Map<String, Subscriber> connections = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Subscriber>> byUser = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Subscriber>> byWatchedPost = new ConcurrentHashMap<>();
+
+    private Executor sender;
+    private final AtomicInteger replacedSenders = new AtomicInteger();
+    private Counter evicted;
+    private Counter stalled;
+    private Counter delivered;
+
+    @PostConstruct
+    void init() {
+        if (appThreads.isVirtual()) {
+            // 虚拟线程下每次发送一个线程，卡住的连接不占用别人的发送线程
+            sender = appThreads.perTaskExecutor("feed-push-");
+        } else {
+            // 排队的任务数不超过连接数（每个连接最多一个），队列不需要另设上限；
+            // 卡住的发送由 evictStalledWriters 补线程，线程数会临时超过 senderThreads
+            sender = new ThreadPoolExecutor(senderThreads, senderThreads, 60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), appThreads.threadFactory("feed-push-"));
+        }
+
+        Gauge.builder("push.connections", connections, Map::size)
+                .description("Open SSE push connections")
+                .register(meterRegistry);
+        evicted = Counter.builder("push.evicted")
+                .description("Push connections dropped because the client fell behind")
+                .register(meterRegistry);
+        stalled = Counter.builder("push.stalled")
+                .description("Push connections dropped because a single write exceeded the write timeout")
+                .register(meterRegistry);
+        Gauge.builder("push.sender.replaced", replacedSenders, AtomicInteger::get)
+                .description("Extra sender threads standing in for writes stuck on slow clients")
+                .register(meterRegistry);
+        delivered = Counter.builder("push.events.sent")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        connections.values().forEach(this::close);
+        if (sender instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * 建立推送连接。连接建立后先发一条 ready 事件，data 里是连接 id，用于 {@link #watchPost}。
+     *
+     * @throws IllegalStateException 该用户的连接数已达上限
+     */
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(UUID.randomUUID().toString(), userId, emitter, queueCapacity);
+        // 在 compute 里检查和加入，和 remove 里清空集合的操作互斥
+        byUser.compute(userId, (k, set) -> {
+            Set<Subscriber> own = set != null ? set : ConcurrentHashMap.newKeySet();
+            if (own.size() >= maxConnectionsPerUser) {
+                throw new IllegalStateException("Too many push connections");
+            }
+            own.add(subscriber);
+            return own;
+        });
+        connections.put(subscriber.id, subscriber);
+
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> close(subscriber));
+        emitter.onError(e -> remove(subscriber));
+
+        offer(subscriber, new PushEvent("ready", "{\"connectionId\":\"" + subscriber.id + "\"}"));
+        return emitter;
+    }
+
+    /**
+     * 连接订阅某个帖子的新评论（用户打开帖子详情时调用）。
+     *
+     * @return false 表示连接不存在或不属于该用户
+     */
+    public boolean watchPost(String connectionId, Long userId, Long postId) {
+        Subscriber subscriber = connections.get(connectionId);
+        if (subscriber == null || !subscriber.userId.equals(userId)) {
+            return false;
+        }
+        synchronized (subscriber.watched) {
+            if (subscriber.watched.contains(postId)) {
+                return true;
+            }
+            // 超过上限时换掉最早订阅的那个
+            if (subscriber.watched.size() >= maxWatchedPosts) {
+                Long oldest = subscriber.watched.iterator().next();
+                subscriber.watched.remove(oldest);
+                removeWatcher(oldest, subscriber);
+            }
+            subscriber.watched.add(postId);
+        }
+        byWatchedPost.compute(postId, (k, set) -> {
+            Set<Subscriber> watchers = set != null ? set : ConcurrentHashMap.newKeySet();
+            watchers.add(subscriber);
+            return watchers;
+        });
+        return true;
+    }
+
+    public boolean unwatchPost(String connectionId, Long userId, Long postId) {
+        Subscriber subscriber = connections.get(connectionId);
+        if (subscriber == null || !subscriber.userId.equals(userId)) {
+            return false;
+        }
+        synchronized (subscriber.watched) {
+            subscriber.watched.remove(postId);
+        }
+        removeWatcher(postId, subscriber);
+        return true;
+    }
+
+    // 作者的在线粉丝；粉丝比在线用户多时反过来遍历在线用户
+    public void onPostCreated(Post post) {
+        long authorId = post.getUser().getId();
+        PushEvent event = event("post", Map.of(
+                "postId", post.getId(),
+                "authorId", authorId,
+                "gameType", post.getGameType()));
+        afterCommit(() -> {
+            if (followGraph.followerCount(authorId) <= byUser.size()) {
+                for (long followerId : followGraph.followerIds(authorId)) {
+                    offerAll(byUser.get(followerId), event);
+                }
+            } else {
+                byUser.forEach((userId, subscribers) -> {
+                    if (followGraph.isFollowing(userId, authorId)) {
+                        offerAll(subscribers, event);
+                    }
+                });
+            }
+        });
+    }
+
+    public void onCommentCreated(Comment comment) {
+        Long postId = comment.getPost().getId();
+        PushEvent event = event("comment", Map.of(
+                "postId", postId,
+                "commentId", comment.getId(),
+                "authorId", comment.getUser().getId()));
+        afterCommit(() -> offerAll(byWatchedPost.get(postId), event));
+    }
+
+    public void onFollowed(Long followerId, Long followingId) {
+        PushEvent event = event("follower", Map.of("followerId", followerId));
+        afterCommit(() -> offerAll(byUser.get(followingId), event));
+    }
+
+    // 定期发注释行：保持代理不断开，也顺便发现已经断掉的连接
+    @Scheduled(fixedDelayString = "${push.heartbeat-ms:25000}")
+    public void heartbeat() {
+        connections.values().forEach(s -> offer(s, PushEvent.HEARTBEAT));
+    }
+
+    // 发送看门狗：一次写超过 write-timeout 的连接直接断开，卡住的线程由新线程顶替
+    @Scheduled(fixedDelayString = "${push.write-check-ms:1000}")
+    public void evictStalledWriters() {
+        long now = clock();
+        long timeout = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMs);
+        for (Subscriber subscriber : connections.values()) {
+            long started = subscriber.sendStarted.get();
+            if (started <= 0 || now - started <= timeout) {
+                continue;
+            }
+            boolean replace = sender instanceof ThreadPoolExecutor && replacedSenders.get() < maxStalledSenders;
+            if (!subscriber.sendStarted.compareAndSet(started, replace ? STALLED_REPLACED : STALLED)) {
+                // 刚好发完了
+                continue;
+            }
+            stalled.increment();
+            log.debug("Evicting push connection {} of user {}, write blocked for {} ms",
+                    subscriber.id, subscriber.userId, TimeUnit.NANOSECONDS.toMillis(now - started));
+            if (replace) {
+                resizeSender(1);
+            }
+            close(subscriber);
+        }
+    }
+
+    public int connectionCount() {
+        return connections.size();
+    }
+
+    private PushEvent event(String name, Map<String, Object> data) {
+        try {
+            return new PushEvent(name, objectMapper.writeValueAsString(data));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void offerAll(Set<Subscriber> subscribers, PushEvent event) {
+        if (subscribers != null) {
+            subscribers.forEach(s -> offer(s, event));
+        }
+    }
+
+    private void offer(Subscriber subscriber, PushEvent event) {
+        if (subscriber.closed.get()) {
+            return;
+        }
+        if (!subscriber.queue.offer(event)) {
+            evicted.increment();
+            log.debug("Evicting slow push connection {} of user {}", subscriber.id, subscriber.userId);
+            close(subscriber);
+            return;
+        }
+        schedule(subscriber);
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            try {
+                sender.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException e) {
+                // 只会在关闭过程中发生
+                subscriber.draining.set(false);
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            PushEvent event;
+            while (!subscriber.closed.get() && (event = subscriber.queue.poll()) != null) {
+                if (event == PushEvent.HEARTBEAT) {
+                    send(subscriber, SseEmitter.event().comment("keepalive"));
+                } else {
+                    send(subscriber, SseEmitter.event().name(event.name()).data(event.json()));
+                    delivered.increment();
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // 客户端已断开，或者连接已经结束
+            close(subscriber);
+        } finally {
+            subscriber.draining.set(false);
+        }
+        // 放开标记和入队之间可能有新事件进来
+        if (!subscriber.queue.isEmpty() && !subscriber.closed.get()) {
+            schedule(subscriber);
+        }
+    }
+
+    // 发送期间在 sendStarted 里记下开始时间，看门狗据此判断是否卡住
+    private void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) throws IOException {
+        long started = clock();
+        subscriber.sendStarted.set(started);
+        try {
+            subscriber.emitter.send(event);
+        } finally {
+            // 被看门狗标记过：连接已经断开，补上的线程在这里还回去
+            if (!subscriber.sendStarted.compareAndSet(started, 0)
+                    && subscriber.sendStarted.get() == STALLED_REPLACED) {
+                resizeSender(-1);
+            }
+        }
+    }
+
+    // 临时增减发送线程：增加时先调最大值，减少时先调核心数，保证 core <= max
+    private void resizeSender(int delta) {
+        if (!(sender instanceof ThreadPoolExecutor pool)) {
+            return;
+        }
+        synchronized (pool) {
+            if (delta > 0) {
+                pool.setMaximumPoolSize(pool.getMaximumPoolSize() + delta);
+                pool.setCorePoolSize(pool.getCorePoolSize() + delta);
+            } else {
+                pool.setCorePoolSize(pool.getCorePoolSize() + delta);
+                pool.setMaximumPoolSize(pool.getMaximumPoolSize() + delta);
+            }
+        }
+        replacedSenders.addAndGet(delta);
+    }
+
+    // 大于 0 的单调时钟，sendStarted 用 0 和负数表示没在发送 / 已被看门狗处理
+    private static long clock() {
+        return System.nanoTime() - CLOCK_BASE;
+    }
+
+    private void close(Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return;
+        }
+        remove(subscriber);
+        try {
+            subscriber.emitter.complete();
+        } catch (RuntimeException e) {
+            log.debug("Failed to complete push connection {}", subscriber.id, e);
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscriber.closed.set(true);
+        subscriber.queue.clear();
+        if (connections.remove(subscriber.id) == null) {
+            return;
+        }
+        byUser.computeIfPresent(subscriber.userId, (k, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+        List<Long> watched;
+        synchronized (subscriber.watched) {
+            watched = new ArrayList<>(subscriber.watched);
+        }
+        watched.forEach(postId -> removeWatcher(postId, subscriber));
+    }
+
+    private void removeWatcher(Long postId, Subscriber subscriber) {
+        byWatchedPost.computeIfPresent(postId, (k, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /**
+     * @param json 已经序列化好的 data，同一事件发给多个连接时只序列化一次
+     */
+    record PushEvent(String name, String json) {
+        static final PushEvent HEARTBEAT = new PushEvent("heartbeat", "");
+    }
+
+    private static final long CLOCK_BASE = System.nanoTime() - 1;
+    private static final long STALLED = -1;
+    private static final long STALLED_REPLACED = -2;
+
+    private static final class Subscriber {
+        final String id;
+        final Long userId;
+        final SseEmitter emitter;
+        final BlockingQueue<PushEvent> queue;
+        // 按订阅先后排序，超过上限时换掉最早的
+        final Set<Long> watched = new LinkedHashSet<>();
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean closed = new AtomicBoolean();
+        // 当前这次发送的开始时间（clock()），0 表示没在发送，STALLED / STALLED_REPLACED 表示被看门狗断开
+        final AtomicLong sendStarted = new AtomicLong();
+
+        Subscriber(String id, Long userId, SseEmitter emitter, int capacity) {
+            this.id = id;
+            this.userId = userId;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+    }
+}
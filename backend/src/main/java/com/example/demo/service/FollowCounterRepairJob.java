@@ -0,0 +1,86 @@
+package com.example.demo.service;
+
+import com.example.demo.cache.UserPrincipalCache;
+import com.example.demo.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * 定期把 users 上的关注计数和 user_followers 对一遍账。
+ *
+ * 按用户 id 分批，每批一个短事务：先找出计数对不上的用户，只重算这些行。
+ * 计数在正常路径上和关系行同事务写入，这里兜底的是手工改数据、
+ * 级联删除用户等绕过 FollowService 的情况。
+ */
+@Slf4j
+@Component
+public class FollowCounterRepairJob {
+
+    private final UserRepository userRepository;
+    private final UserPrincipalCache userPrincipalCache;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter repaired;
+
+    @Value("${follow.counters.repair-batch-size:1000}")
+    private int batchSize;
+
+    public FollowCounterRepairJob(UserRepository userRepository,
+                                  UserPrincipalCache userPrincipalCache,
+                                  TransactionTemplate transactionTemplate,
+                                  MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.userPrincipalCache = userPrincipalCache;
+        this.transactionTemplate = transactionTemplate;
+        this.repaired = Counter.builder("follow.counters.repaired")
+                .description("Users whose follow counters were corrected by the repair job")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${follow.counters.repair-cron:0 30 4 * * *}")
+    public void scheduledRepair() {
+        int fixed = repairAll();
+        if (fixed > 0) {
+            log.info("Follow counter repair corrected {} users", fixed);
+        }
+    }
+
+    /**
+     * @return 被修正的用户数
+     */
+    public int repairAll() {
+        int fixed = 0;
+        long afterId = 0;
+        while (true) {
+            List<Long> ids = userRepository.findIdsAfter(afterId, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                return fixed;
+            }
+            fixed += repairBatch(ids);
+            afterId = ids.get(ids.size() - 1);
+        }
+    }
+
+    private int repairBatch(List<Long> ids) {
+        List<Long> drifted = transactionTemplate.execute(status -> {
+            List<Long> found = userRepository.findIdsWithFollowCountDrift(ids);
+            if (!found.isEmpty()) {
+                userRepository.recomputeFollowCounts(found);
+            }
+            return found;
+        });
+        if (drifted == null || drifted.isEmpty()) {
+            return 0;
+        }
+        drifted.forEach(userPrincipalCache::evict);
+        repaired.increment(drifted.size());
+        return drifted.size();
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.demo.service;
+
+import com.example.demo.cache.FollowGraph;
+import com.example.demo.model.UserFollow;
+import com.example.demo.repository.FollowerCountShardRepository;
+import com.example.demo.repository.UserFollowRepository;
+import com.example.demo.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 关注 / 取关。关系行和 users 上的计数在同一个事务里写。
+ *
+ * 计数都用原子的 +delta 更新，不先读再写。被关注者的那一行放在事务最后更新，
+ * 行锁只持有到提交；粉丝数达到阈值的热门账号改为写到随机分片
+ * （{@link com.example.demo.model.FollowerCountShard}），并发关注分散到多行。
+ * 关注数、粉丝数对外只从这里读（users 上的计数加分片），个人主页和计数接口看到的是同一个数。
+ */
+@Service
+@RequiredArgsConstructor
+public class FollowService {
+
+    public static final int FOLLOWER_COUNT_SHARDS = 8;
+
+    private final UserFollowRepository userFollowRepository;
+    private final UserRepository userRepository;
+    private final FollowerCountShardRepository followerCountShardRepository;
+    private final FollowGraph followGraph;
+    private final TimelineService timelineService;
+    private final FeedPushService feedPushService;
+    private final TransactionTemplate transactionTemplate;
+
+    // 粉丝数达到该值后，粉丝计数改写分片
+    @Value("${follow.counters.hot-threshold:1000}")
+    private long hotThreshold;
+
+    /**
+     * @return false 表示已经关注过
+     */
+    public boolean follow(Long followerId, Long followingId) {
+        if (followGraph.isFollowing(followerId, followingId)) {
+            return false;
+        }
+
+        // 内存图只挡得住先后到达的重复关注；同时到达的两次由唯一约束拦下。
+        // 在事务外面捕获：违反约束时整个事务已经回滚，计数没有动
+        try {
+            transactionTemplate.executeWithoutResult(status -> insertFollow(followerId, followingId));
+        } catch (DataIntegrityViolationException e) {
+            if (!userRepository.existsById(followingId)) {
+                throw new RuntimeException("User not found");
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private void insertFollow(Long followerId, Long followingId) {
+        UserFollow follow = new UserFollow();
+        follow.setFollowerId(followerId);
+        follow.setFollowingId(followingId);
+        userFollowRepository.saveAndFlush(follow);
+
+        applyDelta(followerId, followingId, 1);
+        followGraph.onFollow(followerId, followingId);
+        timelineService.onFollowChanged(followerId);
+        feedPushService.onFollowed(followerId, followingId);
+    }
+
+    /**
+     * @return false 表示本来就没有关注
+     */
+    @Transactional
+    public boolean unfollow(Long followerId, Long followingId) {
+        if (userFollowRepository.deleteByFollowerIdAndFollowingId(followerId, followingId) == 0) {
+            return false;
+        }
+
+        applyDelta(followerId, followingId, -1);
+        followGraph.onUnfollow(followerId, followingId);
+        timelineService.onFollowChanged(followerId);
+        return true;
+    }
+
+    @Transactional(readOnly = true)
+    public long getFollowerCount(Long userId) {
+        return userRepository.findById(userId)
+                .map(user -> user.getFollowerCount() + followerCountShardRepository.sumByUserId(userId))
+                .orElse(0L);
+    }
+
+    @Transactional(readOnly = true)
+    public long getFollowingCount(Long userId) {
+        return userRepository.findById(userId)
+                .map(user -> user.getFollowingCount())
+                .orElse(0L);
+    }
+
+    private void applyDelta(Long followerId, Long followingId, long delta) {
+        userRepository.incrementFollowingCount(followerId, delta);
+
+        if (followGraph.followerCount(followingId) >= hotThreshold) {
+            int shard = ThreadLocalRandom.current().nextInt(FOLLOWER_COUNT_SHARDS);
+            followerCountShardRepository.increment(followingId, shard, delta);
+        } else {
+            userRepository.incrementFollowerCount(followingId, delta);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.demo.service;
+
+import com.example.demo.cache.ResourceVersions;
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.FeedCursor;
+import com.example.demo.dto.PostDto;
+import com.example.demo.model.GameType;
+import com.example.demo.model.Post;
+import com.example.demo.repository.PostFeedRow;
+import com.example.demo.repository.PostRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static com.example.demo.cache.TransactionCallbacks.afterCommit;
+
+/**
+ * 每个 GameType 最新 N 条帖子的缓存，存的是已经组装好的 PostDto。
+ *
+ * 读：游标落在缓存窗口内、且窗口里剩下的条数够一页时直接返回，否则由调用方回退到数据库。
+ * 写：PostService 的增删改和 CommentService 的评论变化在提交后原地更新对应条目，
+ * 同时推进 {@link ResourceVersions} 里的 feed 版本号（条件 GET 用）。
+ * 每个 GameType 一份不可变快照，读不加锁；写在该 GameType 上串行，替换整份快照。
+ */
+@Component
+@RequiredArgsConstructor
+public class GameFeedCache {
+
+    private static final Comparator<CachedPost> NEWEST_FIRST = Comparator
+            .comparing(CachedPost::createdAt).reversed()
+            .thenComparing(Comparator.comparing(CachedPost::id).reversed());
+
+    private final PostRepository postRepository;
+    private final PostFeedService postFeedService;
+    private final ResourceVersions resourceVersions;
+    private final MeterRegistry meterRegistry;
+
+    // 每个 GameType 缓存多少条
+    @Value("${feed.game-cache.size:200}")
+    private int capacity;
+
+    private final Map<GameType, Feed> feeds = new EnumMap<>(GameType.class);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        for (GameType gameType : GameType.values()) {
+            feeds.put(gameType, new Feed());
+        }
+
+        FunctionCounter.builder("feed.game.cache.hits", this, GameFeedCache::hitCount)
+                .description("Game feed pages served from memory")
+                .register(meterRegistry);
+        FunctionCounter.builder("feed.game.cache.misses", this, GameFeedCache::missCount)
+                .description("Game feed pages that went to the database")
+                .register(meterRegistry);
+        Gauge.builder("feed.game.cache.hit.ratio", this, GameFeedCache::hitRatio)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 从缓存取一页；缓存覆盖不了这一页时返回 empty。
+     */
+    public Optional<CursorPage<PostDto>> getPage(GameType gameType, FeedCursor cursor, int limit) {
+        int size = PostService.clampPageSize(limit);
+        Snapshot snapshot = feeds.get(gameType).snapshot();
+        if (snapshot == null) {
+            snapshot = load(gameType);
+        }
+
+        int start = cursor == null ? 0 : snapshot.indexAfter(cursor);
+        int end = start + size;
+        // 需要多看一条判断有没有下一页；窗口已经包含全部帖子时不需要
+        if (start < 0 || (end >= snapshot.posts.size() && !snapshot.complete)) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+
+        hits.incrementAndGet();
+        List<CachedPost> window = snapshot.posts.subList(start, Math.min(end, snapshot.posts.size()));
+        String nextCursor = null;
+        if (end < snapshot.posts.size()) {
+            CachedPost last = window.get(window.size() - 1);
+            nextCursor = new FeedCursor(last.createdAt(), last.id()).encode();
+        }
+        return Optional.of(new CursorPage<>(window.stream().map(CachedPost::dto).toList(), nextCursor));
+    }
+
+    public void onPostCreated(Post post) {
+        PostDto dto = postFeedService.toDto(PostFeedRow.of(post), post.getRecentComments());
+        CachedPost entry = new CachedPost(post.getId(), post.getCreatedAt(), dto);
+        afterCommit(() -> {
+            feeds.get(post.getGameType()).update(posts -> {
+                posts.add(entry);
+                posts.sort(NEWEST_FIRST);
+            });
+            resourceVersions.postsChanged(post.getGameType());
+        });
+    }
+
+    // 内容或评论变化：重新查一次该帖子并替换
+    public void onPostChanged(Long postId) {
+        afterCommit(() -> {
+            List<PostFeedRow> rows = postRepository.findFeedRowsByIdIn(List.of(postId));
+            if (rows.isEmpty()) {
+                return;
+            }
+            PostFeedRow row = rows.get(0);
+            CachedPost entry = new CachedPost(row.id(), row.createdAt(), postFeedService.toDtos(rows).get(0));
+            feeds.get(row.gameType()).update(posts -> posts.replaceAll(p -> p.id().equals(postId) ? entry : p));
+            resourceVersions.postsChanged(row.gameType());
+        });
+    }
+
+    public void onPostDeleted(Post post) {
+        afterCommit(() -> {
+            feeds.get(post.getGameType()).update(posts -> posts.removeIf(p -> p.id().equals(post.getId())));
+            resourceVersions.postsChanged(post.getGameType());
+        });
+    }
+
+    // 作者资料变化、批量删除等无法定位到单条的情况，整体丢弃
+    public void invalidateAll() {
+        afterCommit(() -> {
+            feeds.values().forEach(Feed::clear);
+            resourceVersions.allPostsChanged();
+        });
+    }
+
+    public long hitCount() {
+        return hits.get();
+    }
+
+    public long missCount() {
+        return misses.get();
+    }
+
+    public double hitRatio() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    private Snapshot load(GameType gameType) {
+        Feed feed = feeds.get(gameType);
+        long version = feed.version();
+        List<PostFeedRow> rows = postRepository.findGameFeedFirstPage(gameType, PageRequest.of(0, capacity + 1));
+        boolean complete = rows.size() <= capacity;
+        if (!complete) {
+            rows = rows.subList(0, capacity);
+        }
+        List<PostDto> dtos = postFeedService.toDtos(rows);
+        List<CachedPost> posts = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            posts.add(new CachedPost(rows.get(i).id(), rows.get(i).createdAt(), dtos.get(i)));
+        }
+        Snapshot snapshot = new Snapshot(List.copyOf(posts), complete);
+        // 查询期间有写入的话，这份结果可能漏掉那次写入，只用这一次不放进缓存
+        feed.installIfUnchanged(snapshot, version);
+        return snapshot;
+    }
+
+    record CachedPost(Long id, LocalDateTime createdAt, PostDto dto) {
+    }
+
+    /**
+     * @param complete 为 true 时 posts 就是该 GameType 的全部帖子
+     */
+    private record Snapshot(List<CachedPost> posts, boolean complete) {
+
+        // 游标之后第一条的位置；游标比窗口里最旧的一条还旧时返回 -1
+        int indexAfter(FeedCursor cursor) {
+            CachedPost probe = new CachedPost(cursor.id(), cursor.createdAt(), null);
+            int i = Collections.binarySearch(posts, probe, NEWEST_FIRST);
+            int index = i >= 0 ? i + 1 : -i - 1;
+            if (index >= posts.size() && !complete) {
+                return -1;
+            }
+            return index;
+        }
+    }
+
+    private final class Feed {
+        private volatile Snapshot snapshot;
+        private long version;
+
+        Snapshot snapshot() {
+            return snapshot;
+        }
+
+        synchronized long version() {
+            return version;
+        }
+
+        synchronized void installIfUnchanged(Snapshot loaded, long expectedVersion) {
+            if (version == expectedVersion) {
+                snapshot = loaded;
+            }
+        }
+
+        // 没加载过就只记版本号，等下次读取时从数据库加载
+        synchronized void update(Consumer<List<CachedPost>> change) {
+            version++;
+            Snapshot current = snapshot;
+            if (current == null) {
+                return;
+            }
+            List<CachedPost> posts = new ArrayList<>(current.posts);
+            int before = posts.size();
+            change.accept(posts);
+            boolean complete = current.complete;
+            if (posts.size() > capacity) {
+                posts.subList(capacity, posts.size()).clear();
+                complete = false;
+            }
+            // 删到空了但数据库里可能还有更旧的，下次重新加载
+            if (posts.isEmpty() && !complete && before > 0) {
+                snapshot = null;
+                return;
+            }
+            snapshot = new Snapshot(List.copyOf(posts), complete);
+        }
+
+        synchronized void clear() {
+            version++;
+            snapshot = null;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.demo.service;
+
+import com.example.demo.cache.UserPrincipalCache;
+import com.example.demo.config.AppThreads;
+import com.example.demo.model.ImageVariant;
+import com.example.demo.model.Post;
+import com.example.demo.repository.ImageVariantRepository;
+import com.example.demo.repository.PostRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.storage.BlobStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.*;
+
+/**
+ * 上传图片的衍生图（缩略图 + feed 宽度版本）后台生成。
+ *
+ * 上传请求只负责存原图，然后把任务丢到这里的有界线程池就返回。
+ * 队列满时 {@link #reserveSlot()} 返回 false，上传接口据此直接拒绝（503），
+ * 不会在内存里无限堆积待处理的图片。生成完成后按原图 URL 回写帖子和用户头像。
+ *
+ * 发帖和生成可能同时进行：任务先提交衍生图记录再回写帖子，发帖先提交帖子再查一次衍生图
+ * （{@link #fillPostVariants}），两边至少有一边能看到对方，帖子不会一直缺衍生图。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImageDerivativeService {
+
+    public static final int THUMBNAIL_SIZE = 150;
+    public static final int FEED_WIDTH = 640;
+
+    // 解码前先看尺寸，超过这个像素数的图不处理，防止解压炸弹把堆撑爆
+    private static final long MAX_PIXELS = 40_000_000L;
+
+    private final BlobStore blobStore;
+    private final ImageVariantRepository imageVariantRepository;
+    private final PostRepository postRepository;
+    private final UserRepository userRepository;
+    private final UserPrincipalCache userPrincipalCache;
+    private final GameFeedCache gameFeedCache;
+    private final TransactionTemplate transactionTemplate;
+    private final AppThreads appThreads;
+
+    @Value("${image.derivatives.workers:2}")
+    private int workers;
+
+    // 排队 + 正在处理的任务总数上限
+    @Value("${image.derivatives.queue-capacity:100}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+    private Semaphore slots;
+
+    @PostConstruct
+    void init() {
+        slots = new Semaphore(queueCapacity);
+        // 缩放是 CPU 密集的，虚拟线程模式下也保持固定的 worker 数
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                appThreads.threadFactory("image-derivatives-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 在存原图之前占一个队列位置；返回 false 表示处理不过来了，调用方应拒绝上传。
+     */
+    public boolean reserveSlot() {
+        return slots.tryAcquire();
+    }
+
+    // 原图没存成功时把占的位置还回去
+    public void releaseSlot() {
+        slots.release();
+    }
+
+    /**
+     * 提交已经占好位置的任务。只对图片类型调用。
+     */
+    public void submit(String key, String originalUrl) {
+        try {
+            executor.execute(() -> {
+                try {
+                    process(key, originalUrl);
+                } catch (Exception e) {
+                    log.warn("Failed to generate derivatives for {}", key, e);
+                } finally {
+                    slots.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 只会在关闭过程中发生，容量已经由 slots 控制
+            slots.release();
+            log.warn("Derivative job for {} rejected", key);
+        }
+    }
+
+    public Optional<ImageVariant> findVariant(String originalUrl) {
+        if (originalUrl == null || originalUrl.isBlank()) {
+            return Optional.empty();
+        }
+        return imageVariantRepository.findByOriginalUrl(originalUrl);
+    }
+
+    /**
+     * 帖子插入并提交之后调用：创建时还没有衍生图的话再查一次，期间生成完的任务回写不到这个帖子，由这里补上。
+     */
+    public void fillPostVariants(Post post) {
+        if (post.getThumbnailUrl() != null) {
+            return;
+        }
+        findVariant(post.getImageUrl()).ifPresent(variant -> {
+            transactionTemplate.executeWithoutResult(status ->
+                    postRepository.updateImageVariants(variant.getOriginalUrl(), variant.getThumbnailUrl(), variant.getFeedUrl()));
+            post.setThumbnailUrl(variant.getThumbnailUrl());
+            post.setFeedImageUrl(variant.getFeedUrl());
+            gameFeedCache.invalidateAll();
+        });
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    private void process(String key, String originalUrl) throws IOException {
+        BufferedImage original = read(key);
+        if (original == null) {
+            log.info("Skipping derivatives for {}: not a decodable image", key);
+            return;
+        }
+
+        boolean alpha = original.getColorModel().hasAlpha();
+        String format = alpha ? "png" : "jpg";
+        String contentType = alpha ? "image/png" : "image/jpeg";
+
+        String thumbnailUrl = store(key + "_thumb." + format, contentType,
+                encode(cropSquare(original, THUMBNAIL_SIZE), format));
+        String feedUrl = store(key + "_w" + FEED_WIDTH + "." + format, contentType,
+                encode(scaleToWidth(original, FEED_WIDTH), format));
+
+        // 衍生图记录单独先提交，之后再回写：和发帖那边的先插帖子再查衍生图配对，见类注释
+        imageVariantRepository.save(new ImageVariant(originalUrl, thumbnailUrl, feedUrl));
+        transactionTemplate.executeWithoutResult(status -> {
+            // 帖子 / 头像可能在衍生图生成完之前就已经引用了原图，这里补上
+            postRepository.updateImageVariants(originalUrl, thumbnailUrl, feedUrl);
+            userRepository.updateAvatarThumbnail(originalUrl, thumbnailUrl);
+        });
+        userRepository.findIdsByAvatar(originalUrl).forEach(userPrincipalCache::evict);
+        gameFeedCache.invalidateAll();
+    }
+
+    private BufferedImage read(String key) throws IOException {
+        try (InputStream in = blobStore.open(key);
+             ImageInputStream iis = ImageIO.createImageInputStream(in)) {
+            if (iis == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > MAX_PIXELS) {
+                    log.info("Skipping derivatives for {}: {} pixels exceeds limit", key, pixels);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private String store(String key, String contentType, byte[] data) throws IOException {
+        return blobStore.store(key, new ByteArrayInputStream(data), data.length, contentType);
+    }
+
+    // 居中裁成正方形再缩放
+    static BufferedImage cropSquare(BufferedImage src, int size) {
+        int side = Math.min(src.getWidth(), src.getHeight());
+        int x = (src.getWidth() - side) / 2;
+        int y = (src.getHeight() - side) / 2;
+        return resize(src.getSubimage(x, y, side, side), size, size);
+    }
+
+    // 比目标宽度小的图不放大
+    static BufferedImage scaleToWidth(BufferedImage src, int width) {
+        if (src.getWidth() <= width) {
+            return resize(src, src.getWidth(), src.getHeight());
+        }
+        int height = Math.max(1, (int) Math.round((double) src.getHeight() * width / src.getWidth()));
+        return resize(src, width, height);
+    }
+
+    private static BufferedImage resize(BufferedImage src, int width, int height) {
+        int type = src.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage out = new BufferedImage(width, height, type);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(src, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+
+    private static byte[] encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!ImageIO.write(image, format, out)) {
+            throw new IOException("No ImageIO writer for " + format);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.demo.service;
+
+import com.example.demo.cache.RankedSkipList;
+import com.example.demo.cache.ResourceVersions;
+import com.example.demo.dto.LeaderboardEntryDto;
+import com.example.demo.model.GameRanking;
+import com.example.demo.model.GameType;
+import com.example.demo.model.PlayerScore;
+import com.example.demo.model.User;
+import com.example.demo.repository.GameRankingRepository;
+import com.example.demo.repository.PlayerScoreRepository;
+import com.example.demo.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.example.demo.cache.TransactionCallbacks.afterCommit;
+
+/**
+ * 每个 GameType 一个内存排行榜（{@link RankedSkipList}），分数持久化在 player_scores。
+ *
+ * 启动时从表里重建，提交分数后增量更新。前 K 名、某人的名次、某人前后的玩家都是 O(log n) 定位。
+ * 提交后按数据库里已提交的分数更新，不用请求里的值：并发提交的回调顺序和提交顺序可能不一样。
+ * 段位名按 GameRanking 里的分数线换算：取分数线不高于玩家分数的最高一档。
+ */
+@Service
+@RequiredArgsConstructor
+public class LeaderboardService {
+
+    public static final int DEFAULT_LIMIT = 10;
+    public static final int MAX_LIMIT = 100;
+    public static final int MAX_RADIUS = 50;
+
+    private static final int LOAD_BATCH_SIZE = 10_000;
+
+    private final PlayerScoreRepository playerScoreRepository;
+    private final GameRankingRepository gameRankingRepository;
+    private final UserRepository userRepository;
+    private final ResourceVersions resourceVersions;
+
+    private final Map<GameType, RankedSkipList> boards = new EnumMap<>(GameType.class);
+    private final Map<GameType, NavigableMap<Long, String>> tiers = new EnumMap<>(GameType.class);
+
+    @PostConstruct
+    void init() {
+        for (GameType gameType : GameType.values()) {
+            boards.put(gameType, new RankedSkipList());
+            tiers.put(gameType, new TreeMap<>());
+        }
+        for (GameRanking ranking : gameRankingRepository.findAll()) {
+            if (ranking.getGameType() != null && ranking.getRankingScore() != null) {
+                tiers.get(ranking.getGameType()).put(ranking.getRankingScore().longValue(), ranking.getRankingName());
+            }
+        }
+
+        long afterId = 0;
+        while (true) {
+            List<PlayerScore> batch = playerScoreRepository.findBatchAfter(afterId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            if (batch.isEmpty()) {
+                break;
+            }
+            for (PlayerScore score : batch) {
+                boards.get(score.getGameType()).put(score.getUserId(), score.getScore());
+            }
+            afterId = batch.get(batch.size() - 1).getId();
+        }
+    }
+
+    @Transactional
+    public void submitScore(Long userId, GameType gameType, long score) {
+        playerScoreRepository.upsert(userId, gameType.name(), score);
+        afterCommit(() -> refresh(userId, gameType));
+    }
+
+    // 加锁后重新读一次：最后一个进来的回调一定在所有相关事务提交之后，读到的是最新的分数
+    private void refresh(Long userId, GameType gameType) {
+        RankedSkipList board = boards.get(gameType);
+        synchronized (board) {
+            Optional<Long> committed = playerScoreRepository.findScore(userId, gameType);
+            if (committed.isPresent()) {
+                board.put(userId, committed.get());
+            } else {
+                board.remove(userId);
+            }
+        }
+        resourceVersions.leaderboardChanged(gameType);
+    }
+
+    public List<LeaderboardEntryDto> getTop(GameType gameType, int limit) {
+        return toDtos(gameType, boards.get(gameType).range(1, clampLimit(limit)));
+    }
+
+    public Optional<LeaderboardEntryDto> getEntry(GameType gameType, Long userId) {
+        RankedSkipList.Entry entry = boards.get(gameType).find(userId);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        return toDtos(gameType, List.of(entry)).stream().findFirst();
+    }
+
+    /**
+     * 某个玩家前后各 radius 名，包含他自己；不在榜上时返回空列表。
+     */
+    public List<LeaderboardEntryDto> getAround(GameType gameType, Long userId, int radius) {
+        RankedSkipList board = boards.get(gameType);
+        RankedSkipList.Entry entry = board.find(userId);
+        if (entry == null) {
+            return List.of();
+        }
+        int r = Math.max(0, Math.min(radius, MAX_RADIUS));
+        long from = Math.max(1, entry.rank() - r);
+        int count = (int) (entry.rank() - from) + r + 1;
+        return toDtos(gameType, board.range(from, count));
+    }
+
+    public long size(GameType gameType) {
+        return boards.get(gameType).size();
+    }
+
+    // 用户被删除时数据库级联删掉了分数，这里同步移出排行榜
+    public void onUserDeleted(Long userId) {
+        afterCommit(() -> {
+            for (GameType gameType : GameType.values()) {
+                if (boards.get(gameType).remove(userId)) {
+                    resourceVersions.leaderboardChanged(gameType);
+                }
+            }
+        });
+    }
+
+    private List<LeaderboardEntryDto> toDtos(GameType gameType, List<RankedSkipList.Entry> entries) {
+        if (entries.isEmpty()) {
+            return List.of();
+        }
+        // 一页的用户资料一次查完
+        Map<Long, User> users = userRepository.findAllById(entries.stream().map(RankedSkipList.Entry::userId).toList())
+                .stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        NavigableMap<Long, String> gameTiers = tiers.get(gameType);
+
+        List<LeaderboardEntryDto> result = new ArrayList<>(entries.size());
+        for (RankedSkipList.Entry entry : entries) {
+            LeaderboardEntryDto dto = new LeaderboardEntryDto();
+            dto.setRank(entry.rank());
+            dto.setUserId(entry.userId());
+            dto.setGameType(gameType);
+            dto.setScore(entry.score());
+            Map.Entry<Long, String> tier = gameTiers.floorEntry(entry.score());
+            dto.setRankingName(tier != null ? tier.getValue() : null);
+            User user = users.get(entry.userId());
+            if (user != null) {
+                dto.setName(user.getName());
+                dto.setPicture(user.getAvatar());
+            }
+            result.add(dto);
+        }
+        return result;
+    }
+
+    private static int clampLimit(int limit) {
+        if (limit <= 0) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+}
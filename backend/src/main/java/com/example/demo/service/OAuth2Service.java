@@ -1,5 +1,6 @@
 package com.example.demo.service;
 
+import com.example.demo.cache.UserPrincipalCache;
 import com.example.demo.model.OAuth2UserInfo;
 import com.example.demo.model.User;
 import com.example.demo.repository.UserRepository;
@@ -9,6 +10,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -18,6 +20,8 @@ public class OAuth2Service {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenProvider tokenProvider;
+    private final UserPrincipalCache userPrincipalCache;
+    private final GameFeedCache gameFeedCache;
 
     public String processOAuthLogin(Map<String, Object> attributes) {
         OAuth2UserInfo oAuth2UserInfo = new OAuth2UserInfo(attributes);
@@ -25,8 +29,10 @@ public class OAuth2Service {
         Optional<User> existingUser = userRepository.findByEmail(oAuth2UserInfo.getEmail());
         
         User user;
+        boolean nameChanged = false;
         if (existingUser.isPresent()) {
             user = existingUser.get();
+            nameChanged = !Objects.equals(user.getName(), oAuth2UserInfo.getName());
             // Update existing user with any new information
             user.setName(oAuth2UserInfo.getName());
             user.setProvider("google");
@@ -42,6 +48,11 @@ public class OAuth2Service {
         }
         
         userRepository.save(user);
+        userPrincipalCache.invalidate(user);
+        // feed 缓存里存的是带作者名的 DTO
+        if (nameChanged) {
+            gameFeedCache.invalidateAll();
+        }
         
         return tokenProvider.generateToken(user);
     }
@@ -0,0 +1,139 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.CommentDto;
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.PostDto;
+import com.example.demo.model.CommentSnapshot;
+import com.example.demo.repository.CommentRepository;
+import com.example.demo.repository.PostFeedRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 把一页 {@link PostFeedRow} 组装成 PostDto。
+ *
+ * 每页固定的查询数：帖子投影 1 条（由调用方完成），
+ * 再加最多 1 条窗口查询，给还没有评论快照的帖子批量取最新评论。
+ */
+@Service
+@RequiredArgsConstructor
+public class PostFeedService {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final CommentRepository commentRepository;
+
+    public CursorPage<PostDto> toDtoPage(CursorPage<PostFeedRow> page) {
+        return new CursorPage<>(toDtos(page.items()), page.nextCursor());
+    }
+
+    public List<PostDto> toDtos(List<PostFeedRow> rows) {
+        Map<Long, List<CommentSnapshot>> missing = loadMissingSnapshots(rows);
+        return rows.stream()
+                .map(row -> toDto(row, row.recentComments() != null
+                        ? row.recentComments()
+                        : missing.getOrDefault(row.id(), List.of())))
+                .collect(Collectors.toList());
+    }
+
+    public PostDto toDto(PostFeedRow row, List<CommentSnapshot> recent) {
+        PostDto dto = new PostDto();
+        dto.setId(row.id());
+        dto.setContent(row.content());
+        dto.setImageUrl(row.imageUrl());
+        dto.setThumbnailUrl(row.thumbnailUrl());
+        dto.setFeedImageUrl(row.feedImageUrl());
+        dto.setCreatedAt(format(row.createdAt()));
+        dto.setUpdatedAt(format(row.updatedAt()));
+        dto.setGameType(row.gameType());
+
+        PostDto.UserDto userDto = new PostDto.UserDto();
+        if (row.userId() != null) {
+            userDto.setId(row.userId());
+            userDto.setName(row.userName());
+            userDto.setEmail(row.userEmail());
+            userDto.setPicture(row.userAvatar());
+            userDto.setPictureThumbnail(row.userAvatarThumbnailUrl());
+        } else {
+            userDto.setId(0L);
+            userDto.setName("Unknown User");
+            userDto.setEmail("unknown@example.com");
+        }
+        dto.setUser(userDto);
+
+        if (row.rankingId() != null) {
+            PostDto.GameRankingDto rankingDto = new PostDto.GameRankingDto();
+            rankingDto.setId(row.rankingId());
+            rankingDto.setGameType(row.rankingGameType());
+            rankingDto.setRankingName(row.rankingName());
+            rankingDto.setRankingScore(row.rankingScore());
+            dto.setGameRanking(rankingDto);
+        }
+
+        dto.setCommentCount(row.commentCount());
+        if (recent != null && !recent.isEmpty()) {
+            dto.setRecentComments(recent.stream()
+                    .map(snapshot -> toCommentDto(snapshot, row.id()))
+                    .collect(Collectors.toList()));
+        }
+        return dto;
+    }
+
+    private CommentDto toCommentDto(CommentSnapshot snapshot, Long postId) {
+        CommentDto commentDto = new CommentDto();
+        commentDto.setId(snapshot.getId());
+        commentDto.setContent(snapshot.getContent());
+        commentDto.setCreatedAt(format(snapshot.getCreatedAt()));
+
+        CommentDto.UserDto commentUserDto = new CommentDto.UserDto();
+        commentUserDto.setId(snapshot.getUserId());
+        commentUserDto.setName(snapshot.getUserName());
+        commentUserDto.setEmail(snapshot.getUserEmail());
+        commentDto.setUser(commentUserDto);
+
+        commentDto.setPostId(postId);
+        return commentDto;
+    }
+
+    // 旧数据没有快照：一条窗口查询把整页缺的都补上
+    private Map<Long, List<CommentSnapshot>> loadMissingSnapshots(List<PostFeedRow> rows) {
+        List<Long> postIds = rows.stream()
+                .filter(row -> row.recentComments() == null && row.commentCount() > 0)
+                .map(PostFeedRow::id)
+                .collect(Collectors.toList());
+        if (postIds.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<Long, List<CommentSnapshot>> byPost = new HashMap<>();
+        for (Object[] r : commentRepository.findRecentForPosts(postIds, CommentService.RECENT_COMMENT_LIMIT)) {
+            CommentSnapshot snapshot = new CommentSnapshot(
+                    ((Number) r[0]).longValue(),
+                    (String) r[1],
+                    toLocalDateTime(r[2]),
+                    ((Number) r[4]).longValue(),
+                    (String) r[5],
+                    (String) r[6]
+            );
+            byPost.computeIfAbsent(((Number) r[3]).longValue(), k -> new ArrayList<>()).add(snapshot);
+        }
+        return byPost;
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+
+    private static String format(LocalDateTime time) {
+        return time != null ? time.format(FORMATTER) : null;
+    }
+}
@@ -1,9 +1,14 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.FeedCursor;
 import com.example.demo.model.GameType;
 import com.example.demo.model.Post;
+import com.example.demo.repository.PostFeedRow;
 import com.example.demo.repository.PostRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -11,22 +16,46 @@ import java.util.List;
 @Service
 @RequiredArgsConstructor
 public class PostService {
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
     private final PostRepository postRepository;
+    private final TimelineService timelineService;
+    private final GameFeedCache gameFeedCache;
+    private final SearchService searchService;
+    private final FeedPushService feedPushService;
+    private final DeletionJobService deletionJobService;
 
     public Post createPost(Post post) {
-        return postRepository.save(post);
+        Post saved = postRepository.save(post);
+        timelineService.onPostCreated(saved);
+        gameFeedCache.onPostCreated(saved);
+        searchService.onPostSaved(saved);
+        feedPushService.onPostCreated(saved);
+        return saved;
     }
 
-    public List<Post> getPostsByUser(Long userId) {
-        return postRepository.findByUserId(userId);
+    public CursorPage<PostFeedRow> getPostsByUser(Long userId, FeedCursor cursor, int limit) {
+        int size = clampPageSize(limit);
+        Pageable pageable = PageRequest.of(0, size + 1);
+        List<PostFeedRow> posts = cursor == null
+                ? postRepository.findUserFeedFirstPage(userId, pageable)
+                : postRepository.findUserFeedAfter(userId, cursor.createdAt(), cursor.id(), pageable);
+        return toPage(posts, size);
     }
 
-    public List<Post> getAllPosts() {
-        return postRepository.findAllWithCommentsOrderByCreatedAtDesc();
+    public CursorPage<PostFeedRow> getAllPosts(FeedCursor cursor, int limit) {
+        int size = clampPageSize(limit);
+        Pageable pageable = PageRequest.of(0, size + 1);
+        List<PostFeedRow> posts = cursor == null
+                ? postRepository.findFeedFirstPage(pageable)
+                : postRepository.findFeedAfter(cursor.createdAt(), cursor.id(), pageable);
+        return toPage(posts, size);
     }
 
     public Post updatePost(Long postId, String content, Long userId) {
         Post post = postRepository.findById(postId)
+                .filter(p -> p.getDeletedAt() == null)
                 .orElseThrow(() -> new RuntimeException("Post not found"));
         
         if (!post.getUser().getId().equals(userId)) {
@@ -34,7 +63,10 @@ public class PostService {
         }
         
         post.setContent(content);
-        return postRepository.save(post);
+        Post saved = postRepository.save(post);
+        gameFeedCache.onPostChanged(saved.getId());
+        searchService.onPostSaved(saved);
+        return saved;
     }
 
     public void deletePost(Long postId, Long userId) {
@@ -45,10 +77,33 @@ public class PostService {
             throw new RuntimeException("You can only delete your own posts");
         }
         
-        postRepository.delete(post);
+        // 立即隐藏，评论由后台分批删除
+        deletionJobService.deletePost(post.getId());
+    }
+
+    public CursorPage<PostFeedRow> getPostsByGameType(GameType gameType, FeedCursor cursor, int limit) {
+        int size = clampPageSize(limit);
+        Pageable pageable = PageRequest.of(0, size + 1);
+        List<PostFeedRow> posts = cursor == null
+                ? postRepository.findGameFeedFirstPage(gameType, pageable)
+                : postRepository.findGameFeedAfter(gameType, cursor.createdAt(), cursor.id(), pageable);
+        return toPage(posts, size);
     }
 
-    public List<Post> getPostsByGameType(GameType gameType) {
-        return postRepository.findByGameTypeOrderByCreatedAtDesc(gameType);
+    public static int clampPageSize(int limit) {
+        if (limit <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    // 多查一条用来判断是否还有下一页，下一页游标取本页最后一条
+    private CursorPage<PostFeedRow> toPage(List<PostFeedRow> posts, int size) {
+        if (posts.size() <= size) {
+            return new CursorPage<>(posts, null);
+        }
+        List<PostFeedRow> items = posts.subList(0, size);
+        PostFeedRow last = items.get(size - 1);
+        return new CursorPage<>(items, new FeedCursor(last.createdAt(), last.id()).encode());
     }
 }
@@ -1,56 +1,66 @@
 package com.example.demo.service;
 
-import org.springframework.beans.factory.annotation.Value;
+import com.example.demo.storage.BlobStore;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
-import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
-import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
-import software.amazon.awssdk.core.sync.RequestBody;
-import software.amazon.awssdk.regions.Region;
-import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 
+/**
+ * 上传入口。实际写到哪里由 {@link BlobStore} 决定（S3 或本地磁盘）。
+ * 图片上传后交给 {@link ImageDerivativeService} 在后台生成缩略图，不阻塞请求。
+ */
 @Service
+@RequiredArgsConstructor
 public class S3Service {
 
-    @Value("${aws.accessKeyId}")
-    private String accessKeyId;
+    private final BlobStore blobStore;
+    private final ImageDerivativeService imageDerivativeService;
 
-    @Value("${aws.secretAccessKey}")
-    private String secretAccessKey;
+    /**
+     * 存原图并返回 URL。图片类型在衍生图队列已满时抛 {@link RejectedExecutionException}，
+     * 这时原图不会被存储。
+     */
+    public String uploadFile(MultipartFile file) throws IOException {
+        String key = UUID.randomUUID().toString() + "_" + sanitize(file.getOriginalFilename());
+        boolean image = isImage(file.getContentType());
 
-    @Value("${aws.region}")
-    private String region;
+        // 先占队列位置再存原图，队列满了就不浪费一次上传
+        if (image && !imageDerivativeService.reserveSlot()) {
+            throw new RejectedExecutionException("Image processing queue is full");
+        }
 
-    @Value("${aws.s3.bucketName}")
-    private String bucketName;
+        String url;
+        // MultipartFile 超过阈值时已经落在临时文件上，这里按流读取，不调用 getBytes()
+        try (InputStream in = file.getInputStream()) {
+            url = blobStore.store(key, in, file.getSize(), file.getContentType());
+        } catch (IOException | RuntimeException e) {
+            if (image) {
+                imageDerivativeService.releaseSlot();
+            }
+            throw e;
+        }
 
-    private S3Client createS3Client() {
-        return S3Client.builder()
-                .region(Region.of(region))
-                .credentialsProvider(
-                        StaticCredentialsProvider.create(
-                                AwsBasicCredentials.create(accessKeyId, secretAccessKey)
-                        )
-                )
-                .build();
+        if (image) {
+            imageDerivativeService.submit(key, url);
+        }
+        return url;
     }
 
-    public String uploadFile(MultipartFile file) throws IOException {
-        String key = UUID.randomUUID().toString() + "_" + file.getOriginalFilename();
-
-        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
-                .bucket(bucketName)
-                .key(key)
-                .contentType(file.getContentType()) // 加上contentType更规范
-                .build();
-
-        S3Client s3Client = createS3Client();
-        s3Client.putObject(putObjectRequest, RequestBody.fromBytes(file.getBytes()));
+    private static boolean isImage(String contentType) {
+        return contentType != null && contentType.startsWith("image/");
+    }
 
-        return "https://" + bucketName + ".s3." + region + ".amazonaws.com/" + key;
+    // 原始文件名只保留安全字符，避免路径穿越和 URL 转义问题
+    private static String sanitize(String filename) {
+        if (filename == null || filename.isBlank()) {
+            return "file";
+        }
+        String name = filename.substring(Math.max(filename.lastIndexOf('/'), filename.lastIndexOf('\\')) + 1);
+        return name.replaceAll("[^A-Za-z0-9._-]", "_");
     }
 }
@@ -0,0 +1,218 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.SearchCursor;
+import com.example.demo.model.Comment;
+import com.example.demo.model.GameType;
+import com.example.demo.model.Post;
+import com.example.demo.repository.CommentRepository;
+import com.example.demo.repository.PostRepository;
+import com.example.demo.search.SearchIndex;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+
+import static com.example.demo.cache.TransactionCallbacks.afterCommit;
+
+/**
+ * 帖子和评论的全文搜索，索引在进程内（{@link SearchIndex}），定期落盘到本地文件。
+ *
+ * 启动时读取落盘的索引，再补上落盘之后改过的帖子和评论（按 updated_at），不用全量重建；
+ * 文件不存在或读不出来时才全量重建。PostService / CommentService 的增删改在提交后增量更新。
+ * 级联删除（删帖带走的评论、删顶层评论带走的回复、删用户）不逐条通知，
+ * 搜到时由调用方发现记录已不存在再调用 {@link #prune} 去掉。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SearchService {
+
+    public static final int MAX_QUERY_LENGTH = 200;
+
+    private static final int LOAD_BATCH_SIZE = 1_000;
+    // 补索引时从落盘时间再往前多算一段，覆盖落盘时还没提交的事务
+    private static final Duration CATCH_UP_MARGIN = Duration.ofMinutes(5);
+
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${search.index.path:data/search-index.bin}")
+    private String indexPath;
+
+    private volatile SearchIndex index;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    @PostConstruct
+    void init() {
+        load();
+
+        Gauge.builder("search.index.documents", this, s -> s.index.size())
+                .description("Posts and comments held in the search index")
+                .register(meterRegistry);
+        Gauge.builder("search.index.terms", this, s -> s.index.termCount())
+                .description("Distinct terms in the search index")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        saveIfDirty();
+    }
+
+    /**
+     * @param after 上一页的游标，null 表示第一页
+     */
+    public CursorPage<SearchIndex.Hit> search(String query, GameType gameType, Long authorId, SearchCursor after, int limit) {
+        int size = PostService.clampPageSize(limit);
+        List<SearchIndex.Hit> hits = index.search(query, gameType, authorId, after != null ? after.toHit() : null, size + 1);
+        if (hits.size() <= size) {
+            return new CursorPage<>(hits, null);
+        }
+        List<SearchIndex.Hit> items = hits.subList(0, size);
+        return new CursorPage<>(items, SearchCursor.of(items.get(size - 1)).encode());
+    }
+
+    public void onPostSaved(Post post) {
+        Long id = post.getId();
+        Long authorId = post.getUser().getId();
+        GameType gameType = post.getGameType();
+        String content = post.getContent();
+        afterCommit(() -> {
+            index.put(SearchIndex.Kind.POST, id, id, authorId, gameType, content);
+            dirty.set(true);
+        });
+    }
+
+    public void onPostDeleted(Long postId) {
+        afterCommit(() -> prune(SearchIndex.Kind.POST, postId));
+    }
+
+    public void onCommentSaved(Comment comment) {
+        Long id = comment.getId();
+        Long postId = comment.getPost().getId();
+        Long authorId = comment.getUser().getId();
+        String content = comment.getContent();
+        afterCommit(() -> {
+            index.put(SearchIndex.Kind.COMMENT, id, postId, authorId, null, content);
+            dirty.set(true);
+        });
+    }
+
+    public void onCommentDeleted(Long commentId) {
+        afterCommit(() -> prune(SearchIndex.Kind.COMMENT, commentId));
+    }
+
+    // 记录已经不在数据库里了，直接从索引去掉
+    public void prune(SearchIndex.Kind kind, long id) {
+        if (index.remove(kind, id)) {
+            dirty.set(true);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${search.index.save-interval-ms:300000}",
+            initialDelayString = "${search.index.save-interval-ms:300000}")
+    public void saveIfDirty() {
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+        // 先记时间再写：写文件期间的改动下次启动时会按这个时间补上
+        LocalDateTime savedAt = LocalDateTime.now();
+        Path path = Paths.get(indexPath);
+        try {
+            Path dir = path.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, "search-index", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeUTF(savedAt.toString());
+                index.writeTo(out);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Saved search index with {} documents to {}", index.size(), path);
+        } catch (IOException e) {
+            dirty.set(true);
+            log.warn("Failed to save search index to {}", path, e);
+        }
+    }
+
+    private void load() {
+        Path path = Paths.get(indexPath);
+        if (Files.isRegularFile(path)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+                LocalDateTime savedAt = LocalDateTime.parse(in.readUTF());
+                index = SearchIndex.readFrom(in);
+                int updated = catchUp(savedAt.minus(CATCH_UP_MARGIN));
+                log.info("Loaded search index with {} documents from {}, {} changed since save", index.size(), path, updated);
+                dirty.set(updated > 0);
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.warn("Search index at {} is unreadable, rebuilding", path, e);
+            }
+        }
+        rebuild();
+    }
+
+    /**
+     * 从数据库全量重建，建好后整体替换当前索引。
+     * 除了启动时读不到落盘文件，批量导入数据（绕过了增量更新，updated_at 也早于落盘时间）之后也要调用。
+     * 重建期间的增量更新写在旧索引上会丢掉，只在没有写入流量时调用。
+     */
+    public void rebuild() {
+        SearchIndex fresh = new SearchIndex();
+        int indexed = reindex(fresh, (afterId, page) -> postRepository.findSearchRowsAfter(afterId, page),
+                (afterId, page) -> commentRepository.findSearchRowsAfter(afterId, page));
+        index = fresh;
+        dirty.set(true);
+        log.info("Built search index with {} documents", indexed);
+    }
+
+    private int catchUp(LocalDateTime since) {
+        return reindex(index, (afterId, page) -> postRepository.findSearchRowsUpdatedSince(since, afterId, page),
+                (afterId, page) -> commentRepository.findSearchRowsUpdatedSince(since, afterId, page));
+    }
+
+    // 按主键 keyset 分批读；帖子列：id, content, user_id, game_type；评论列：id, content, user_id, post_id
+    private int reindex(SearchIndex index,
+                        BiFunction<Long, PageRequest, List<Object[]>> posts,
+                        BiFunction<Long, PageRequest, List<Object[]>> comments) {
+        int count = 0;
+        long afterId = 0;
+        List<Object[]> batch;
+        while (!(batch = posts.apply(afterId, PageRequest.of(0, LOAD_BATCH_SIZE))).isEmpty()) {
+            for (Object[] row : batch) {
+                long id = ((Number) row[0]).longValue();
+                index.put(SearchIndex.Kind.POST, id, id, ((Number) row[2]).longValue(), (GameType) row[3], (String) row[1]);
+            }
+            count += batch.size();
+            afterId = ((Number) batch.get(batch.size() - 1)[0]).longValue();
+        }
+        afterId = 0;
+        while (!(batch = comments.apply(afterId, PageRequest.of(0, LOAD_BATCH_SIZE))).isEmpty()) {
+            for (Object[] row : batch) {
+                index.put(SearchIndex.Kind.COMMENT, ((Number) row[0]).longValue(), ((Number) row[3]).longValue(),
+                        ((Number) row[2]).longValue(), null, (String) row[1]);
+            }
+            count += batch.size();
+            afterId = ((Number) batch.get(batch.size() - 1)[0]).longValue();
+        }
+        return count;
+    }
+}
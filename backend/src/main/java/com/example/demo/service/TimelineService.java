@@ -0,0 +1,242 @@
+package com.example.demo.service;
+
+import com.example.demo.cache.FollowGraph;
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.FeedCursor;
+import com.example.demo.model.Post;
+import com.example.demo.repository.PostFeedRow;
+import com.example.demo.repository.PostKeyView;
+import com.example.demo.repository.PostRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.example.demo.cache.TransactionCallbacks.afterCommit;
+
+/**
+ * 关注流时间线（fan-out-on-write）。
+ *
+ * 每个活跃用户在内存里保留一条有上限的时间线，只存 (postId, createdAt, authorId)。
+ * 发帖时把帖子推到作者粉丝已经加载的时间线里；粉丝数超过阈值的“大V”不推送，
+ * 读取时再把他们的新帖合并进来。时间线第一次读取时从数据库构建，关注关系变化时丢弃重建。
+ */
+@Service
+@RequiredArgsConstructor
+public class TimelineService {
+
+    private static final Comparator<TimelineEntry> NEWEST_FIRST = Comparator
+            .comparing(TimelineEntry::createdAt).reversed()
+            .thenComparing(Comparator.comparing(TimelineEntry::postId).reversed());
+
+    private final PostRepository postRepository;
+    private final FollowGraph followGraph;
+
+    // 每条时间线最多保留多少条帖子
+    @Value("${timeline.max-entries:500}")
+    private int maxEntries;
+
+    // 最多缓存多少个用户的时间线，超过后按 LRU 淘汰
+    @Value("${timeline.max-cached:10000}")
+    private int maxCachedTimelines;
+
+    // 粉丝数达到该值的作者不做写扩散，读的时候合并
+    @Value("${timeline.celebrity-threshold:10000}")
+    private long celebrityThreshold;
+
+    private final Set<Long> celebrities = ConcurrentHashMap.newKeySet();
+
+    private Map<Long, Timeline> timelines;
+
+    @PostConstruct
+    void init() {
+        timelines = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Timeline> eldest) {
+                return size() > maxCachedTimelines;
+            }
+        });
+    }
+
+    public CursorPage<PostFeedRow> getFollowingPosts(Long userId, FeedCursor cursor, int limit) {
+        int size = PostService.clampPageSize(limit);
+        Timeline timeline = timelineFor(userId);
+        if (timeline.followingIds.isEmpty()) {
+            return new CursorPage<>(List.of(), null);
+        }
+
+        List<TimelineEntry> candidates = timeline.page(cursor, size + 1);
+
+        // 超出内存时间线的尾部，回退到数据库 keyset 查询
+        if (candidates.size() < size + 1 && timeline.isTruncated()) {
+            FeedCursor from = candidates.isEmpty() ? cursor : candidates.get(candidates.size() - 1).toCursor();
+            candidates.addAll(loadEntries(timeline.followingIds, from, size + 1 - candidates.size()));
+        }
+
+        // 关注的大V没有推送，读的时候合并
+        List<Long> followedCelebrities = timeline.followingIds.stream()
+                .filter(celebrities::contains)
+                .collect(Collectors.toList());
+        if (!followedCelebrities.isEmpty()) {
+            candidates.addAll(loadEntries(followedCelebrities, cursor, size + 1));
+        }
+
+        List<TimelineEntry> merged = candidates.stream()
+                .collect(Collectors.toMap(TimelineEntry::postId, Function.identity(), (a, b) -> a))
+                .values().stream()
+                .sorted(NEWEST_FIRST)
+                .limit(size + 1)
+                .collect(Collectors.toList());
+
+        String nextCursor = null;
+        if (merged.size() > size) {
+            merged = merged.subList(0, size);
+            nextCursor = merged.get(size - 1).toCursor().encode();
+        }
+        return new CursorPage<>(loadPosts(merged), nextCursor);
+    }
+
+    public void onPostCreated(Post post) {
+        Long authorId = post.getUser().getId();
+        if (followGraph.followerCount(authorId) >= celebrityThreshold) {
+            celebrities.add(authorId);
+            return;
+        }
+        celebrities.remove(authorId);
+
+        TimelineEntry entry = new TimelineEntry(post.getId(), post.getCreatedAt(), authorId);
+        for (long followerId : followGraph.followerIds(authorId)) {
+            Timeline timeline = timelines.get(followerId);
+            if (timeline != null) {
+                timeline.add(entry);
+            }
+        }
+    }
+
+    public void onPostDeleted(Post post) {
+        Long authorId = post.getUser().getId();
+        // 大V的帖子读时合并，已删除的帖子在 loadPosts 时自然被过滤
+        if (celebrities.contains(authorId)) {
+            return;
+        }
+        TimelineEntry entry = new TimelineEntry(post.getId(), post.getCreatedAt(), authorId);
+        for (long followerId : followGraph.followerIds(authorId)) {
+            Timeline timeline = timelines.get(followerId);
+            if (timeline != null) {
+                timeline.remove(entry);
+            }
+        }
+    }
+
+    /**
+     * 关注 / 取关后丢弃该用户的时间线，下次读取时重建。
+     * 提交后才丢弃，而且要在 FollowGraph.onFollow / onUnfollow 之后调用（提交后回调按注册顺序执行）：
+     * 否则中间到达的读取会按旧的关注列表重建并缓存下来。
+     */
+    public void onFollowChanged(Long followerId) {
+        afterCommit(() -> timelines.remove(followerId));
+    }
+
+    private Timeline timelineFor(Long userId) {
+        Timeline timeline = timelines.get(userId);
+        if (timeline != null) {
+            return timeline;
+        }
+
+        List<Long> followingIds = Arrays.stream(followGraph.followingIds(userId)).boxed().collect(Collectors.toList());
+        List<TimelineEntry> entries = loadEntries(followingIds, null, maxEntries);
+        for (Long followingId : followingIds) {
+            if (followGraph.followerCount(followingId) >= celebrityThreshold) {
+                celebrities.add(followingId);
+            }
+        }
+
+        timeline = new Timeline(followingIds, entries, maxEntries, entries.size() >= maxEntries);
+        timelines.put(userId, timeline);
+        return timeline;
+    }
+
+    private List<TimelineEntry> loadEntries(List<Long> authorIds, FeedCursor cursor, int limit) {
+        if (authorIds.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        PageRequest pageable = PageRequest.of(0, limit);
+        List<PostKeyView> keys = cursor == null
+                ? postRepository.findPostKeysByUserIds(authorIds, pageable)
+                : postRepository.findPostKeysByUserIdsAfter(authorIds, cursor.createdAt(), cursor.id(), pageable);
+        return keys.stream()
+                .map(k -> new TimelineEntry(k.getId(), k.getCreatedAt(), k.getUserId()))
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private List<PostFeedRow> loadPosts(List<TimelineEntry> entries) {
+        if (entries.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = entries.stream().map(TimelineEntry::postId).collect(Collectors.toList());
+        Map<Long, PostFeedRow> byId = postRepository.findFeedRowsByIdIn(ids).stream()
+                .collect(Collectors.toMap(PostFeedRow::id, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    record TimelineEntry(Long postId, LocalDateTime createdAt, Long authorId) {
+        FeedCursor toCursor() {
+            return new FeedCursor(createdAt, postId);
+        }
+    }
+
+    private static final class Timeline {
+        private final List<Long> followingIds;
+        private final TreeSet<TimelineEntry> entries = new TreeSet<>(NEWEST_FIRST);
+        private final int capacity;
+        // 数据库里可能还有比尾部更旧的帖子
+        private boolean truncated;
+
+        Timeline(List<Long> followingIds, List<TimelineEntry> initial, int capacity, boolean truncated) {
+            this.followingIds = List.copyOf(followingIds);
+            this.capacity = capacity;
+            this.truncated = truncated;
+            entries.addAll(initial);
+        }
+
+        synchronized void add(TimelineEntry entry) {
+            entries.add(entry);
+            if (entries.size() > capacity) {
+                entries.pollLast();
+                truncated = true;
+            }
+        }
+
+        synchronized void remove(TimelineEntry entry) {
+            entries.remove(entry);
+        }
+
+        synchronized boolean isTruncated() {
+            return truncated;
+        }
+
+        synchronized List<TimelineEntry> page(FeedCursor cursor, int limit) {
+            SortedSet<TimelineEntry> view = cursor == null
+                    ? entries
+                    : entries.tailSet(new TimelineEntry(cursor.id(), cursor.createdAt(), null), false);
+            List<TimelineEntry> page = new ArrayList<>(limit);
+            for (TimelineEntry entry : view) {
+                if (page.size() >= limit) {
+                    break;
+                }
+                page.add(entry);
+            }
+            return page;
+        }
+    }
+}
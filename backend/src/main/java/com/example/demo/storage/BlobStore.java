@@ -0,0 +1,29 @@
+package com.example.demo.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 上传文件的存储后端。实现必须流式写入，不能把整个文件读进内存。
+ *
+ * 通过 storage.backend 选择：s3（默认）或 local。
+ */
+public interface BlobStore {
+
+    /**
+     * 把输入流写到 key 对应的位置，返回可以公开访问的 URL。
+     *
+     * @param size 内容长度（字节），未知时传 -1
+     */
+    String store(String key, InputStream content, long size, String contentType) throws IOException;
+
+    /**
+     * 以流的方式读取已存储的内容，调用方负责关闭。
+     */
+    InputStream open(String key) throws IOException;
+
+    /**
+     * key 对应的公开 URL。
+     */
+    String urlFor(String key);
+}
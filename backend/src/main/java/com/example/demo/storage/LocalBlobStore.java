@@ -0,0 +1,88 @@
+package com.example.demo.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 本地磁盘存储，开发、测试和压测时代替 S3。
+ *
+ * 通过 FileChannel.transferFrom 分块写入，先写临时文件再原子改名，不会出现写了一半的文件。
+ * 写好的文件由 /files/** 静态资源映射对外提供。
+ */
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "local")
+public class LocalBlobStore implements BlobStore, WebMvcConfigurer {
+
+    // 每次 transferFrom 最多搬多少字节
+    private static final long TRANSFER_CHUNK = 1024 * 1024;
+
+    private final Path root;
+    private final String publicBaseUrl;
+
+    public LocalBlobStore(@Value("${storage.local.root:uploads}") String root,
+                          @Value("${storage.local.public-base-url:http://localhost:8000/files}") String publicBaseUrl)
+            throws IOException {
+        this.root = Path.of(root).toAbsolutePath().normalize();
+        this.publicBaseUrl = publicBaseUrl.endsWith("/")
+                ? publicBaseUrl.substring(0, publicBaseUrl.length() - 1)
+                : publicBaseUrl;
+        Files.createDirectories(this.root);
+    }
+
+    @Override
+    public String store(String key, InputStream content, long size, String contentType) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+
+        try (ReadableByteChannel in = Channels.newChannel(content);
+             FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = 0;
+            long transferred;
+            while ((transferred = out.transferFrom(in, position, TRANSFER_CHUNK)) > 0) {
+                position += transferred;
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return urlFor(key);
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public String urlFor(String key) {
+        return publicBaseUrl + "/" + key;
+    }
+
+    public Path resolve(String key) {
+        Path target = root.resolve(key).normalize();
+        if (!target.startsWith(root)) {
+            throw new IllegalArgumentException("Invalid storage key: " + key);
+        }
+        return target;
+    }
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        registry.addResourceHandler("/files/**")
+                .addResourceLocations(root.toUri().toString());
+    }
+}
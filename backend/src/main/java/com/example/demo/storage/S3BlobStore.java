@@ -0,0 +1,137 @@
+package com.example.demo.storage;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * S3 存储。整个应用共用一个 S3Client（内部自带 HTTP 连接池），不再每次上传新建。
+ *
+ * 小文件直接流式 PutObject；超过阈值或长度未知时走分片上传，
+ * 每次只在内存里放一个分片，堆占用和文件大小无关。
+ */
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "s3", matchIfMissing = true)
+public class S3BlobStore implements BlobStore {
+
+    private static final long MB = 1024 * 1024;
+
+    private final S3Client s3Client;
+    private final String bucketName;
+    private final String region;
+    private final long multipartThreshold;
+    private final int partSize;
+
+    public S3BlobStore(@Value("${aws.accessKeyId}") String accessKeyId,
+                       @Value("${aws.secretAccessKey}") String secretAccessKey,
+                       @Value("${aws.region}") String region,
+                       @Value("${aws.s3.bucketName}") String bucketName,
+                       @Value("${storage.s3.multipart-threshold-mb:16}") long multipartThresholdMb,
+                       @Value("${storage.s3.part-size-mb:8}") int partSizeMb) {
+        this.bucketName = bucketName;
+        this.region = region;
+        this.multipartThreshold = multipartThresholdMb * MB;
+        // S3 要求除最后一片外每片至少 5MB
+        this.partSize = (int) (Math.max(partSizeMb, 5) * MB);
+        this.s3Client = S3Client.builder()
+                .region(Region.of(region))
+                .credentialsProvider(
+                        StaticCredentialsProvider.create(
+                                AwsBasicCredentials.create(accessKeyId, secretAccessKey)
+                        )
+                )
+                .build();
+    }
+
+    @Override
+    public String store(String key, InputStream content, long size, String contentType) throws IOException {
+        if (size >= 0 && size < multipartThreshold) {
+            PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .contentType(contentType) // 加上contentType更规范
+                    .contentLength(size)
+                    .build();
+            s3Client.putObject(putObjectRequest, RequestBody.fromInputStream(content, size));
+        } else {
+            uploadMultipart(key, content, contentType);
+        }
+        return urlFor(key);
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        try {
+            return s3Client.getObject(GetObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .build());
+        } catch (S3Exception e) {
+            throw new IOException("Failed to read " + key + " from S3", e);
+        }
+    }
+
+    @Override
+    public String urlFor(String key) {
+        return "https://" + bucketName + ".s3." + region + ".amazonaws.com/" + key;
+    }
+
+    private void uploadMultipart(String key, InputStream content, String contentType) throws IOException {
+        String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType(contentType)
+                .build()).uploadId();
+
+        List<CompletedPart> parts = new ArrayList<>();
+        byte[] buffer = new byte[partSize];
+        try {
+            int partNumber = 1;
+            int read;
+            while ((read = content.readNBytes(buffer, 0, partSize)) > 0) {
+                UploadPartResponse response = s3Client.uploadPart(UploadPartRequest.builder()
+                                .bucket(bucketName)
+                                .key(key)
+                                .uploadId(uploadId)
+                                .partNumber(partNumber)
+                                .contentLength((long) read)
+                                .build(),
+                        RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, read), read));
+                parts.add(CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build());
+                partNumber++;
+            }
+
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build());
+        } catch (IOException | RuntimeException e) {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        s3Client.close();
+    }
+}
@@ -0,0 +1,9 @@
+-- V10__Add_post_comment_summary.sql
+-- 冗余评论数和最近 3 条评论快照，feed 渲染不再读取 comments 表
+ALTER TABLE posts ADD COLUMN comment_count INT NOT NULL DEFAULT 0;
+ALTER TABLE posts ADD COLUMN recent_comments TEXT NULL;
+
+UPDATE posts p SET p.comment_count = (SELECT COUNT(*) FROM comments c WHERE c.post_id = p.id);
+
+-- 维护快照 / recent_comments 为空时回退查询，都按 (post_id, created_at, id) 取最新几条
+CREATE INDEX idx_comments_post_created_at_id ON comments(post_id, created_at, id);
@@ -0,0 +1,17 @@
+-- V11__Add_image_variants.sql
+-- 上传图片的衍生版本（缩略图 / feed 宽度），由后台任务生成
+CREATE TABLE image_variants (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    original_url VARCHAR(255) NOT NULL UNIQUE,
+    thumbnail_url VARCHAR(255) NOT NULL,
+    feed_url VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+ALTER TABLE posts ADD COLUMN thumbnail_url VARCHAR(255) NULL;
+ALTER TABLE posts ADD COLUMN feed_image_url VARCHAR(255) NULL;
+ALTER TABLE users ADD COLUMN avatar_thumbnail_url VARCHAR(255) NULL;
+
+-- 衍生图生成完后按原图 URL 回写
+CREATE INDEX idx_posts_image_url ON posts(image_url);
+CREATE INDEX idx_users_avatar ON users(avatar);
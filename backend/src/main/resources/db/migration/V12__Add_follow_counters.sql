@@ -0,0 +1,18 @@
+-- V12__Add_follow_counters.sql
+-- 粉丝数 / 关注数存在 users 上，关注和取关时在同一事务里增减
+ALTER TABLE users ADD COLUMN follower_count BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE users ADD COLUMN following_count BIGINT NOT NULL DEFAULT 0;
+
+-- 热门账号的粉丝数增量分散到多行，读取时与 users.follower_count 相加
+CREATE TABLE user_follower_count_shards (
+    user_id BIGINT NOT NULL,
+    shard INT NOT NULL,
+    follower_count BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (user_id, shard),
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+-- 回填已有数据
+UPDATE users u
+SET follower_count = (SELECT COUNT(*) FROM user_followers f WHERE f.following_id = u.id),
+    following_count = (SELECT COUNT(*) FROM user_followers f WHERE f.follower_id = u.id);
@@ -0,0 +1,12 @@
+-- V13__Create_player_scores.sql
+-- 每个用户在每个游戏里的分数，排行榜在内存里按这张表重建
+CREATE TABLE player_scores (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    game_type VARCHAR(50) NOT NULL,
+    score BIGINT NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    UNIQUE (user_id, game_type)
+);
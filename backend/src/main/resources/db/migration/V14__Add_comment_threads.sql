@@ -0,0 +1,9 @@
+-- 一层回复：parent_id 指向顶层评论，reply_count 冗余在顶层评论上
+ALTER TABLE comments ADD COLUMN parent_id BIGINT NULL;
+ALTER TABLE comments ADD COLUMN reply_count INT NOT NULL DEFAULT 0;
+ALTER TABLE comments ADD CONSTRAINT fk_comments_parent FOREIGN KEY (parent_id) REFERENCES comments(id) ON DELETE CASCADE;
+
+-- 顶层评论按 (post_id, parent_id IS NULL, created_at, id) 做 keyset 分页
+CREATE INDEX idx_comments_post_parent_created_at_id ON comments(post_id, parent_id, created_at, id);
+-- 回复按 (parent_id, created_at, id) 分页，以及批量取每条顶层评论的前几条回复
+CREATE INDEX idx_comments_parent_created_at_id ON comments(parent_id, created_at, id);
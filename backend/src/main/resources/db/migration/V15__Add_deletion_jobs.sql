@@ -0,0 +1,20 @@
+-- 删除改为后台分批执行：先打删除标记让读接口立刻看不到，再由任务分批删掉关联数据
+ALTER TABLE users ADD COLUMN deleted_at TIMESTAMP NULL;
+ALTER TABLE posts ADD COLUMN deleted_at TIMESTAMP NULL;
+
+CREATE TABLE deletion_jobs (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    target_type VARCHAR(20) NOT NULL,
+    target_id BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    phase VARCHAR(20) NULL,
+    deleted_rows BIGINT NOT NULL DEFAULT 0,
+    attempts INT NOT NULL DEFAULT 0,
+    last_error VARCHAR(1000) NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    finished_at TIMESTAMP NULL,
+    UNIQUE (target_type, target_id)
+);
+
+CREATE INDEX idx_deletion_jobs_status ON deletion_jobs(status);
@@ -0,0 +1,20 @@
+-- 帖子、评论、关注关系的主键改由应用生成（TimeOrderedIds），不再用自增
+--
+-- 已有的行不改 id：评论快照、搜索索引、前端链接里都存着这些 id。
+-- 旧 id 都远小于新生成的 id（毫秒时间戳左移 12 位，2024 年起就超过 10^13），
+-- 按 id 排序时旧数据仍然排在新数据前面，按 id 分批扫描也不受影响。
+--
+-- 去掉 AUTO_INCREMENT，漏写 id 的 INSERT 会直接报错，而不是拿到一个可能和生成的 id 撞车的值。
+-- 这几列被外键引用，MySQL 修改被引用的列需要临时关掉外键检查；列类型不变，外键依然有效。
+SET FOREIGN_KEY_CHECKS = 0;
+ALTER TABLE posts MODIFY id BIGINT NOT NULL;
+ALTER TABLE comments MODIFY id BIGINT NOT NULL;
+ALTER TABLE user_followers MODIFY id BIGINT NOT NULL;
+SET FOREIGN_KEY_CHECKS = 1;
+
+-- 节点号租约，见 IdNodeLease
+CREATE TABLE id_generator_nodes (
+    node_id INT PRIMARY KEY,
+    owner VARCHAR(255) NOT NULL,
+    heartbeat_at TIMESTAMP(3) NOT NULL
+);
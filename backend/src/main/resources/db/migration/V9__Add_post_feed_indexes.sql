@@ -0,0 +1,5 @@
+-- V9__Add_post_feed_indexes.sql
+-- Keyset 分页 (created_at, id) 需要的复合索引，避免 filesort
+CREATE INDEX idx_posts_created_at_id ON posts(created_at, id);
+CREATE INDEX idx_posts_user_created_at_id ON posts(user_id, created_at, id);
+CREATE INDEX idx_posts_game_type_created_at_id ON posts(game_type, created_at, id);
@@ -0,0 +1,143 @@
+package com.example.demo.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 随机增删和 HashSet 对照，重点覆盖探测链绕回数组开头时的删除，以及扩容、缩容。
+ */
+class LongHashSetTest {
+
+    @Test
+    void matchesHashSetUnderRandomOperations() {
+        for (long seed = 1; seed <= 5; seed++) {
+            Random random = new Random(seed);
+            // 键范围小：冲突多、删除频繁；键范围大：一路扩容
+            runRandom(random, 20_000, 64);
+            runRandom(random, 20_000, 1_000_000);
+        }
+    }
+
+    @Test
+    void removesFromChainsThatWrapAround() {
+        // 容量 16：挑理想位置在最后两格的键，探测链会绕回 0、1、2……
+        LongHashSet set = new LongHashSet(8);
+        List<Long> tail = keysWithSlot(15, 16, 3);
+        tail.addAll(keysWithSlot(14, 16, 2));
+        tail.addAll(keysWithSlot(0, 16, 1));
+
+        for (long[] order : permutations(tail, 30, new Random(7))) {
+            LongHashSet copy = new LongHashSet(8);
+            Set<Long> expected = new HashSet<>(tail);
+            tail.forEach(copy::add);
+            for (long key : order) {
+                assertTrue(copy.remove(key));
+                expected.remove(key);
+                assertSameContents(expected, copy);
+            }
+        }
+
+        tail.forEach(set::add);
+        assertSameContents(new HashSet<>(tail), set);
+    }
+
+    @Test
+    void growsAndShrinks() {
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        for (long key = 1; key <= 10_000; key++) {
+            set.add(key * 31);
+            expected.add(key * 31);
+        }
+        long grown = set.estimatedBytes();
+        assertSameContents(expected, set);
+
+        for (long key = 1; key <= 9_990; key++) {
+            set.remove(key * 31);
+            expected.remove(key * 31);
+        }
+        assertSameContents(expected, set);
+        assertTrue(set.estimatedBytes() < grown / 100);
+    }
+
+    @Test
+    void zeroIsNotAnElement() {
+        LongHashSet set = new LongHashSet();
+        assertThrows(IllegalArgumentException.class, () -> set.add(0));
+        assertFalse(set.contains(0));
+        assertFalse(set.remove(0));
+        assertTrue(set.add(Long.MIN_VALUE));
+        assertTrue(set.add(Long.MAX_VALUE));
+        assertTrue(set.add(-1));
+        assertSameContents(Set.of(Long.MIN_VALUE, Long.MAX_VALUE, -1L), set);
+    }
+
+    private static void runRandom(Random random, int operations, int keyRange) {
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        for (int op = 0; op < operations; op++) {
+            long key = 1 + random.nextInt(keyRange);
+            if (random.nextBoolean()) {
+                key = -key;
+            }
+            switch (random.nextInt(3)) {
+                case 0, 1 -> assertEquals(expected.add(key), set.add(key));
+                default -> assertEquals(expected.remove(key), set.remove(key));
+            }
+            assertEquals(expected.contains(key), set.contains(key));
+            if (op % 499 == 0) {
+                assertSameContents(expected, set);
+            }
+        }
+        assertSameContents(expected, set);
+    }
+
+    private static void assertSameContents(Set<Long> expected, LongHashSet set) {
+        assertEquals(expected.size(), set.size());
+        assertEquals(expected.isEmpty(), set.isEmpty());
+        for (long key : expected) {
+            assertTrue(set.contains(key), () -> "missing " + key);
+        }
+        long[] actual = set.toArray();
+        Arrays.sort(actual);
+        assertArrayEquals(expected.stream().mapToLong(Long::longValue).sorted().toArray(), actual);
+        List<Long> visited = new ArrayList<>();
+        set.forEach(visited::add);
+        assertEquals(expected, new HashSet<>(visited));
+        assertEquals(expected.size(), visited.size());
+    }
+
+    // count 个理想位置（容量 capacity 下）正好是 slot 的正数键
+    static List<Long> keysWithSlot(int slot, int capacity, int count) {
+        List<Long> keys = new ArrayList<>();
+        for (long key = 1; keys.size() < count; key++) {
+            if ((LongHashSet.mix(key) & (capacity - 1)) == slot) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    static List<long[]> permutations(List<Long> keys, int count, Random random) {
+        List<long[]> result = new ArrayList<>();
+        for (int n = 0; n < count; n++) {
+            List<Long> shuffled = new ArrayList<>(keys);
+            Collections.shuffle(shuffled, random);
+            result.add(shuffled.stream().mapToLong(Long::longValue).toArray());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.demo.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 随机增删改和 HashMap 对照，覆盖探测链绕回数组开头时的删除和扩容。
+ */
+class LongObjectHashMapTest {
+
+    @Test
+    void matchesHashMapUnderRandomOperations() {
+        for (long seed = 1; seed <= 5; seed++) {
+            Random random = new Random(seed);
+            runRandom(random, 20_000, 64);
+            runRandom(random, 20_000, 1_000_000);
+        }
+    }
+
+    @Test
+    void removesFromChainsThatWrapAround() {
+        // 默认容量 16，理想位置在最后两格的键会绕回开头
+        List<Long> tail = LongHashSetTest.keysWithSlot(15, 16, 3);
+        tail.addAll(LongHashSetTest.keysWithSlot(14, 16, 2));
+        tail.addAll(LongHashSetTest.keysWithSlot(0, 16, 1));
+
+        for (long[] order : LongHashSetTest.permutations(tail, 30, new Random(7))) {
+            LongObjectHashMap<String> map = new LongObjectHashMap<>();
+            Map<Long, String> expected = new HashMap<>();
+            for (long key : tail) {
+                map.put(key, "v" + key);
+                expected.put(key, "v" + key);
+            }
+            for (long key : order) {
+                assertEquals(expected.remove(key), map.remove(key));
+                assertSameContents(expected, map);
+            }
+        }
+    }
+
+    @Test
+    void zeroIsNotAKey() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        assertThrows(IllegalArgumentException.class, () -> map.put(0, "zero"));
+        assertNull(map.get(0));
+        assertNull(map.remove(0));
+        map.put(Long.MIN_VALUE, "min");
+        map.put(Long.MAX_VALUE, "max");
+        assertSameContents(Map.of(Long.MIN_VALUE, "min", Long.MAX_VALUE, "max"), map);
+    }
+
+    private static void runRandom(Random random, int operations, int keyRange) {
+        LongObjectHashMap<Integer> map = new LongObjectHashMap<>();
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int op = 0; op < operations; op++) {
+            long key = 1 + random.nextInt(keyRange);
+            if (random.nextBoolean()) {
+                key = -key;
+            }
+            switch (random.nextInt(3)) {
+                case 0, 1 -> assertEquals(expected.put(key, op), map.put(key, op));
+                default -> assertEquals(expected.remove(key), map.remove(key));
+            }
+            assertEquals(expected.get(key), map.get(key));
+            if (op % 499 == 0) {
+                assertSameContents(expected, map);
+            }
+        }
+        assertSameContents(expected, map);
+    }
+
+    private static <V> void assertSameContents(Map<Long, V> expected, LongObjectHashMap<V> map) {
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key), () -> "key " + key));
+        List<V> values = new ArrayList<>();
+        map.forEachValue(values::add);
+        List<V> expectedValues = new ArrayList<>(expected.values());
+        assertEquals(expectedValues.size(), values.size());
+        assertEquals(count(expectedValues), count(values));
+    }
+
+    private static <V> Map<V, Integer> count(List<V> values) {
+        Map<V, Integer> counts = new HashMap<>();
+        values.forEach(v -> counts.merge(v, 1, Integer::sum));
+        return counts;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.demo.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 随机增删改，和按同样规则排好序的 TreeSet 逐项对照名次、区间和大小。
+ */
+class RankedSkipListTest {
+
+    // 分数高的在前，同分 userId 小的在前
+    private static final Comparator<long[]> ORDER = Comparator.<long[]>comparingLong(e -> -e[1]).thenComparingLong(e -> e[0]);
+
+    @Test
+    void matchesSortedReferenceUnderRandomOperations() {
+        for (long seed = 1; seed <= 5; seed++) {
+            runRandom(new Random(seed), 5_000, 300, 50);
+        }
+    }
+
+    @Test
+    void manyTiesAndLargePopulation() {
+        // 分数范围很小，大量同分按 userId 排；人数多时层数会长到好几层
+        runRandom(new Random(42), 20_000, 3_000, 5);
+    }
+
+    @Test
+    void edgeCases() {
+        RankedSkipList list = new RankedSkipList();
+        assertEquals(List.of(), list.range(1, 10));
+        assertNull(list.find(1));
+        assertFalse(list.remove(1));
+
+        list.put(1, 10);
+        list.put(2, 10);
+        list.put(3, 20);
+        // 分数没变时不动
+        list.put(1, 10);
+
+        assertEquals(3, list.size());
+        assertEquals(new RankedSkipList.Entry(3, 20, 1), list.find(3));
+        assertEquals(new RankedSkipList.Entry(1, 10, 2), list.find(1));
+        assertEquals(new RankedSkipList.Entry(2, 10, 3), list.find(2));
+        // 名次小于 1 从第一名开始；超出长度、count 不为正时返回空
+        assertEquals(3, list.range(-5, 10).size());
+        assertEquals(List.of(), list.range(4, 10));
+        assertEquals(List.of(), list.range(1, 0));
+        assertEquals(List.of(new RankedSkipList.Entry(2, 10, 3)), list.range(3, 10));
+
+        assertTrue(list.remove(3));
+        assertEquals(new RankedSkipList.Entry(1, 10, 1), list.find(1));
+        assertEquals(2, list.size());
+    }
+
+    private static void runRandom(Random random, int operations, int users, int scores) {
+        RankedSkipList list = new RankedSkipList();
+        Map<Long, Long> scoreOf = new HashMap<>();
+        TreeSet<long[]> sorted = new TreeSet<>(ORDER);
+
+        for (int op = 0; op < operations; op++) {
+            // userId 0 是 LongObjectHashMap 的空槽标记，真实 id 从 1 开始
+            long userId = 1 + random.nextInt(users);
+            int action = random.nextInt(10);
+            if (action < 6) {
+                long score = random.nextInt(scores) - scores / 2;
+                Long old = scoreOf.put(userId, score);
+                if (old != null) {
+                    sorted.remove(new long[]{userId, old});
+                }
+                sorted.add(new long[]{userId, score});
+                list.put(userId, score);
+            } else if (action < 9) {
+                Long old = scoreOf.remove(userId);
+                if (old != null) {
+                    sorted.remove(new long[]{userId, old});
+                }
+                assertEquals(old != null, list.remove(userId));
+            } else {
+                assertRange(list, sorted, random.nextInt(sorted.size() + 3) - 1, random.nextInt(20));
+            }
+
+            if (op % 97 == 0) {
+                assertMatches(list, sorted, scoreOf, users);
+            }
+        }
+        assertMatches(list, sorted, scoreOf, users);
+    }
+
+    private static void assertMatches(RankedSkipList list, TreeSet<long[]> sorted, Map<Long, Long> scoreOf, int users) {
+        assertEquals(sorted.size(), list.size());
+        List<RankedSkipList.Entry> expected = entries(sorted);
+        assertEquals(expected, list.range(1, sorted.size() + 1));
+        for (RankedSkipList.Entry entry : expected) {
+            assertEquals(entry, list.find(entry.userId()));
+        }
+        for (long userId = 1; userId <= users; userId++) {
+            if (!scoreOf.containsKey(userId)) {
+                assertNull(list.find(userId));
+            }
+        }
+    }
+
+    private static void assertRange(RankedSkipList list, TreeSet<long[]> sorted, long fromRank, int count) {
+        List<RankedSkipList.Entry> all = entries(sorted);
+        int from = (int) Math.max(1, fromRank);
+        List<RankedSkipList.Entry> expected = from > all.size() || count <= 0
+                ? List.of()
+                : all.subList(from - 1, Math.min(all.size(), from - 1 + count));
+        assertEquals(expected, list.range(fromRank, count));
+    }
+
+    private static List<RankedSkipList.Entry> entries(TreeSet<long[]> sorted) {
+        List<RankedSkipList.Entry> entries = new ArrayList<>(sorted.size());
+        long rank = 1;
+        for (long[] e : sorted) {
+            entries.add(new RankedSkipList.Entry(e[0], e[1], rank++));
+        }
+        return entries;
+    }
+}
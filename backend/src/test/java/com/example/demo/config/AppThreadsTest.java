@@ -0,0 +1,35 @@
+package com.example.demo.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 虚拟线程开关：JDK 21 以下打开时启动失败，而不是静默退回平台线程。
+ */
+class AppThreadsTest {
+
+    private static final boolean VIRTUAL_SUPPORTED = Runtime.version().feature() >= 21;
+
+    @Test
+    void usesPlatformThreadsWhenDisabled() {
+        AppThreads threads = new AppThreads(new MockEnvironment());
+
+        assertFalse(threads.isVirtual());
+        assertThrows(IllegalStateException.class, () -> threads.perTaskExecutor("test-"));
+    }
+
+    @Test
+    void enabledFlagEitherTakesEffectOrFailsStartup() {
+        MockEnvironment environment = new MockEnvironment().withProperty("spring.threads.virtual.enabled", "true");
+
+        if (VIRTUAL_SUPPORTED) {
+            assertTrue(new AppThreads(environment).isVirtual());
+        } else {
+            assertThrows(IllegalStateException.class, () -> new AppThreads(environment));
+        }
+    }
+}
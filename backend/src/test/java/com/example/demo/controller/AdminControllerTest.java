@@ -0,0 +1,101 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.GameType;
+import com.example.demo.model.User;
+import com.example.demo.support.ApiTestSupport;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 管理后台和监控端点：只有管理员能访问（health 除外），导出按 NDJSON 一行一个对象。
+ */
+class AdminControllerTest extends ApiTestSupport {
+
+    @Test
+    void exportsUsersAsNdjson() throws Exception {
+        User admin = createAdmin("admin");
+        String marker = "export-" + UUID.randomUUID();
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            users.add(createUser(marker + "-" + i));
+        }
+
+        String body = mockMvc.perform(get("/api/admin/users").param("q", marker)
+                        .header("Authorization", bearer(admin)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(3, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            JsonNode row = objectMapper.readTree(lines[i]);
+            assertEquals(users.get(i).getId(), row.get("id").asLong());
+            assertEquals(users.get(i).getEmail(), row.get("email").asText());
+            assertEquals(false, row.has("password"));
+        }
+    }
+
+    @Test
+    void exportsPostsOfOneUser() throws Exception {
+        User admin = createAdmin("admin");
+        User author = createUser("author");
+        long first = createPost(author, GameType.VALORANT);
+        long second = createPost(author, GameType.VALORANT);
+
+        String body = mockMvc.perform(get("/api/admin/posts").param("userId", author.getId().toString())
+                        .header("Authorization", bearer(admin)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(first, objectMapper.readTree(lines[0]).get("id").asLong());
+        assertEquals(second, objectMapper.readTree(lines[1]).get("id").asLong());
+    }
+
+    @Test
+    void nonAdminsAreForbidden() throws Exception {
+        User user = createUser("user");
+
+        mockMvc.perform(get("/api/admin/users").header("Authorization", bearer(user)))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/admin/posts"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(delete("/api/admin/users/" + user.getId()).header("Authorization", bearer(user)))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/admin/deletions/1").header("Authorization", bearer(user)))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void actuatorEndpointsExceptHealthRequireAdmin() throws Exception {
+        User admin = createAdmin("admin");
+        User user = createUser("user");
+
+        mockMvc.perform(get("/actuator/health"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/metrics"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/sqlstats").header("Authorization", bearer(user)))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(delete("/actuator/sqlstats"))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(get("/actuator/metrics").header("Authorization", bearer(admin)))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/sqlstats").header("Authorization", bearer(admin)))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.GameType;
+import com.example.demo.model.User;
+import com.example.demo.service.SearchService;
+import com.example.demo.support.ApiTestSupport;
+import com.example.demo.support.SqlBudget;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 评论接口的 SQL 条数预算：评论列表一页的查询条数固定（顶层评论连作者、帖子、回复 id、回复连作者），
+ * 和评论数、回复数、作者数无关。删除顶层评论时一起删掉的回复也要从搜索索引里去掉。
+ */
+class CommentControllerTest extends ApiTestSupport {
+
+    @Autowired
+    private SearchService searchService;
+
+    @Test
+    void commentPageHasFixedQueryBudget() throws Exception {
+        User author = createUser("author");
+        long postId = createPost(author, GameType.VALORANT);
+        for (int i = 0; i < 4; i++) {
+            User commenter = createUser("commenter" + i);
+            long commentId = createComment(commenter, postId);
+            createReply(author, postId, commentId);
+            createReply(commenter, postId, commentId);
+        }
+
+        mockMvc.perform(get("/api/comments/post/" + postId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(4))
+                .andExpect(SqlBudget.exactly(4));
+    }
+
+    @Test
+    void repliesPageHasFixedQueryBudget() throws Exception {
+        User author = createUser("author");
+        long postId = createPost(author, GameType.VALORANT);
+        long commentId = createComment(author, postId);
+        for (int i = 0; i < 4; i++) {
+            createReply(createUser("replier" + i), postId, commentId);
+        }
+
+        mockMvc.perform(get("/api/comments/" + commentId + "/replies"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(4))
+                .andExpect(SqlBudget.atMost(2));
+    }
+
+    @Test
+    void createCommentQueryBudget() throws Exception {
+        User author = createUser("author");
+        long postId = createPost(author, GameType.VALORANT);
+        createComment(author, postId);
+
+        mockMvc.perform(post("/api/comments")
+                        .header("Authorization", bearer(author))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\":\"hi\",\"postId\":" + postId + "}"))
+                .andExpect(status().isOk())
+                .andExpect(SqlBudget.atMost(5));
+    }
+
+    @Test
+    void deletingCommentRemovesItsRepliesFromSearch() throws Exception {
+        User author = createUser("author");
+        // 回复内容是 "reply by <名字>"，用一个随机的名字当搜索词
+        String term = ThreadLocalRandom.current().ints(12, 'a', 'z' + 1)
+                .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append).toString();
+        User replier = createUser(term);
+        long postId = createPost(author, GameType.VALORANT);
+        long commentId = createComment(author, postId);
+        createReply(replier, postId, commentId);
+        createReply(replier, postId, commentId);
+        assertEquals(2, searchService.search(term, null, null, null, 10).items().size());
+
+        mockMvc.perform(delete("/api/comments/" + commentId).header("Authorization", bearer(author)))
+                .andExpect(status().isOk());
+
+        assertEquals(0, searchService.search(term, null, null, null, 10).items().size());
+    }
+}
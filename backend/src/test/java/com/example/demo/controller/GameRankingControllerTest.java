@@ -0,0 +1,86 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.GameType;
+import com.example.demo.model.User;
+import com.example.demo.support.ApiTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 提交分数：第一次提交和更新走同一条语句，同一个人并发提交不会报错，内存排行榜和 player_scores 一致。
+ */
+class GameRankingControllerTest extends ApiTestSupport {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void resubmittingUpdatesScore() throws Exception {
+        User player = createUser("player");
+
+        submit(player, 100);
+        submit(player, 40);
+
+        mockMvc.perform(get("/api/rankings/leaderboard/VALORANT/users/" + player.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.score").value(40));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM player_scores WHERE user_id = ?",
+                Integer.class, player.getId()));
+    }
+
+    @Test
+    void concurrentSubmissionsLeaveBoardMatchingTable() throws Exception {
+        User player = createUser("player");
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long score = 1000 + t;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    submit(player, score);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long stored = jdbcTemplate.queryForObject("SELECT score FROM player_scores WHERE user_id = ? AND game_type = ?",
+                Long.class, player.getId(), GameType.VALORANT.name());
+        mockMvc.perform(get("/api/rankings/leaderboard/VALORANT/users/" + player.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.score").value(stored));
+    }
+
+    private void submit(User player, long score) throws Exception {
+        mockMvc.perform(put("/api/rankings/leaderboard/VALORANT/score")
+                        .header("Authorization", bearer(player))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("score", score))))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.GameType;
+import com.example.demo.model.ImageVariant;
+import com.example.demo.model.Post;
+import com.example.demo.model.User;
+import com.example.demo.repository.ImageVariantRepository;
+import com.example.demo.repository.PostRepository;
+import com.example.demo.service.ImageDerivativeService;
+import com.example.demo.support.ApiTestSupport;
+import com.example.demo.support.SqlBudget;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 帖子接口的 SQL 条数预算：一页帖子的查询条数不能随帖子数、评论数增长。
+ * 另外覆盖游标翻页、feed 的条件 GET，以及发帖和衍生图同时完成时帖子的衍生图回填。
+ */
+class PostControllerTest extends ApiTestSupport {
+
+    @Autowired
+    private ImageVariantRepository imageVariantRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private ImageDerivativeService imageDerivativeService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void allPostsPageHasFixedQueryBudget() throws Exception {
+        User author = createUser("author");
+        User commenter = createUser("commenter");
+        for (int i = 0; i < 5; i++) {
+            long postId = createPost(author, GameType.VALORANT);
+            createComment(commenter, postId);
+            createComment(author, postId);
+        }
+
+        mockMvc.perform(get("/api/posts").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(5))
+                .andExpect(SqlBudget.atMost(1));
+    }
+
+    @Test
+    void gamePostsPageHasFixedQueryBudget() throws Exception {
+        User author = createUser("author");
+        for (int i = 0; i < 5; i++) {
+            createPost(author, GameType.LEAGUE_OF_LEGENDS);
+        }
+
+        mockMvc.perform(get("/api/posts/game/LEAGUE_OF_LEGENDS").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(SqlBudget.atMost(1));
+    }
+
+    @Test
+    void followingFeedHasFixedQueryBudget() throws Exception {
+        User reader = createUser("reader");
+        for (int i = 0; i < 3; i++) {
+            User author = createUser("author" + i);
+            follow(reader, author);
+            createPost(author, GameType.VALORANT);
+            createPost(author, GameType.VALORANT);
+        }
+
+        mockMvc.perform(get("/api/posts/following").header("Authorization", bearer(reader)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(6))
+                .andExpect(SqlBudget.atMost(2));
+    }
+
+    @Test
+    void userPostsHasFixedQueryBudget() throws Exception {
+        User author = createUser("author");
+        for (int i = 0; i < 4; i++) {
+            createPost(author, GameType.VALORANT);
+        }
+
+        mockMvc.perform(get("/api/posts/user").header("Authorization", bearer(author)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(4))
+                .andExpect(SqlBudget.atMost(1));
+    }
+
+    @Test
+    void cursorPagesThroughTiedTimestampsWithoutGapsOrDuplicates() throws Exception {
+        User author = createUser("author");
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            ids.add(createPost(author, GameType.VALORANT));
+        }
+        // 前 4 条同一时刻、后 3 条同一时刻，每页 3 条时页边界都落在同一时刻的帖子中间
+        LocalDateTime newer = LocalDateTime.of(2024, 6, 1, 12, 0);
+        for (int i = 0; i < ids.size(); i++) {
+            jdbcTemplate.update("UPDATE posts SET created_at = ? WHERE id = ?",
+                    Timestamp.valueOf(i < 4 ? newer : newer.minusHours(1)), ids.get(i));
+        }
+        // 同一时刻按 id 从大到小
+        List<Long> expected = new ArrayList<>(ids.subList(0, 4));
+        expected.sort(Comparator.reverseOrder());
+        List<Long> older = new ArrayList<>(ids.subList(4, 7));
+        older.sort(Comparator.reverseOrder());
+        expected.addAll(older);
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            MockHttpServletRequestBuilder request = get("/api/posts/user").header("Authorization", bearer(author)).param("limit", "3");
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            MockHttpServletResponse response = mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse();
+            objectMapper.readTree(response.getContentAsString()).forEach(post -> seen.add(post.get("id").asLong()));
+            cursor = response.getHeader("X-Next-Cursor");
+            pages++;
+        } while (cursor != null && pages < 10);
+
+        assertEquals(expected, seen);
+        assertEquals(3, pages);
+
+        // 正好一页装完时也不返回游标
+        mockMvc.perform(get("/api/posts/user").header("Authorization", bearer(author)).param("limit", "7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(7))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    void createPostQueryBudget() throws Exception {
+        User author = createUser("author");
+
+        mockMvc.perform(post("/api/posts")
+                        .header("Authorization", bearer(author))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\":\"hello\",\"gameType\":\"VALORANT\"}"))
+                .andExpect(status().isOk())
+                .andExpect(SqlBudget.atMost(2));
+    }
+
+    @Test
+    void feedRevalidatesOnEtagOnly() throws Exception {
+        User author = createUser("author");
+        createPost(author, GameType.VALORANT);
+
+        String etag = mockMvc.perform(get("/api/posts"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/posts").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(SqlBudget.atMost(0));
+
+        // 紧接着（多半在同一秒内）又发了一帖：旧 ETag 不再命中，只带 If-Modified-Since 也不能返回 304
+        createPost(author, GameType.VALORANT);
+        String tomorrow = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusDays(1));
+        mockMvc.perform(get("/api/posts").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/posts").header(HttpHeaders.IF_MODIFIED_SINCE, tomorrow))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void postCreatedWhileDerivativesCommitGetsThem() throws Exception {
+        User author = createUser("author");
+        String imageUrl = "http://localhost/files/" + UUID.randomUUID() + ".png";
+        long postId = postJson("/api/posts", author, Map.of("content", "with image", "gameType", GameType.VALORANT,
+                "imageUrl", imageUrl));
+
+        // 发帖时还没有衍生图；任务随后提交了衍生图记录，但它回写帖子时帖子还没插入
+        imageVariantRepository.save(new ImageVariant(imageUrl, imageUrl + "_thumb", imageUrl + "_feed"));
+        Post post = postRepository.findById(postId).orElseThrow();
+        assertEquals(null, post.getThumbnailUrl());
+
+        imageDerivativeService.fillPostVariants(post);
+
+        Post filled = postRepository.findById(postId).orElseThrow();
+        assertEquals(imageUrl + "_thumb", filled.getThumbnailUrl());
+        assertEquals(imageUrl + "_feed", filled.getFeedImageUrl());
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.GameType;
+import com.example.demo.model.User;
+import com.example.demo.model.UserFollow;
+import com.example.demo.repository.UserFollowRepository;
+import com.example.demo.service.FollowService;
+import com.example.demo.service.TimelineService;
+import com.example.demo.support.ApiTestSupport;
+import com.example.demo.support.SqlBudget;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 关注接口的 SQL 条数预算：是否关注走内存关注图，不查库；列表只有一次批量查询；
+ * 计数和个人主页读同一份 users 上的计数。关注后的时间线要等关注图更新之后再重建。
+ */
+class UserFollowControllerTest extends ApiTestSupport {
+
+    @Autowired
+    private UserFollowRepository userFollowRepository;
+
+    @Autowired
+    private FollowService followService;
+
+    @Autowired
+    private TimelineService timelineService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void followAndUnfollowQueryBudget() throws Exception {
+        User follower = createUser("follower");
+        User target = createUser("target");
+
+        mockMvc.perform(post("/api/follow/" + target.getId()).header("Authorization", bearer(follower)))
+                .andExpect(status().isOk())
+                .andExpect(SqlBudget.atMost(4));
+        mockMvc.perform(delete("/api/follow/" + target.getId()).header("Authorization", bearer(follower)))
+                .andExpect(status().isOk())
+                .andExpect(SqlBudget.atMost(4));
+    }
+
+    @Test
+    void countsMatchProfile() throws Exception {
+        User target = createUser("target");
+        follow(createUser("fan"), target);
+        follow(target, createUser("idol"));
+
+        mockMvc.perform(get("/api/follow/" + target.getId() + "/followers/count"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.followers").value(1))
+                .andExpect(SqlBudget.atMost(2));
+        mockMvc.perform(get("/api/follow/" + target.getId() + "/following/count"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.following").value(1))
+                .andExpect(SqlBudget.atMost(1));
+        mockMvc.perform(get("/api/users/profile").header("Authorization", bearer(target)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.followerCount").value(1))
+                .andExpect(jsonPath("$.followingCount").value(1));
+    }
+
+    @Test
+    void concurrentDuplicateFollowIsRejected() throws Exception {
+        User follower = createUser("follower");
+        User target = createUser("target");
+        // 另一个请求刚插入了同一条关系，本进程的关注图还不知道
+        UserFollow existing = new UserFollow();
+        existing.setFollowerId(follower.getId());
+        existing.setFollowingId(target.getId());
+        userFollowRepository.save(existing);
+
+        mockMvc.perform(post("/api/follow/" + target.getId()).header("Authorization", bearer(follower)))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Already following."));
+        // 失败的那次整体回滚，计数没有多加
+        mockMvc.perform(get("/api/follow/" + target.getId() + "/followers/count"))
+                .andExpect(jsonPath("$.followers").value(0));
+        mockMvc.perform(get("/api/follow/" + follower.getId() + "/following/count"))
+                .andExpect(jsonPath("$.following").value(0));
+    }
+
+    @Test
+    void timelineBuiltBeforeFollowCommitsIsDiscarded() throws Exception {
+        User reader = createUser("reader");
+        User author = createUser("author");
+        long post = createPost(author, GameType.VALORANT);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            followService.follow(reader.getId(), author.getId());
+            // 提交前关注图还是旧的，这时读到的时间线没有新关注的人
+            assertEquals(0, timelineService.getFollowingPosts(reader.getId(), null, 10).items().size());
+        });
+
+        mockMvc.perform(get("/api/posts/following").header("Authorization", bearer(reader)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(post));
+    }
+
+    @Test
+    void isFollowingDoesNotQueryDatabase() throws Exception {
+        User follower = createUser("follower");
+        User target = createUser("target");
+        follow(follower, target);
+
+        mockMvc.perform(get("/api/follow/is-following/" + target.getId()).header("Authorization", bearer(follower)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.isFollowing").value(true))
+                .andExpect(SqlBudget.exactly(0));
+    }
+
+    @Test
+    void followerListIsOneQuery() throws Exception {
+        User target = createUser("target");
+        for (int i = 0; i < 5; i++) {
+            follow(createUser("fan" + i), target);
+        }
+
+        mockMvc.perform(get("/api/follow/" + target.getId() + "/followers"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(5))
+                .andExpect(SqlBudget.exactly(1));
+        mockMvc.perform(get("/api/follow/" + target.getId() + "/following"))
+                .andExpect(status().isOk())
+                .andExpect(SqlBudget.exactly(0));
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.demo.id;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 发号器是静态的，和同一个 JVM 里的 Spring 测试共用；每个用例结束后恢复成测试配置里的 id.node-id=0。
+ * 用例不依赖开始时序号和时间戳的状态（前面的用例可能已经借到了未来的时间）。
+ */
+class TimeOrderedIdsTest {
+
+    private static final long EPOCH_MILLIS = 1704067200000L;
+
+    @AfterEach
+    void restoreNode() {
+        TimeOrderedIds.assignNode(0);
+    }
+
+    @Test
+    void idsAreUniqueAndIncreasingAcrossThreads() throws Exception {
+        TimeOrderedIds.assignNode(5);
+        int threads = 4;
+        int perThread = 10_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    long[] ids = new long[perThread];
+                    for (int i = 0; i < perThread; i++) {
+                        ids[i] = TimeOrderedIds.next();
+                    }
+                    return ids;
+                }));
+            }
+            Set<Long> all = new HashSet<>();
+            for (Future<long[]> future : futures) {
+                long[] ids = future.get(30, TimeUnit.SECONDS);
+                for (int i = 0; i < ids.length; i++) {
+                    assertEquals(5, node(ids[i]));
+                    if (i > 0) {
+                        assertTrue(ids[i] > ids[i - 1], "not increasing at " + i);
+                    }
+                    all.add(ids[i]);
+                }
+            }
+            assertEquals(threads * perThread, all.size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void borrowsNextMillisecondWhenSequenceRunsOut() {
+        TimeOrderedIds.assignNode(1);
+        // 500 毫秒的号，不等时钟一口气发完，最后一个 id 的时间戳就跑到了真实时间前面
+        int count = 128 * 500;
+        long previous = TimeOrderedIds.next();
+        int exhausted = 0;
+        for (int i = 1; i < count; i++) {
+            long id = TimeOrderedIds.next();
+            assertTrue(id > previous);
+            if (sequence(previous) == 127) {
+                // 序号用完：下一个落到后面的毫秒，序号从 0 开始
+                exhausted++;
+                assertTrue(millis(id) > millis(previous));
+                assertEquals(0, sequence(id));
+            } else if (millis(id) == millis(previous)) {
+                assertEquals(sequence(previous) + 1, sequence(id));
+            }
+            previous = id;
+        }
+        assertTrue(exhausted > 0);
+        assertTrue(millis(previous) > now(), "last id should be ahead of the clock");
+    }
+
+    @Test
+    void borrowedTimeIsCappedAtOneSecond() {
+        TimeOrderedIds.assignNode(2);
+        // 1500 毫秒的号：最多借出 1 秒，剩下的要等时钟追上来
+        int count = 128 * 1500;
+        long started = System.nanoTime();
+        long last = 0;
+        for (int i = 0; i < count; i++) {
+            last = TimeOrderedIds.next();
+            assertTrue(millis(last) - now() <= 1000, "drifted more than 1s ahead");
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        assertTrue(elapsedMillis >= 450, "finished in " + elapsedMillis + "ms without waiting for the clock");
+        assertEquals(2, node(last));
+    }
+
+    @Test
+    void refusesAfterLeaseDeadline() {
+        TimeOrderedIds.assignLeasedNode(3, System.nanoTime() + TimeUnit.MINUTES.toNanos(1));
+        assertEquals(3, node(TimeOrderedIds.next()));
+
+        TimeOrderedIds.assignLeasedNode(3, System.nanoTime() - 1);
+        IllegalStateException expired = assertThrows(IllegalStateException.class, TimeOrderedIds::next);
+        assertTrue(expired.getMessage().contains("lease expired"));
+
+        // 固定节点号不过期
+        TimeOrderedIds.assignNode(3);
+        assertEquals(3, node(TimeOrderedIds.next()));
+
+        TimeOrderedIds.unassign();
+        assertThrows(IllegalStateException.class, TimeOrderedIds::next);
+        assertThrows(IllegalArgumentException.class, () -> TimeOrderedIds.assignNode(TimeOrderedIds.MAX_NODE + 1));
+    }
+
+    private static long millis(long id) {
+        return id >>> 12;
+    }
+
+    private static long node(long id) {
+        return id >>> 7 & TimeOrderedIds.MAX_NODE;
+    }
+
+    private static long sequence(long id) {
+        return id & 127;
+    }
+
+    private static long now() {
+        return System.currentTimeMillis() - EPOCH_MILLIS;
+    }
+}
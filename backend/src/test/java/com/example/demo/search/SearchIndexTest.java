@@ -0,0 +1,211 @@
+package com.example.demo.search;
+
+import com.example.demo.model.GameType;
+import com.example.demo.search.SearchIndex.Hit;
+import com.example.demo.search.SearchIndex.Kind;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 倒排索引：删除、压缩、落盘读回、翻页和评论按所属帖子过滤 GameType。
+ * 压缩和读回的结果要和只用存活文档新建的索引完全一致（包括分数）。
+ */
+class SearchIndexTest {
+
+    private static final String[] QUERIES = {"w1", "w2 w3", "w4 w5 w6", "w7 w1 w9", "排位 w0", "w29"};
+
+    private record Doc(Kind kind, long id, long postId, long authorId, GameType gameType, String text) {
+    }
+
+    @Test
+    void compactionPreservesResults() {
+        Random random = new Random(1);
+        Map<String, Doc> docs = randomDocs(random, 1_500, 1_500);
+        SearchIndex index = build(docs.values());
+
+        // 删掉 1024 篇：达到压缩阈值（且超过四分之一），最后一次删除触发压缩
+        List<String> keys = new ArrayList<>(docs.keySet());
+        Collections.shuffle(keys, random);
+        for (String key : keys.subList(0, 1024)) {
+            Doc doc = docs.remove(key);
+            assertTrue(index.remove(doc.kind(), doc.id()));
+        }
+
+        assertEquals(docs.size(), index.size());
+        assertSameResults(build(docs.values()), index);
+    }
+
+    @Test
+    void writeToReadFromRoundTrip() throws IOException {
+        Random random = new Random(2);
+        Map<String, Doc> docs = randomDocs(random, 300, 600);
+        SearchIndex index = build(docs.values());
+        // 改几篇、删几篇，留下未压缩的删除标记
+        for (Doc doc : new ArrayList<>(docs.values()).subList(0, 50)) {
+            Doc updated = new Doc(doc.kind(), doc.id(), doc.postId(), doc.authorId(), doc.gameType(), randomText(random));
+            docs.remove(key(doc));
+            docs.put(key(updated), updated);
+            index.put(updated.kind(), updated.id(), updated.postId(), updated.authorId(), updated.gameType(), updated.text());
+        }
+        for (Doc doc : new ArrayList<>(docs.values()).subList(0, 30)) {
+            docs.remove(key(doc));
+            index.remove(doc.kind(), doc.id());
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.writeTo(new DataOutputStream(bytes));
+        SearchIndex restored = SearchIndex.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(index.size(), restored.size());
+        assertEquals(index.termCount(), restored.termCount());
+        assertSameResults(index, restored);
+        assertSameResults(build(docs.values()), restored);
+    }
+
+    @Test
+    void rejectsUnknownFormat() {
+        byte[] garbage = {0, 0, 0, 1, 0, 0, 0, 1};
+        assertThrows(IOException.class,
+                () -> SearchIndex.readFrom(new DataInputStream(new ByteArrayInputStream(garbage))));
+    }
+
+    @Test
+    void removeHidesDocumentAndItsComments() {
+        SearchIndex index = new SearchIndex();
+        index.put(Kind.POST, 1, 1, 100, GameType.VALORANT, "clutch round");
+        index.put(Kind.POST, 2, 2, 100, GameType.VALORANT, "clutch again");
+        index.put(Kind.COMMENT, 10, 1, 200, null, "what a clutch");
+
+        assertTrue(index.remove(Kind.COMMENT, 10));
+        assertFalse(index.remove(Kind.COMMENT, 10));
+        assertEquals(List.of("POST:2", "POST:1"), ids(index.search("clutch", null, null, null, 10)));
+
+        index.put(Kind.COMMENT, 11, 1, 200, null, "clutch");
+        assertTrue(index.remove(Kind.POST, 1));
+        // 帖子删了，评论虽然还在索引里也不可见
+        assertEquals(List.of("POST:2"), ids(index.search("clutch", null, null, null, 10)));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void cursorPagingWalksAllResultsOnce() {
+        Random random = new Random(3);
+        SearchIndex index = build(randomDocs(random, 200, 400).values());
+        // 内容相同的文档分数相同，翻页要靠 kind 和 id 分出先后
+        for (long id = 1_000; id < 1_040; id++) {
+            index.put(Kind.POST, id, id, 7, GameType.VALORANT, "w1 w2");
+            index.put(Kind.COMMENT, id, id, 7, null, "w1 w2");
+        }
+
+        for (String query : QUERIES) {
+            List<Hit> all = index.search(query, null, null, null, 100_000);
+            for (int pageSize : new int[]{1, 3, 17}) {
+                List<Hit> paged = new ArrayList<>();
+                Hit after = null;
+                while (true) {
+                    List<Hit> page = index.search(query, null, null, after, pageSize);
+                    assertTrue(page.size() <= pageSize);
+                    if (page.isEmpty()) {
+                        break;
+                    }
+                    paged.addAll(page);
+                    after = page.get(page.size() - 1);
+                }
+                assertEquals(all, paged, query + " / page size " + pageSize);
+            }
+        }
+    }
+
+    @Test
+    void commentsAreFilteredByTheirPostsGameType() {
+        SearchIndex index = new SearchIndex();
+        index.put(Kind.POST, 1, 1, 100, GameType.VALORANT, "ace");
+        index.put(Kind.POST, 2, 2, 100, GameType.LEAGUE_OF_LEGENDS, "ace");
+        index.put(Kind.COMMENT, 11, 1, 200, null, "ace");
+        index.put(Kind.COMMENT, 12, 2, 200, null, "ace");
+        // 所属帖子还没进索引的评论不可见
+        index.put(Kind.COMMENT, 13, 3, 200, null, "ace");
+
+        assertEquals(List.of("POST:1", "COMMENT:11"), ids(index.search("ace", GameType.VALORANT, null, null, 10)));
+        assertEquals(List.of("POST:2", "COMMENT:12"), ids(index.search("ace", GameType.LEAGUE_OF_LEGENDS, null, null, 10)));
+        assertEquals(List.of("COMMENT:12", "COMMENT:11"), ids(index.search("ace", null, 200L, null, 10)));
+
+        // 帖子改了 GameType，评论跟着走
+        index.put(Kind.POST, 1, 1, 100, GameType.LEAGUE_OF_LEGENDS, "ace");
+        assertEquals(List.of(), ids(index.search("ace", GameType.VALORANT, null, null, 10)));
+        assertEquals(List.of("POST:2", "POST:1", "COMMENT:12", "COMMENT:11"),
+                ids(index.search("ace", GameType.LEAGUE_OF_LEGENDS, null, null, 10)));
+    }
+
+    private static void assertSameResults(SearchIndex expected, SearchIndex actual) {
+        for (String query : QUERIES) {
+            for (GameType gameType : new GameType[]{null, GameType.VALORANT, GameType.LEAGUE_OF_LEGENDS}) {
+                for (Long authorId : new Long[]{null, 3L}) {
+                    assertEquals(expected.search(query, gameType, authorId, null, 100_000),
+                            actual.search(query, gameType, authorId, null, 100_000),
+                            query + " / " + gameType + " / " + authorId);
+                }
+            }
+        }
+    }
+
+    // 帖子 id 1..posts，评论 id 1..comments 挂在随机帖子上；按插入顺序保存，新建索引时顺序一致
+    private static Map<String, Doc> randomDocs(Random random, int posts, int comments) {
+        Map<String, Doc> docs = new LinkedHashMap<>();
+        GameType[] gameTypes = GameType.values();
+        for (long id = 1; id <= posts; id++) {
+            Doc doc = new Doc(Kind.POST, id, id, 1 + random.nextInt(10),
+                    gameTypes[random.nextInt(gameTypes.length)], randomText(random));
+            docs.put(key(doc), doc);
+        }
+        for (long id = 1; id <= comments; id++) {
+            Doc doc = new Doc(Kind.COMMENT, id, 1 + random.nextInt(posts), 1 + random.nextInt(10), null, randomText(random));
+            docs.put(key(doc), doc);
+        }
+        return docs;
+    }
+
+    private static String randomText(Random random) {
+        int words = 1 + random.nextInt(12);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            text.append(random.nextInt(8) == 0 ? "排位赛" : "w" + random.nextInt(30)).append(' ');
+        }
+        return text.toString();
+    }
+
+    private static SearchIndex build(Iterable<Doc> docs) {
+        SearchIndex index = new SearchIndex();
+        for (Doc doc : docs) {
+            index.put(doc.kind(), doc.id(), doc.postId(), doc.authorId(), doc.gameType(), doc.text());
+        }
+        return index;
+    }
+
+    private static String key(Doc doc) {
+        return doc.kind() + ":" + doc.id();
+    }
+
+    private static List<String> ids(List<Hit> hits) {
+        return hits.stream().map(hit -> hit.kind() + ":" + hit.id()).collect(Collectors.toList());
+    }
+}
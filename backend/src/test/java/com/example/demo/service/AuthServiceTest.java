@@ -0,0 +1,56 @@
+package com.example.demo.service;
+
+import com.example.demo.model.User;
+import com.example.demo.security.JwtTokenProvider;
+import com.example.demo.security.VerifiedToken;
+import com.example.demo.support.ApiTestSupport;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 当前用户取自 JwtAuthenticationFilter 挂在 request 上的解析结果，不再重新验 token。
+ */
+class AuthServiceTest extends ApiTestSupport {
+
+    @Autowired
+    private AuthService authService;
+
+    @AfterEach
+    void resetRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void reusesTokenVerifiedByFilter() {
+        User user = createUser("verified");
+        // 签名不对的 token：能拿到用户说明没有重新验签
+        String token = "not-a-signed-token";
+        bindRequest(token, new VerifiedToken(user.getEmail(), user.getId(), user.getName(), null));
+
+        assertEquals(user.getId(), authService.getCurrentUser(token).getId());
+    }
+
+    @Test
+    void verifiesTokenThatIsNotFromThisRequest() {
+        User user = createUser("other");
+        bindRequest("request-token", new VerifiedToken(user.getEmail(), user.getId(), user.getName(), null));
+
+        assertThrows(JwtException.class, () -> authService.getCurrentUser("another-token"));
+    }
+
+    private void bindRequest(String token, VerifiedToken verified) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        request.setAttribute(JwtTokenProvider.VERIFIED_TOKEN_ATTRIBUTE, verified);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.demo.service;
+
+import com.example.demo.model.CommentSnapshot;
+import com.example.demo.model.DeletionJob;
+import com.example.demo.model.GameType;
+import com.example.demo.model.Post;
+import com.example.demo.model.User;
+import com.example.demo.repository.DeletionJobRepository;
+import com.example.demo.repository.PostRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.support.ApiTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 后台删除：每批只删 2 行，一个用户的数据要分很多批删完；删完后各种冗余计数和快照要和剩下的数据一致。
+ * 改了配置会另起一个 Spring 上下文，用单独的内存库，不和缓存着的默认上下文（及其定时任务）共用表。
+ */
+@TestPropertySource(properties = {
+        "deletion.batch-size=2",
+        "spring.datasource.url=jdbc:h2:mem:deletion-test;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+})
+class DeletionJobServiceTest extends ApiTestSupport {
+
+    @Autowired
+    private DeletionJobService deletionJobService;
+
+    @Autowired
+    private DeletionJobRepository deletionJobRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void deletesUserInBatchesAndKeepsCountersConsistent() throws Exception {
+        User admin = createAdmin("admin");
+        User doomed = createUser("doomed");
+        User other = createUser("other");
+        User third = createUser("third");
+
+        // 他自己的帖子，下面有别人的评论和回复
+        long ownPost = createPost(doomed, GameType.VALORANT);
+        for (int i = 0; i < 3; i++) {
+            long comment = createComment(other, ownPost);
+            createReply(third, ownPost, comment);
+        }
+        createPost(doomed, GameType.VALORANT);
+
+        // 别人帖子下：他的评论（带别人的回复）、他对别人评论的回复
+        long otherPost = createPost(other, GameType.VALORANT);
+        long doomedComment = createComment(doomed, otherPost);
+        createReply(other, otherPost, doomedComment);
+        createReply(third, otherPost, doomedComment);
+        long thirdComment = createComment(third, otherPost);
+        createReply(doomed, otherPost, thirdComment);
+        long survivingComment = createComment(other, otherPost);
+
+        follow(doomed, other);
+        follow(other, doomed);
+        follow(third, doomed);
+
+        String response = mockMvc.perform(delete("/api/admin/users/" + doomed.getId())
+                        .header("Authorization", bearer(admin)))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+        long jobId = objectMapper.readTree(response).get("id").asLong();
+
+        DeletionJob job = awaitFinished(jobId);
+        assertEquals(DeletionJob.Status.DONE, job.getStatus());
+        // 2 个帖子 + 帖子下 6 条 + 别人帖子下 4 条 + 3 条关注 + 用户本身
+        assertEquals(16, job.getDeletedRows());
+
+        mockMvc.perform(get("/api/admin/deletions/" + jobId).header("Authorization", bearer(admin)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("DONE"));
+
+        assertEquals(0, count("SELECT COUNT(*) FROM users WHERE id = ?", doomed.getId()));
+        assertEquals(0, count("SELECT COUNT(*) FROM posts WHERE user_id = ?", doomed.getId()));
+        assertEquals(0, count("SELECT COUNT(*) FROM comments WHERE user_id = ?", doomed.getId()));
+        assertEquals(0, count("SELECT COUNT(*) FROM user_followers WHERE follower_id = ? OR following_id = ?",
+                doomed.getId(), doomed.getId()));
+
+        // 剩下两条评论：第三人的评论和 other 的评论；第三人评论下的回复删掉了
+        Post remaining = postRepository.findById(otherPost).orElseThrow();
+        assertEquals(2, remaining.getCommentCount());
+        assertEquals(2, count("SELECT COUNT(*) FROM comments WHERE post_id = ?", otherPost));
+        assertEquals(0, count("SELECT reply_count FROM comments WHERE id = ?", thirdComment));
+        assertEquals(2, remaining.getRecentComments().size());
+        assertTrue(remaining.getRecentComments().stream().map(CommentSnapshot::getId)
+                .allMatch(id -> id == thirdComment || id == survivingComment));
+
+        User otherAfter = userRepository.findById(other.getId()).orElseThrow();
+        User thirdAfter = userRepository.findById(third.getId()).orElseThrow();
+        assertEquals(0, otherAfter.getFollowerCount());
+        assertEquals(0, otherAfter.getFollowingCount());
+        assertEquals(0, thirdAfter.getFollowingCount());
+    }
+
+    @Test
+    void resumesJobLeftRunningOnRestart() throws Exception {
+        User doomed = createUser("doomed");
+        User other = createUser("other");
+        long post = createPost(doomed, GameType.VALORANT);
+        createComment(other, post);
+        createComment(other, post);
+        follow(other, doomed);
+
+        // 模拟删到一半进程退出：用户已打删除标记，任务停在 RUNNING，没有触发后台线程
+        transactionTemplate.executeWithoutResult(status -> userRepository.markDeleted(doomed.getId(), LocalDateTime.now()));
+        DeletionJob interrupted = new DeletionJob(DeletionJob.TargetType.USER, doomed.getId());
+        interrupted.setStatus(DeletionJob.Status.RUNNING);
+        interrupted.setPhase(DeletionJob.Phase.POSTS);
+        interrupted.setDeletedRows(5);
+        long jobId = deletionJobRepository.save(interrupted).getId();
+
+        deletionJobService.resumeOnStartup();
+
+        DeletionJob job = awaitFinished(jobId);
+        assertEquals(DeletionJob.Status.DONE, job.getStatus());
+        // 之前记下的 5 行 + 2 条评论、1 个帖子、1 条关注、用户本身
+        assertEquals(10, job.getDeletedRows());
+        assertEquals(0, count("SELECT COUNT(*) FROM users WHERE id = ?", doomed.getId()));
+        assertEquals(0, userRepository.findById(other.getId()).orElseThrow().getFollowingCount());
+    }
+
+    @Test
+    void deletesPostAndItsComments() throws Exception {
+        User author = createUser("author");
+        User other = createUser("other");
+        long post = createPost(author, GameType.VALORANT);
+        long comment = createComment(other, post);
+        createReply(author, post, comment);
+        createComment(author, post);
+
+        DeletionJob job = awaitFinished(deletionJobService.deletePost(post).getId());
+
+        assertEquals(DeletionJob.Status.DONE, job.getStatus());
+        assertEquals(4, job.getDeletedRows());
+        assertEquals(0, count("SELECT COUNT(*) FROM posts WHERE id = ?", post));
+        assertEquals(0, count("SELECT COUNT(*) FROM comments WHERE post_id = ?", post));
+        // 重复提交返回同一个任务
+        assertEquals(job.getId(), deletionJobService.deletePost(post).getId());
+    }
+
+    // 直接用 JDBC 读状态：轮询时不经过 JPA，拿到的一定是后台线程已提交的最新一行
+    private DeletionJob awaitFinished(long jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            DeletionJob job = jdbcTemplate.queryForObject(
+                    "SELECT id, status, deleted_rows FROM deletion_jobs WHERE id = ?", (rs, rowNum) -> {
+                        DeletionJob row = new DeletionJob();
+                        row.setId(rs.getLong("id"));
+                        row.setStatus(DeletionJob.Status.valueOf(rs.getString("status")));
+                        row.setDeletedRows(rs.getLong("deleted_rows"));
+                        return row;
+                    }, jobId);
+            if (job.getStatus() == DeletionJob.Status.DONE || job.getStatus() == DeletionJob.Status.FAILED
+                    || System.currentTimeMillis() > deadline) {
+                return job;
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private int count(String sql, Object... args) {
+        return jdbcTemplate.queryForObject(sql, Integer.class, args);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.demo.support;
+
+import com.example.demo.PwSocialMediaApplication;
+import com.example.demo.model.GameType;
+import com.example.demo.model.User;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.security.JwtTokenProvider;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 接口测试的公共部分：整个应用跑在内存 H2 上，通过 MockMvc 调接口准备数据。
+ *
+ * 准备数据也走接口，关注图、帖子上的冗余计数等内存 / 派生状态和线上一致。
+ * 各测试类共用一个 Spring 上下文和数据库，所以每个测试自己建用户，不依赖表里已有多少数据。
+ */
+@SpringBootTest(classes = PwSocialMediaApplication.class)
+@AutoConfigureMockMvc
+public abstract class ApiTestSupport {
+
+    @Autowired
+    protected MockMvc mockMvc;
+
+    @Autowired
+    protected ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    protected User createUser(String name) {
+        return saveUser(name, false);
+    }
+
+    protected User createAdmin(String name) {
+        return saveUser(name, true);
+    }
+
+    protected String bearer(User user) {
+        return "Bearer " + jwtTokenProvider.generateToken(user);
+    }
+
+    protected long createPost(User author, GameType gameType) throws Exception {
+        return postJson("/api/posts", author, Map.of("content", "post by " + author.getName(), "gameType", gameType));
+    }
+
+    protected long createComment(User author, long postId) throws Exception {
+        return postJson("/api/comments", author, Map.of("content", "comment by " + author.getName(), "postId", postId));
+    }
+
+    protected long createReply(User author, long postId, long parentId) throws Exception {
+        return postJson("/api/comments", author,
+                Map.of("content", "reply by " + author.getName(), "postId", postId, "parentId", parentId));
+    }
+
+    protected void follow(User follower, User target) throws Exception {
+        mockMvc.perform(post("/api/follow/" + target.getId()).header("Authorization", bearer(follower)))
+                .andExpect(status().isOk());
+    }
+
+    private User saveUser(String name, boolean admin) {
+        User user = new User();
+        user.setEmail(name + "-" + UUID.randomUUID() + "@example.com");
+        user.setPassword("{noop}password");
+        user.setName(name);
+        user.setAvatar("");
+        user.setIsAdmin(admin);
+        return userRepository.save(user);
+    }
+
+    protected long postJson(String path, User user, Map<String, Object> body) throws Exception {
+        String response = mockMvc.perform(post(path)
+                        .header("Authorization", bearer(user))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode json = objectMapper.readTree(response);
+        return json.get("id").asLong();
+    }
+}
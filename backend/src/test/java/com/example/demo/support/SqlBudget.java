@@ -0,0 +1,64 @@
+package com.example.demo.support;
+
+import com.example.demo.metrics.SqlStats;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.util.List;
+
+/**
+ * 断言一次请求最多执行多少条 SQL，超出时把这次请求执行过的 SQL 全部列出来。
+ *
+ * <pre>
+ * mockMvc.perform(get("/api/posts")).andExpect(SqlBudget.atMost(3));
+ * </pre>
+ *
+ * 统计来自 RequestStatsFilter 挂在 request 上的 {@link SqlStats}，
+ * 测试配置里要打开 request-stats.capture-sql 才有 SQL 原文。
+ * 测试方法本身不能加 @Transactional，否则请求复用测试线程上已经拿到的连接，统计不到。
+ */
+public final class SqlBudget {
+
+    private SqlBudget() {
+    }
+
+    public static ResultMatcher atMost(int max) {
+        return result -> {
+            SqlStats stats = stats(result);
+            if (stats.statements() > max) {
+                throw new AssertionError(describe(result, stats,
+                        "expected at most " + max + " SQL statements but executed " + stats.statements()));
+            }
+        };
+    }
+
+    public static ResultMatcher exactly(int expected) {
+        return result -> {
+            SqlStats stats = stats(result);
+            if (stats.statements() != expected) {
+                throw new AssertionError(describe(result, stats,
+                        "expected exactly " + expected + " SQL statements but executed " + stats.statements()));
+            }
+        };
+    }
+
+    private static SqlStats stats(MvcResult result) {
+        Object stats = result.getRequest().getAttribute(SqlStats.REQUEST_ATTRIBUTE);
+        if (stats == null) {
+            throw new AssertionError("No SQL statistics on the request; is RequestStatsFilter registered?");
+        }
+        return (SqlStats) stats;
+    }
+
+    private static String describe(MvcResult result, SqlStats stats, String message) {
+        StringBuilder sb = new StringBuilder()
+                .append(result.getRequest().getMethod()).append(' ')
+                .append(result.getRequest().getRequestURI()).append(": ")
+                .append(message);
+        List<String> sql = stats.sql();
+        for (int i = 0; i < sql.size(); i++) {
+            sb.append("\n  ").append(i + 1).append(". ").append(sql.get(i));
+        }
+        return sb.toString();
+    }
+}